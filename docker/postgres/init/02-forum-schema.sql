@@ -29,6 +29,28 @@ CREATE TABLE IF NOT EXISTS contents (
     CONSTRAINT fk_contents_reply_to FOREIGN KEY (reply_to) REFERENCES contents(content_id) ON DELETE SET NULL
     );
 
+-- 全文检索：title 权重 A、body_plain 权重 B 的 tsvector 生成列（写入时由数据库自动维护）
+ALTER TABLE contents ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', COALESCE(title, '')), 'A') ||
+        setweight(to_tsvector('simple', COALESCE(body_plain, '')), 'B')
+    ) STORED;
+
+-- 列表摘要：写入时由数据库生成，帖子列表只读这一列，不再传输整段正文
+ALTER TABLE contents ADD COLUMN IF NOT EXISTS snippet VARCHAR(200)
+    GENERATED ALWAYS AS (
+        LEFT(btrim(regexp_replace(COALESCE(body_plain, ''), '\s+', ' ', 'g')), 200)
+    ) STORED;
+
+-- 回复树：物化路径 + 层级（只对 reply 有值）
+-- reply_path 由根回复到自身的 content_id 依次拼接，每段为 12 位小写十六进制，
+-- 按 COLLATE "C" 排序即为深度优先的楼中楼顺序，某条回复的整棵子树是一段连续的索引区间
+ALTER TABLE contents ADD COLUMN IF NOT EXISTS reply_path TEXT COLLATE "C";
+ALTER TABLE contents ADD COLUMN IF NOT EXISTS reply_depth SMALLINT;
+
+-- 三元组扩展：让 ILIKE '%kw%' 搜索也能走 GIN 索引
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- 属性定义表（定义可用的属性类型）
 CREATE TABLE IF NOT EXISTS attribute_definitions (
                                                      attr_id SERIAL PRIMARY KEY,
@@ -93,6 +115,27 @@ CREATE TABLE IF NOT EXISTS user_content_relations (
     UNIQUE(user_id, content_id, relation_type_id)
     );
 
+-- 内容计数表（content_metrics 的宽表冗余，每个内容一行，列表查询按主键直接 JOIN）
+-- 写入由 ForumMetricMapper 与 content_metrics 同步维护，定时对账任务按 content_id 分段从关系表重算并修正偏差
+-- like_updated_date / reply_updated_date 只在对应列被写时更新，对账据此按列跳过刚写过的计数（浏览数刷新只改 updated_date）
+CREATE TABLE IF NOT EXISTS content_counters (
+                                                content_id BIGINT PRIMARY KEY,
+                                                view_count INTEGER NOT NULL DEFAULT 0,
+                                                like_count INTEGER NOT NULL DEFAULT 0,
+                                                reply_count INTEGER NOT NULL DEFAULT 0,
+                                                updated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                                                CONSTRAINT fk_content_counters_content FOREIGN KEY (content_id) REFERENCES contents(content_id) ON DELETE CASCADE
+    );
+ALTER TABLE content_counters ADD COLUMN IF NOT EXISTS like_updated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE content_counters ADD COLUMN IF NOT EXISTS reply_updated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP;
+
+-- 后台任务检查点（计数对账按 content_id 分段扫描，记录上次处理到的位置，重启后接着扫）
+CREATE TABLE IF NOT EXISTS forum_job_checkpoints (
+                                                     job_name VARCHAR(50) PRIMARY KEY,
+                                                     last_id BIGINT NOT NULL DEFAULT 0,
+                                                     updated_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    );
+
 -- ================================================================
 -- 3. 创建索引
 -- ================================================================
@@ -107,6 +150,51 @@ CREATE INDEX IF NOT EXISTS idx_contents_created ON contents(created_date DESC);
 CREATE INDEX IF NOT EXISTS idx_contents_type_status ON contents(content_type, status);
 CREATE INDEX IF NOT EXISTS idx_contents_reply_to ON contents(reply_to);
 
+-- 游标分页索引（与 (created_date, content_id) 排序一致，只覆盖活跃数据）
+CREATE INDEX IF NOT EXISTS idx_contents_active_posts_keyset
+    ON contents(created_date DESC, content_id DESC) WHERE content_type = 'post' AND status = 'active';
+CREATE INDEX IF NOT EXISTS idx_contents_author_posts_keyset
+    ON contents(author_id, created_date DESC, content_id DESC) WHERE content_type = 'post' AND status = 'active';
+CREATE INDEX IF NOT EXISTS idx_contents_children_keyset
+    ON contents(parent_id, created_date, content_id) WHERE status = 'active';
+
+-- 回复树索引（子树区间扫描 / 按页取根回复）
+CREATE INDEX IF NOT EXISTS idx_contents_reply_tree
+    ON contents(parent_id, reply_path) WHERE content_type = 'reply' AND status = 'active';
+CREATE INDEX IF NOT EXISTS idx_contents_reply_roots
+    ON contents(parent_id, reply_path) WHERE content_type = 'reply' AND status = 'active' AND reply_depth = 0;
+
+-- 为已有回复补齐 reply_path / reply_depth（层级上限 8，与 forum.reply-tree.max-depth 默认值一致；
+-- 超过上限的回复挂在上限层级的祖先下，与新写入的规则相同）
+WITH RECURSIVE tree AS (
+    SELECT c.content_id, c.parent_id, lpad(to_hex(c.content_id), 12, '0') AS path, 0 AS depth
+    FROM contents c
+    WHERE c.content_type = 'reply'
+      AND NOT EXISTS (
+        SELECT 1 FROM contents t
+        WHERE t.content_id = c.reply_to AND t.parent_id = c.parent_id AND t.content_type = 'reply'
+    )
+    UNION ALL
+    SELECT c.content_id,
+           c.parent_id,
+           LEFT(t.path, LEAST(t.depth + 1, 8) * 12) || lpad(to_hex(c.content_id), 12, '0'),
+           LEAST(t.depth + 1, 8)
+    FROM contents c
+             JOIN tree t ON c.reply_to = t.content_id AND c.parent_id = t.parent_id
+    WHERE c.content_type = 'reply'
+)
+UPDATE contents c
+SET reply_path = tree.path COLLATE "C",
+    reply_depth = tree.depth
+FROM tree
+WHERE c.content_id = tree.content_id
+  AND c.reply_path IS NULL;
+
+-- 搜索索引（全文检索 + ILIKE 三元组）
+CREATE INDEX IF NOT EXISTS idx_contents_search_vector ON contents USING GIN (search_vector);
+CREATE INDEX IF NOT EXISTS idx_contents_title_trgm ON contents USING GIN (title gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_contents_body_plain_trgm ON contents USING GIN (body_plain gin_trgm_ops);
+
 -- 属性查询索引
 CREATE INDEX IF NOT EXISTS idx_content_attrs_content ON content_attributes(content_id);
 CREATE INDEX IF NOT EXISTS idx_content_attrs_attr ON content_attributes(attr_id);
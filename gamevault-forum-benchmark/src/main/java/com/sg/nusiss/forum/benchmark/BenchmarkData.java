@@ -0,0 +1,58 @@
+package com.sg.nusiss.forum.benchmark;
+
+import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.forum.entity.ForumContent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试用的内存数据（固定种子，多次运行结果可比）
+ */
+public final class BenchmarkData {
+
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private BenchmarkData() {}
+
+    /**
+     * 生成列表接口形态的帖子（只有摘要，没有正文），作者在 [1, authors] 中循环
+     */
+    public static List<ForumContent> listPosts(int count, int authors) {
+        List<ForumContent> posts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ForumContent post = new ForumContent();
+            post.setContentId(100_000L + i);
+            post.setContentType("post");
+            post.setTitle("帖子标题 " + i);
+            post.setSnippet("这是帖子 " + i + " 的摘要，列表页只展示前两百个字符");
+            post.setAuthorId((long) (i % authors) + 1);
+            post.setStatus("active");
+            post.setCreatedDate(BASE_TIME.plusMinutes(i));
+            post.setUpdatedDate(BASE_TIME.plusMinutes(i));
+            post.setLikeCount(i % 97);
+            post.setViewCount(i * 3);
+            post.setReplyCount(i % 13);
+            post.setIsLikedByCurrentUser(i % 5 == 0);
+            posts.add(post);
+        }
+        return posts;
+    }
+
+    /**
+     * 生成 [1, count] 的用户资料
+     */
+    public static List<UserDTO> users(int count) {
+        List<UserDTO> users = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            users.add(UserDTO.builder()
+                    .userId(id)
+                    .username("player" + id)
+                    .email("player" + id + "@example.com")
+                    .avatarUrl("https://cdn.example.com/avatar/" + id + ".png")
+                    .build());
+        }
+        return users;
+    }
+}
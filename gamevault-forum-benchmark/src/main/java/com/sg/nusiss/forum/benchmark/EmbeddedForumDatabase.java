@@ -0,0 +1,183 @@
+package com.sg.nusiss.forum.benchmark;
+
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.Collectors;
+
+/**
+ * Mapper 基准测试用的嵌入式 PostgreSQL
+ *
+ * - 进程内启动 PostgreSQL（zonky embedded-postgres，不需要 Docker）
+ * - 执行部署用的 02-forum-schema.sql（与线上相同的表、生成列和索引）
+ * - 直接用 MyBatis 加载 forum/*.xml，不启动 Spring 上下文
+ * 修改 Mapper XML 后重新打包运行，即可与修改前的结果对比。
+ */
+public final class EmbeddedForumDatabase implements AutoCloseable {
+
+    private static final String SCHEMA_RESOURCE = "schema/02-forum-schema.sql";
+    private static final String[] MAPPER_RESOURCES = {
+            "forum/ForumContentMapper.xml",
+            "forum/ForumMetricMapper.xml",
+            "forum/ForumContentLikeMapper.xml"
+    };
+
+    private final EmbeddedPostgres postgres;
+    private final SqlSessionFactory sessionFactory;
+
+    private EmbeddedForumDatabase(EmbeddedPostgres postgres, SqlSessionFactory sessionFactory) {
+        this.postgres = postgres;
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * 启动数据库并建表
+     */
+    public static EmbeddedForumDatabase start() throws IOException, SQLException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        try {
+            DataSource dataSource = postgres.getPostgresDatabase();
+            applySchema(dataSource);
+            return new EmbeddedForumDatabase(postgres, buildSessionFactory(dataSource));
+        } catch (IOException | SQLException | RuntimeException e) {
+            postgres.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 生成测试数据
+     *
+     * @param posts          帖子数
+     * @param hotPosts       最新的多少个帖子带回复和点赞
+     * @param repliesPerPost 每个热门帖子的根回复数（每条根回复再带一条楼中楼）
+     * @param likesPerPost   每个热门帖子的点赞数
+     */
+    public void seed(int posts, int hotPosts, int repliesPerPost, int likesPerPost) throws SQLException {
+        try (SqlSession session = openSession();
+             Statement statement = session.getConnection().createStatement()) {
+            statement.execute(String.format("""
+                    INSERT INTO contents (content_type, title, body, body_plain, author_id, status, created_date, updated_date)
+                    SELECT 'post', '帖子 ' || g, '<p>' || repeat('游戏攻略内容 ', 40) || g || '</p>',
+                           repeat('游戏攻略内容 ', 40) || g, (g %% 500) + 1,
+                           CASE WHEN g %% 50 = 0 THEN 'deleted' ELSE 'active' END,
+                           TIMESTAMP '2024-01-01' + g * INTERVAL '1 minute',
+                           TIMESTAMP '2024-01-01' + g * INTERVAL '1 minute'
+                    FROM generate_series(1, %d) g
+                    """, posts));
+
+            statement.execute(String.format("""
+                    INSERT INTO contents (content_type, body, body_plain, author_id, parent_id, status, created_date, updated_date)
+                    SELECT 'reply', '回复 ' || r, '回复 ' || r, (r %% 500) + 1, p.content_id, 'active',
+                           p.created_date + r * INTERVAL '1 second', p.created_date + r * INTERVAL '1 second'
+                    FROM (SELECT content_id, created_date FROM contents
+                          WHERE content_type = 'post' AND status = 'active'
+                          ORDER BY content_id DESC LIMIT %d) p,
+                         generate_series(1, %d) r
+                    """, hotPosts, repliesPerPost));
+            statement.execute("""
+                    UPDATE contents
+                    SET reply_path = lpad(to_hex(content_id), 12, '0'), reply_depth = 0
+                    WHERE content_type = 'reply' AND reply_path IS NULL
+                    """);
+
+            // 每条根回复下一条楼中楼
+            statement.execute("""
+                    INSERT INTO contents (content_type, body, body_plain, author_id, parent_id, reply_to,
+                                          status, created_date, updated_date, reply_path, reply_depth)
+                    SELECT 'reply', '楼中楼 ' || r.content_id, '楼中楼 ' || r.content_id, r.author_id % 500 + 1,
+                           r.parent_id, r.content_id, 'active',
+                           r.created_date + INTERVAL '1 hour', r.created_date + INTERVAL '1 hour',
+                           r.reply_path, 1
+                    FROM contents r
+                    WHERE r.content_type = 'reply' AND r.reply_depth = 0
+                    """);
+            statement.execute("""
+                    UPDATE contents
+                    SET reply_path = reply_path || lpad(to_hex(content_id), 12, '0')
+                    WHERE content_type = 'reply' AND reply_depth = 1 AND length(reply_path) = 12
+                    """);
+
+            statement.execute(String.format("""
+                    INSERT INTO user_content_relations (user_id, content_id, relation_type_id)
+                    SELECT u, p.content_id, (SELECT type_id FROM relationship_types WHERE type_name = 'like')
+                    FROM (SELECT content_id FROM contents
+                          WHERE content_type = 'post' AND status = 'active'
+                          ORDER BY content_id DESC LIMIT %d) p,
+                         generate_series(1, %d) u
+                    """, hotPosts, likesPerPost));
+        }
+
+        // 计数行由对账语句一次补齐
+        try (SqlSession session = openSession()) {
+            session.getMapper(ForumMetricMapper.class).reconcileCounterRange(0L, Long.MAX_VALUE, 0);
+        }
+
+        try (SqlSession session = openSession();
+             Statement statement = session.getConnection().createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    /**
+     * 打开一个自动提交的会话（非线程安全，每个线程各自打开）
+     */
+    public SqlSession openSession() {
+        return sessionFactory.openSession(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        postgres.close();
+    }
+
+    private static void applySchema(DataSource dataSource) throws IOException, SQLException {
+        String script;
+        try (InputStream in = EmbeddedForumDatabase.class.getClassLoader().getResourceAsStream(SCHEMA_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("找不到建表脚本: " + SCHEMA_RESOURCE);
+            }
+            // 去掉 psql 元命令（\c gamevault_forum），直接建在嵌入式库的默认数据库中
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines()
+                    .filter(line -> !line.startsWith("\\"))
+                    .collect(Collectors.joining("\n"));
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(script);
+        }
+    }
+
+    private static SqlSessionFactory buildSessionFactory(DataSource dataSource) throws IOException {
+        Configuration configuration = new Configuration(
+                new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        // 与线上一样每条语句都真正执行，不让一级缓存吃掉重复查询
+        configuration.setLocalCacheScope(LocalCacheScope.STATEMENT);
+
+        for (String resource : MAPPER_RESOURCES) {
+            try (InputStream in = EmbeddedForumDatabase.class.getClassLoader().getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IOException("找不到 Mapper XML: " + resource);
+                }
+                new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+            }
+        }
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+}
@@ -0,0 +1,114 @@
+package com.sg.nusiss.forum.benchmark;
+
+import com.sg.nusiss.forum.entity.ForumContent;
+import com.sg.nusiss.forum.repository.ForumContentMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ForumContentMapper 热点查询在嵌入式 PostgreSQL 上的耗时
+ *
+ * 覆盖帖子列表（OFFSET 分页 vs 游标分页）、搜索、帖子详情和回复树，
+ * 每个参数组合启动一个新的数据库并生成相同的数据。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+@Threads(1)
+public class ForumMapperBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"50000"})
+    public int posts;
+
+    @Param({"200"})
+    public int hotPosts;
+
+    @Param({"50"})
+    public int repliesPerPost;
+
+    private EmbeddedForumDatabase database;
+    private SqlSession session;
+    private ForumContentMapper contentMapper;
+
+    private int deepOffset;
+    private LocalDateTime deepCursorDate;
+    private Long deepCursorId;
+    private Long hotPostId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        database = EmbeddedForumDatabase.start();
+        database.seed(posts, hotPosts, repliesPerPost, 100);
+
+        session = database.openSession();
+        contentMapper = session.getMapper(ForumContentMapper.class);
+
+        hotPostId = contentMapper.findActivePosts(0, 1).get(0).getContentId();
+        deepOffset = posts / 2;
+        ForumContent cursor = contentMapper.findActivePosts(deepOffset - 1, 1).get(0);
+        deepCursorDate = cursor.getCreatedDate();
+        deepCursorId = cursor.getContentId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (session != null) {
+            session.close();
+        }
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Benchmark
+    public List<ForumContent> firstPage() {
+        return contentMapper.findActivePosts(0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ForumContent> deepOffsetPage() {
+        return contentMapper.findActivePosts(deepOffset, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ForumContent> deepCursorPage() {
+        return contentMapper.findActivePostsAfter(deepCursorDate, deepCursorId, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<ForumContent> searchPosts() {
+        return contentMapper.searchPosts("帖子 4242", 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ForumContent findById() {
+        return contentMapper.findById(hotPostId);
+    }
+
+    @Benchmark
+    public List<ForumContent> replyTreePage() {
+        return contentMapper.findReplyTreePage(hotPostId, null, PAGE_SIZE, 3);
+    }
+}
@@ -0,0 +1,56 @@
+package com.sg.nusiss.forum.benchmark;
+
+import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.forum.dto.PostResponseDTO;
+import com.sg.nusiss.forum.entity.ForumContent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PostResponseDTO.fromContentAndUser 转换一页帖子的耗时
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PostResponseDTOBenchmark {
+
+    @Param({"20", "1000"})
+    public int size;
+
+    private List<ForumContent> posts;
+    private UserDTO[] authors;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        posts = BenchmarkData.listPosts(size, 50);
+        List<UserDTO> users = BenchmarkData.users(50);
+        authors = new UserDTO[size];
+        for (int i = 0; i < size; i++) {
+            authors[i] = users.get((int) (posts.get(i).getAuthorId() - 1));
+        }
+    }
+
+    @Benchmark
+    public void fromContentAndUser(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(PostResponseDTO.fromContentAndUser(posts.get(i), authors[i]));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.sg.nusiss.forum.benchmark;
+
+import com.sg.nusiss.forum.service.forum.ViewTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ViewTracker.shouldIncrementView 多线程争用下的吞吐
+ *
+ * 8 个线程同时访问，hotPosts 越小同一帖子上的争用越集中；
+ * users 控制重复浏览（去重命中）的比例。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class ViewTrackerBenchmark {
+
+    @Param({"16", "10000"})
+    public int hotPosts;
+
+    @Param({"1000", "1000000"})
+    public int users;
+
+    private ViewTracker tracker;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tracker = new ViewTracker(5, 60, 500_000, "memory",
+                new StaticListableBeanFactory().getBeanProvider(StringRedisTemplate.class));
+    }
+
+    @State(Scope.Thread)
+    public static class Visitor {
+        private final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+
+        long nextUser(int users) {
+            return random.nextInt(users) + 1L;
+        }
+
+        long nextPost(int posts) {
+            return random.nextInt(posts) + 1L;
+        }
+    }
+
+    @Benchmark
+    public boolean loggedInView(Visitor visitor) {
+        return tracker.shouldIncrementView(visitor.nextUser(users), null, visitor.nextPost(hotPosts));
+    }
+
+    @Benchmark
+    public boolean anonymousView(Visitor visitor) {
+        return tracker.shouldIncrementView(null, "session-" + visitor.nextUser(users), visitor.nextPost(hotPosts));
+    }
+}
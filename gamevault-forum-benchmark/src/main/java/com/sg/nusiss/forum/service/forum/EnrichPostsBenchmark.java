@@ -0,0 +1,78 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.forum.benchmark.BenchmarkData;
+import com.sg.nusiss.forum.entity.ForumContent;
+import com.sg.nusiss.forum.service.user.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PostAuthorEnricher.enrichPosts（帖子列表填充作者信息）在大列表上的映射开销
+ *
+ * UserService 换成内存实现，只测作者ID收集、去重和回填；远程调用的耗时看 forum.remote.call 指标。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnrichPostsBenchmark {
+
+    @Param({"20", "1000", "10000"})
+    public int size;
+
+    @Param({"10", "5000"})
+    public int authors;
+
+    private PostAuthorEnricher enricher;
+    private List<ForumContent> posts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<Long, UserDTO> users = new HashMap<>();
+        for (UserDTO user : BenchmarkData.users(authors)) {
+            users.put(user.getUserId(), user);
+        }
+
+        UserService userService = new UserService(null, null, null) {
+            @Override
+            public List<UserDTO> getUsersByIds(List<Long> userIds) {
+                List<UserDTO> result = new ArrayList<>(userIds.size());
+                for (Long userId : userIds) {
+                    UserDTO user = users.get(userId);
+                    if (user != null) {
+                        result.add(user);
+                    }
+                }
+                return result;
+            }
+        };
+
+        enricher = new PostAuthorEnricher(userService);
+        posts = BenchmarkData.listPosts(size, authors);
+    }
+
+    @Benchmark
+    public List<ForumContent> enrichPosts() {
+        enricher.enrichPosts(posts);
+        return posts;
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 import com.sg.nusiss.forum.annotation.RequireForumAuth;
 import com.sg.nusiss.forum.util.ForumJwtUtil;
+import com.sg.nusiss.forum.util.ForumTokenCache;
 
 /**
  * 论坛认证拦截器
@@ -22,62 +23,55 @@ public class ForumAuthInterceptor implements HandlerInterceptor {
     @Autowired
     private ForumJwtUtil jwtUtil;
 
+    @Autowired
+    private ForumTokenCache tokenCache;
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
                              Object handler) throws Exception {
 
-        logger.info("========== 认证拦截器开始 ==========");
-        logger.info("请求路径: {}", request.getRequestURI());
-        logger.info("请求方法: {}", request.getMethod());
+        logger.debug("认证拦截器 - {} {}", request.getMethod(), request.getRequestURI());
 
-        // 获取 Token
+        // 获取 Token（不记录 Authorization 头和 Token 内容）
         String authHeader = request.getHeader("Authorization");
-        logger.info("Authorization header: {}", authHeader);
 
         String token = null;
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             token = authHeader.substring(7);
-            logger.info("提取的 token (前50字符): {}", token.substring(0, Math.min(50, token.length())));
-        } else {
-            logger.warn("Authorization header 格式不正确或不存在");
         }
 
         if (token == null || token.isEmpty()) {
             token = request.getParameter("token");
-            logger.info("从 URL 参数获取 token: {}", token != null ? "存在" : "不存在");
         }
 
-        // 验证 Token
-        if (token != null) {
+        // 验证 Token（同一 Token 的验签结果缓存到 exp，见 ForumTokenCache）
+        if (token != null && !token.isEmpty()) {
             try {
-                ForumJwtUtil.TokenInfo tokenInfo = jwtUtil.validateAndParseToken(token);
-                logger.info("Token 验证结果 - valid: {}, userId: {}, username: {}",
-                        tokenInfo.valid, tokenInfo.userId, tokenInfo.username);
+                ForumJwtUtil.TokenInfo tokenInfo = tokenCache.verify(token, jwtUtil::validateAndParseToken);
 
                 if (tokenInfo.valid) {
                     request.setAttribute("userId", tokenInfo.userId);
                     request.setAttribute("username", tokenInfo.username);
-                    logger.info("✅ 认证成功 - 用户ID: {}, 用户名: {}", tokenInfo.userId, tokenInfo.username);
+                    logger.debug("认证成功 - 用户ID: {}", tokenInfo.userId);
                     return true;
                 } else {
-                    logger.warn("❌ Token 无效");
+                    logger.debug("Token 无效 - 请求路径: {}", request.getRequestURI());
                 }
             } catch (Exception e) {
-                logger.error("❌ Token 验证异常: {}", e.getMessage(), e);
+                logger.error("Token 验证异常: {}", e.getMessage(), e);
             }
         }
 
         // 检查是否需要认证
         RequireForumAuth requireAuth = ((HandlerMethod) handler).getMethodAnnotation(RequireForumAuth.class);
         if (requireAuth != null && requireAuth.required()) {
-            logger.warn("❌ 需要认证但 Token 无效 - 返回 401");
+            logger.warn("需要认证但 Token 无效或缺失 - 返回 401, 请求路径: {}", request.getRequestURI());
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.setContentType("application/json;charset=UTF-8");
             response.getWriter().write("{\"error\":\"未授权\",\"message\":\"请先登录\"}");
             return false;
         }
 
-        logger.info("========== 认证拦截器结束 ==========");
         return true;
     }
-}
\ No newline at end of file
+}
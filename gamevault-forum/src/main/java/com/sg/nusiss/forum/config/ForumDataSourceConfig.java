@@ -0,0 +1,81 @@
+package com.sg.nusiss.forum.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * 主从数据源配置（配置了 forum.datasource.replica.url 时启用）
+ *
+ * 对外的 dataSource 是 LazyConnectionDataSourceProxy：
+ * - 事务开始时不取连接，第一次执行 SQL 时才根据事务是否只读选择目标
+ * - 只读事务交给 ForumReplicaDataSource（从库，延迟过大或不可用时回退主库）
+ * - 其余全部走主库（spring.datasource）
+ * 未配置从库时不加载本配置，沿用 Spring Boot 默认的单数据源。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "forum.datasource.replica", name = "url")
+public class ForumDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("forum-primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("forum.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            DataSourceProperties properties,
+            @Value("${forum.datasource.replica.url}") String url,
+            @Value("${forum.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${forum.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.getDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("forum-replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ForumReplicaDataSource forumReplicaDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            @Value("${forum.datasource.replica.max-lag-seconds:5}") double maxLagSeconds,
+            MeterRegistry meterRegistry) {
+        return new ForumReplicaDataSource(primaryDataSource, replicaDataSource, maxLagSeconds, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 ForumReplicaDataSource forumReplicaDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(forumReplicaDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public ForumReadRoutingInterceptor forumReadRoutingInterceptor(
+            @Value("${forum.datasource.replica.sticky-seconds:10}") long stickySeconds,
+            @Value("${forum.datasource.replica.sticky-max-entries:50000}") int maxEntries) {
+        return new ForumReadRoutingInterceptor(stickySeconds, maxEntries);
+    }
+}
@@ -0,0 +1,67 @@
+package com.sg.nusiss.forum.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 读自己的写：用户提交写请求后的一段时间内（forum.datasource.replica.sticky-seconds），
+ * 该用户的只读查询也走主库，避免刚发的帖子、刚点的赞因复制延迟看不到
+ *
+ * 需要放在认证拦截器之后（依赖 request 中的 userId）。记录只在本实例内，
+ * 多实例部署时 sticky-seconds 应不小于 max-lag-seconds，由延迟检查兜底。
+ */
+public class ForumReadRoutingInterceptor implements HandlerInterceptor {
+
+    private final long stickyMillis;
+    private final int maxEntries;
+    private final Map<Long, Long> recentWriters = new ConcurrentHashMap<>();
+
+    public ForumReadRoutingInterceptor(long stickySeconds, int maxEntries) {
+        this.stickyMillis = TimeUnit.SECONDS.toMillis(stickySeconds);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Long userId = userId(request);
+        if (userId != null) {
+            Long until = recentWriters.get(userId);
+            if (until != null && until > System.currentTimeMillis()) {
+                ForumReplicaDataSource.setPrimaryOnly(true);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        ForumReplicaDataSource.setPrimaryOnly(false);
+
+        Long userId = userId(request);
+        if (userId != null && isWrite(request.getMethod())) {
+            long now = System.currentTimeMillis();
+            if (recentWriters.size() >= maxEntries) {
+                recentWriters.values().removeIf(until -> until <= now);
+                if (recentWriters.size() >= maxEntries) {
+                    recentWriters.clear();
+                }
+            }
+            recentWriters.put(userId, now + stickyMillis);
+        }
+    }
+
+    private static Long userId(HttpServletRequest request) {
+        Object userId = request.getAttribute("userId");
+        return userId instanceof Long ? (Long) userId : null;
+    }
+
+    private static boolean isWrite(String method) {
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+}
@@ -0,0 +1,128 @@
+package com.sg.nusiss.forum.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 只读事务使用的数据源：从库可用时取从库连接，否则回退到主库
+ *
+ * 由 LazyConnectionDataSourceProxy 作为 readOnlyDataSource 使用，只有 @Transactional(readOnly = true)
+ * 的方法会走到这里；写操作、非只读事务以及加入写事务的只读方法始终使用主库。
+ *
+ * 以下情况回退到主库：
+ * - 复制延迟超过 forum.datasource.replica.max-lag-seconds，或延迟检查失败（由 ScheduledTaskConfig 定时检查）
+ * - 取从库连接失败（直到下一次延迟检查成功）
+ * - 当前线程被标记为只用主库（刚写过数据的用户，见 ForumReadRoutingInterceptor）
+ */
+@Slf4j
+public class ForumReplicaDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    // 主从 WAL 已追平时延迟为 0（主库空闲时 replay 时间戳会一直变旧）；连到的不是从库时也视为 0
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+                    + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final double maxLagSeconds;
+
+    // 第一次延迟检查通过前不使用从库
+    private volatile boolean replicaUsable;
+    private volatile double lagSeconds = -1;
+
+    private final Counter replicaConnections;
+    private final Counter primaryConnections;
+
+    public ForumReplicaDataSource(DataSource primary, DataSource replica, double maxLagSeconds,
+                                  MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagSeconds = maxLagSeconds;
+
+        this.replicaConnections = Counter.builder("forum.datasource.readonly.connections")
+                .description("只读事务取得的连接数")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        this.primaryConnections = Counter.builder("forum.datasource.readonly.connections")
+                .description("只读事务取得的连接数")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        Gauge.builder("forum.datasource.replica.lag.seconds", this, ds -> ds.lagSeconds)
+                .description("从库复制延迟（秒），检查失败时为 -1")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 标记当前线程只用主库（读自己刚写入的数据）
+     */
+    public static void setPrimaryOnly(boolean primaryOnly) {
+        if (primaryOnly) {
+            PRIMARY_ONLY.set(Boolean.TRUE);
+        } else {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (replicaUsable && PRIMARY_ONLY.get() == null) {
+            try {
+                Connection connection = replica.getConnection();
+                replicaConnections.increment();
+                return connection;
+            } catch (SQLException e) {
+                replicaUsable = false;
+                log.warn("获取从库连接失败，只读查询回退到主库: {}", e.getMessage());
+            }
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("只读数据源不支持指定用户名获取连接");
+    }
+
+    /**
+     * 检查从库复制延迟并更新是否可用
+     */
+    public void checkLag() {
+        Double lag = null;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(LAG_SQL)) {
+            if (rs.next() && rs.getObject(1) != null) {
+                lag = rs.getDouble(1);
+            }
+        } catch (SQLException e) {
+            log.warn("从库延迟检查失败: {}", e.getMessage());
+        }
+
+        lagSeconds = lag != null ? lag : -1;
+        boolean usable = lag != null && lag <= maxLagSeconds;
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("从库恢复可用 - 延迟: {}s", lag);
+            } else {
+                log.warn("从库不可用，只读查询回退到主库 - 延迟: {}s, 上限: {}s", lag, maxLagSeconds);
+            }
+        }
+        replicaUsable = usable;
+    }
+}
@@ -0,0 +1,90 @@
+package com.sg.nusiss.forum.config;
+
+import com.sg.nusiss.forum.util.ForumRequestStats;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 论坛接口指标拦截器
+ *
+ * 按 Controller 方法（endpoint = 类名.方法名，uri = 路由模板）记录：
+ * - forum.endpoint.latency：接口耗时（带直方图，可在 Prometheus 中算分位数），
+ *   status 为 HTTP 状态，code 为 BaseResponse 中的业务码（由 ForumResponseCodeAdvice 在写响应体前记下）
+ * - forum.endpoint.db.statements：单个请求执行的 SQL 语句数
+ * - forum.endpoint.remote.calls：单个请求调用 Auth 服务的次数
+ * 语句数或远程调用数随列表大小增长，就是出现了 N+1。
+ * 在 afterCompletion 中记录，此时响应体已写出、未处理的异常也已确定。
+ */
+@Component
+@RequiredArgsConstructor
+public class ForumRequestMetricsInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = ForumRequestMetricsInterceptor.class.getName() + ".start";
+    static final String CODE_ATTRIBUTE = ForumRequestMetricsInterceptor.class.getName() + ".code";
+
+    // 语句数 / 远程调用数的分桶
+    private static final double[] COUNT_BUCKETS = {1, 2, 3, 5, 10, 20, 50, 100};
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            ForumRequestStats.begin();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        ForumRequestStats stats = ForumRequestStats.end();
+        if (!(handler instanceof HandlerMethod handlerMethod) || !(start instanceof Long startNanos)) {
+            return;
+        }
+
+        String endpoint = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // 异常未被处理时容器随后返回 500，此处的状态码还没有更新
+        int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+        Object code = request.getAttribute(CODE_ATTRIBUTE);
+
+        Timer.builder("forum.endpoint.latency")
+                .description("论坛接口耗时")
+                .tag("endpoint", endpoint)
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .tag("method", request.getMethod())
+                .tag("status", String.valueOf(status))
+                .tag("code", code != null ? code.toString() : ex != null ? "exception" : "none")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+
+        if (stats != null) {
+            summary("forum.endpoint.db.statements", "单个请求执行的 SQL 语句数", endpoint)
+                    .record(stats.getStatements());
+            summary("forum.endpoint.remote.calls", "单个请求调用 Auth 服务的次数", endpoint)
+                    .record(stats.getRemoteCalls());
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, String endpoint) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("endpoint", endpoint)
+                .serviceLevelObjectives(COUNT_BUCKETS)
+                .register(meterRegistry);
+    }
+}
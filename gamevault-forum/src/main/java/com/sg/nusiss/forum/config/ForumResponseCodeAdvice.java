@@ -0,0 +1,37 @@
+package com.sg.nusiss.forum.config;
+
+import com.sg.nusiss.common.domain.BaseResponse;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 记下论坛接口返回的业务码
+ *
+ * Controller 出错时大多仍返回 HTTP 200，错误码放在 BaseResponse.code 中；
+ * 写响应体前把它存到请求属性里，由 ForumRequestMetricsInterceptor 作为 code 标签记录。
+ */
+@RestControllerAdvice(basePackages = "com.sg.nusiss.forum.controller")
+public class ForumResponseCodeAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body instanceof BaseResponse<?> baseResponse && request instanceof ServletServerHttpRequest servletRequest) {
+            servletRequest.getServletRequest()
+                    .setAttribute(ForumRequestMetricsInterceptor.CODE_ATTRIBUTE, baseResponse.getCode());
+        }
+        return body;
+    }
+}
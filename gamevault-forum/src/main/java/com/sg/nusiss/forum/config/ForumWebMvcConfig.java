@@ -1,5 +1,6 @@
 package com.sg.nusiss.forum.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -17,8 +18,19 @@ public class ForumWebMvcConfig implements WebMvcConfigurer {
     @Autowired
     private ForumAuthInterceptor authInterceptor;
 
+    @Autowired
+    private ForumRequestMetricsInterceptor metricsInterceptor;
+
+    // 只在配置了从库时存在
+    @Autowired
+    private ObjectProvider<ForumReadRoutingInterceptor> readRoutingInterceptor;
+
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
+        // 指标拦截器放在最前面，认证失败的请求也会被计时
+        registry.addInterceptor(metricsInterceptor)
+                .addPathPatterns("/api/forum/**");
+
         registry.addInterceptor(authInterceptor)
                 .addPathPatterns("/api/forum/**")  // 拦截所有论坛 API
                 .excludePathPatterns(
@@ -26,5 +38,9 @@ public class ForumWebMvcConfig implements WebMvcConfigurer {
                         "/api/test/**",                        // 测试接口
                         "/error"                               // 错误页面
                 );
+
+        // 放在认证之后，需要 request 中的 userId
+        readRoutingInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+                .addPathPatterns("/api/forum/**"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.sg.nusiss.forum.config;
+
+import com.sg.nusiss.forum.util.ForumRequestStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MyBatis 语句指标插件
+ *
+ * 对 repository 包下的 Mapper（ForumContentMapper / ForumMetricMapper / ForumContentLikeMapper）
+ * 每执行一条语句：
+ * - 记录 forum.db.statement 计时（按 mapper、statement 区分，count 即语句执行次数）
+ * - 计入当前请求的语句数（见 ForumRequestStats）
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update",
+                args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "queryCursor",
+                args = {MappedStatement.class, Object.class, RowBounds.class})
+})
+public class MyBatisMetricsInterceptor implements Interceptor {
+
+    private static final String MAPPER_PACKAGE = "com.sg.nusiss.forum.repository.";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public MyBatisMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        String id = statement.getId();
+        if (!id.startsWith(MAPPER_PACKAGE)) {
+            return invocation.proceed();
+        }
+
+        ForumRequestStats.recordStatement();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return invocation.proceed();
+        } finally {
+            sample.stop(timers.computeIfAbsent(id, this::timer));
+        }
+    }
+
+    private Timer timer(String statementId) {
+        // com.sg.nusiss.forum.repository.ForumContentMapper.findActivePosts -> ForumContentMapper / findActivePosts
+        String name = statementId.substring(MAPPER_PACKAGE.length());
+        int dot = name.lastIndexOf('.');
+        return Timer.builder("forum.db.statement")
+                .description("MyBatis 语句执行耗时")
+                .tag("mapper", dot > 0 ? name.substring(0, dot) : name)
+                .tag("statement", dot > 0 ? name.substring(dot + 1) : name)
+                .register(meterRegistry);
+    }
+}
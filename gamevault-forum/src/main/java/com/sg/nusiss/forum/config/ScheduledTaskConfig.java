@@ -1,8 +1,12 @@
 package com.sg.nusiss.forum.config;
 
+import com.sg.nusiss.forum.service.forum.ForumCounterService;
+import com.sg.nusiss.forum.service.forum.HotPostRanking;
+import com.sg.nusiss.forum.service.forum.ViewCountBuffer;
 import com.sg.nusiss.forum.service.forum.ViewTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
@@ -22,10 +26,23 @@ public class ScheduledTaskConfig {
     @Autowired
     private ViewTracker viewTracker;
 
+    @Autowired
+    private ForumCounterService counterService;
+
+    @Autowired
+    private ViewCountBuffer viewCountBuffer;
+
+    @Autowired
+    private HotPostRanking hotPostRanking;
+
+    // 只在配置了从库时存在
+    @Autowired
+    private ObjectProvider<ForumReplicaDataSource> replicaDataSource;
+
     /**
-     * 每10分钟清理一次过期的浏览记录
+     * 每分钟丢弃一次过期的浏览记录时间桶（整桶丢弃，不逐条扫描）
      */
-    @Scheduled(fixedRate = 600000) // 10分钟 = 600,000毫秒
+    @Scheduled(fixedRate = 60000) // 1分钟 = 60,000毫秒
     public void cleanExpiredViewRecords() {
         try {
             int beforeCount = viewTracker.getRecordCount();
@@ -40,4 +57,54 @@ public class ScheduledTaskConfig {
             logger.error("清理过期浏览记录失败", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 定时增量对账点赞数、回复数（默认每5分钟从检查点继续扫一批，启动1分钟后开始）
+     */
+    @Scheduled(fixedDelayString = "${forum.counters.reconcile-interval-ms:300000}",
+            initialDelayString = "${forum.counters.reconcile-initial-delay-ms:60000}")
+    public void reconcileContentCounters() {
+        try {
+            counterService.reconcile();
+        } catch (Exception e) {
+            logger.error("计数表对账失败", e);
+        }
+    }
+
+    /**
+     * 定时把缓冲的浏览量批量写入数据库（默认每5秒）
+     */
+    @Scheduled(fixedDelayString = "${forum.views.flush-interval-ms:5000}")
+    public void flushViewCounts() {
+        try {
+            viewCountBuffer.flush();
+        } catch (Exception e) {
+            logger.error("刷新浏览量失败", e);
+        }
+    }
+
+    /**
+     * 定时从 content_counters 补充热榜候选帖子（默认每10分钟）
+     */
+    @Scheduled(fixedDelayString = "${forum.hot.refresh-interval-ms:600000}",
+            initialDelayString = "${forum.hot.refresh-initial-delay-ms:10000}")
+    public void refreshHotPosts() {
+        try {
+            hotPostRanking.refreshFromDatabase();
+        } catch (Exception e) {
+            logger.error("刷新热榜失败", e);
+        }
+    }
+
+    /**
+     * 定时检查从库复制延迟（默认每5秒），超过上限时只读查询回退到主库
+     */
+    @Scheduled(fixedDelayString = "${forum.datasource.replica.lag-check-interval-ms:5000}")
+    public void checkReplicaLag() {
+        try {
+            replicaDataSource.ifAvailable(ForumReplicaDataSource::checkLag);
+        } catch (Exception e) {
+            logger.error("检查从库延迟失败", e);
+        }
+    }
+}
@@ -11,10 +11,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import com.sg.nusiss.forum.dto.BulkContentResult;
+import com.sg.nusiss.forum.dto.BulkDeleteRequest;
+import com.sg.nusiss.forum.dto.BulkImportRequest;
+import com.sg.nusiss.forum.dto.BulkLikeRequest;
+import com.sg.nusiss.forum.dto.CursorPage;
 import com.sg.nusiss.forum.dto.PostDTO;
 import com.sg.nusiss.forum.dto.PostResponseDTO;
 import com.sg.nusiss.forum.dto.ReplyResponseDTO;
+import com.sg.nusiss.forum.entity.ContentLikeState;
 import com.sg.nusiss.forum.entity.ForumContent;
+import com.sg.nusiss.forum.service.forum.ForumBulkContentService;
 import com.sg.nusiss.forum.service.forum.ForumContentLikeService;
 import com.sg.nusiss.forum.service.forum.ForumPostService;
 import com.sg.nusiss.forum.service.forum.ViewTracker;
@@ -42,6 +49,7 @@ public class ForumPostController {
     private final UserService userService;
     private final ForumContentLikeService contentLikeService;
     private final ViewTracker viewTracker;
+    private final ForumBulkContentService bulkContentService;
     private static final Logger logger = LoggerFactory.getLogger(ForumPostController.class);
     /**
      * 获取帖子列表（分页）
@@ -58,7 +66,7 @@ public class ForumPostController {
             Long currentUserId = getCurrentUserIdOrNull(request);  // ✅ 传入request
 
             List<ForumContent> posts = postService.getPostList(page, size, currentUserId);
-            int totalCount = postService.getPostCount();
+            int totalCount = postService.getCachedPostCount();
 
             List<PostResponseDTO> postDTOs = convertToResponseDTOs(posts);
 
@@ -76,6 +84,73 @@ public class ForumPostController {
         }
     }
 
+    /**
+     * 获取帖子列表（游标分页）
+     * GET /api/forum/posts/cursor?cursor=xxx&size=20&includeTotal=false
+     */
+    @GetMapping("/cursor")
+    public BaseResponse<?> getPostListByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            HttpServletRequest request) {
+
+        log.info("游标获取帖子列表 - cursor: {}, 每页大小: {}", cursor, size);
+
+        try {
+            Long currentUserId = getCurrentUserIdOrNull(request);
+
+            CursorPage<ForumContent> page = postService.getPostListByCursor(cursor, size, currentUserId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("posts", convertToResponseDTOs(page.getItems()));
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+            response.put("pageSize", size);
+            if (includeTotal) {
+                response.put("totalCount", postService.getCachedPostCount());
+            }
+
+            return ResultUtils.success(response);
+
+        } catch (IllegalArgumentException e) {
+            log.warn("参数错误: {}", e.getMessage());
+            return ResultUtils.error(40000, e.getMessage());
+
+        } catch (Exception e) {
+            log.error("获取帖子列表失败", e);
+            return ResultUtils.error(50000, "获取帖子列表失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取热门帖子
+     * GET /api/forum/posts/hot?size=20
+     */
+    @GetMapping("/hot")
+    public BaseResponse<?> getHotPosts(
+            @RequestParam(defaultValue = "20") int size,
+            HttpServletRequest request) {
+
+        log.info("获取热门帖子 - 数量: {}", size);
+
+        try {
+            Long currentUserId = getCurrentUserIdOrNull(request);
+
+            List<ForumContent> posts = postService.getHotPosts(size, currentUserId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("posts", convertToResponseDTOs(posts));
+            response.put("size", posts.size());
+
+            return ResultUtils.success(response);
+
+        } catch (Exception e) {
+            log.error("获取热门帖子失败", e);
+            return ResultUtils.error(50000, "获取热门帖子失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 根据ID获取帖子详情
      */
@@ -105,9 +180,8 @@ public class ForumPostController {
                 log.debug("未登录用户访问 - 不计入浏览量 - 帖子ID: {}", id);
             }
 
-            // 获取作者信息
-            UserDTO author = userService.getUserById(post.getAuthorId());
-            PostResponseDTO dto = PostResponseDTO.fromContentAndUser(post, author);
+            // 作者信息已由 postService.getPostById 填充，不再重复查询
+            PostResponseDTO dto = PostResponseDTO.fromContent(post);
 
             return ResultUtils.success(Map.of("post", dto));
 
@@ -177,6 +251,7 @@ public class ForumPostController {
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor,
             HttpServletRequest request) {  // ✅ 添加参数
 
         log.info("搜索帖子 - 关键词: {}", keyword);
@@ -184,7 +259,7 @@ public class ForumPostController {
         try {
             Long currentUserId = getCurrentUserIdOrNull(request);  // ✅ 传入request
 
-            List<ForumContent> posts = postService.searchPosts(keyword, page, size, currentUserId);
+            List<ForumContent> posts = postService.searchPosts(keyword, cursor, page, size, currentUserId);
             int totalCount = postService.getSearchCount(keyword);
 
             List<PostResponseDTO> postDTOs = convertToResponseDTOs(posts);
@@ -195,9 +270,16 @@ public class ForumPostController {
             response.put("currentPage", page);
             response.put("pageSize", size);
             response.put("totalCount", totalCount);
+            response.put("totalCountApproximate", postService.isSearchCountApproximate(totalCount));
+            response.put("nextCursor", postService.nextSearchCursor(posts, size));
+            response.put("searchMode", postService.getSearchMode());
 
             return ResultUtils.success(response);
 
+        } catch (IllegalArgumentException e) {
+            log.warn("参数错误: {}", e.getMessage());
+            return ResultUtils.error(40000, e.getMessage());
+
         } catch (Exception e) {
             log.error("搜索帖子失败", e);
             return ResultUtils.error(50000, "搜索帖子失败: " + e.getMessage());
@@ -255,10 +337,10 @@ public class ForumPostController {
                 return ResultUtils.error(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
             }
 
-            boolean result = contentLikeService.likeContent(id, userId);
+            ContentLikeState state = contentLikeService.setLike(id, userId, true);
 
-            if (result) {
-                int newCount = contentLikeService.getLikeCount(id);
+            if (state.isChanged()) {
+                int newCount = state.getLikeCount();
                 return ResultUtils.success(Map.of(
                         "message", "点赞成功",
                         "likeCount", newCount
@@ -290,8 +372,9 @@ public class ForumPostController {
             }
 
             // 切换点赞状态
-            boolean liked = contentLikeService.toggleLike(id, userId);
-            int likeCount = contentLikeService.getLikeCount(id);
+            ContentLikeState state = contentLikeService.toggleLike(id, userId);
+            boolean liked = state.isLiked();
+            int likeCount = state.getLikeCount();
 
             log.info("点赞操作成功 - 帖子ID: {}, 用户ID: {}, 状态: {}", id, userId, liked ? "已点赞" : "已取消");
 
@@ -312,6 +395,125 @@ public class ForumPostController {
         }
     }
 
+    /**
+     * 批量设置点赞状态（客户端回放离线操作）
+     * POST /api/forum/posts/likes/bulk
+     * 请求体: {"actions": [{"contentId": 1, "liked": true}, ...]}
+     */
+    @PostMapping("/likes/bulk")
+    @RequireForumAuth
+    public BaseResponse<?> bulkLike(
+            @Valid @RequestBody BulkLikeRequest bulkRequest,
+            HttpServletRequest request) {
+        try {
+            Long userId = (Long) request.getAttribute("userId");
+
+            if (userId == null) {
+                return ResultUtils.error(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
+            }
+
+            List<ContentLikeState> actions = new ArrayList<>(bulkRequest.getActions().size());
+            for (BulkLikeRequest.LikeAction action : bulkRequest.getActions()) {
+                actions.add(new ContentLikeState(action.getContentId(), action.getLiked()));
+            }
+
+            List<ContentLikeState> states = contentLikeService.bulkSetLikes(userId, actions);
+
+            return ResultUtils.success(Map.of(
+                    "results", states,
+                    "skipped", actions.stream()
+                            .map(ContentLikeState::getContentId)
+                            .distinct()
+                            .count() - states.size()
+            ));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("参数错误: {}", e.getMessage());
+            return ResultUtils.error(40000, e.getMessage());
+
+        } catch (Exception e) {
+            log.error("批量点赞失败", e);
+            return ResultUtils.error(50000, "批量点赞失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 批量导入帖子/回复（仅版主）
+     * POST /api/forum/posts/bulk/import
+     * 请求体: {"items": [{"ref": "p1", "type": "post", "title": "...", "body": "...", "authorId": 1},
+     *                    {"type": "reply", "parentRef": "p1", "body": "...", "authorId": 2}, ...]}
+     */
+    @PostMapping("/bulk/import")
+    @RequireForumAuth
+    public BaseResponse<?> bulkImport(
+            @Valid @RequestBody BulkImportRequest importRequest,
+            HttpServletRequest request) {
+        try {
+            Long userId = (Long) request.getAttribute("userId");
+
+            if (userId == null) {
+                return ResultUtils.error(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
+            }
+            if (!bulkContentService.isModerator(userId)) {
+                return ResultUtils.error(40300, "没有权限批量导入内容");
+            }
+
+            List<BulkContentResult> results = bulkContentService.importContents(importRequest.getItems());
+            return ResultUtils.success(bulkResponse(results));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("参数错误: {}", e.getMessage());
+            return ResultUtils.error(40000, e.getMessage());
+
+        } catch (Exception e) {
+            log.error("批量导入失败", e);
+            return ResultUtils.error(50000, "批量导入失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 批量软删除帖子/回复（仅版主）
+     * POST /api/forum/posts/bulk/delete
+     * 请求体: {"contentIds": [1, 2, 3]}
+     */
+    @PostMapping("/bulk/delete")
+    @RequireForumAuth
+    public BaseResponse<?> bulkDelete(
+            @Valid @RequestBody BulkDeleteRequest deleteRequest,
+            HttpServletRequest request) {
+        try {
+            Long userId = (Long) request.getAttribute("userId");
+
+            if (userId == null) {
+                return ResultUtils.error(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
+            }
+            if (!bulkContentService.isModerator(userId)) {
+                return ResultUtils.error(40300, "没有权限批量删除内容");
+            }
+
+            log.info("批量删除内容 - 版主ID: {}, 数量: {}", userId, deleteRequest.getContentIds().size());
+            List<BulkContentResult> results = bulkContentService.deleteContents(deleteRequest.getContentIds());
+            return ResultUtils.success(bulkResponse(results));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("参数错误: {}", e.getMessage());
+            return ResultUtils.error(40000, e.getMessage());
+
+        } catch (Exception e) {
+            log.error("批量删除失败", e);
+            return ResultUtils.error(50000, "批量删除失败: " + e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> bulkResponse(List<BulkContentResult> results) {
+        long succeeded = results.stream().filter(BulkContentResult::isSuccess).count();
+        Map<String, Object> response = new HashMap<>();
+        response.put("results", results);
+        response.put("succeeded", succeeded);
+        response.put("failed", results.size() - succeeded);
+        return response;
+    }
+
     /**
      * 取消点赞帖子
      */
@@ -327,10 +529,10 @@ public class ForumPostController {
                 return ResultUtils.error(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
             }
 
-            boolean result = contentLikeService.unlikeContent(id, userId);
+            ContentLikeState state = contentLikeService.setLike(id, userId, false);
 
-            if (result) {
-                int newCount = contentLikeService.getLikeCount(id);
+            if (state.isChanged()) {
+                int newCount = state.getLikeCount();
                 return ResultUtils.success(Map.of(
                         "message", "取消点赞成功",
                         "likeCount", newCount
@@ -378,6 +580,45 @@ public class ForumPostController {
         }
     }
 
+    /**
+     * 获取用户发布的帖子（游标分页）
+     */
+    @GetMapping("/user/{userId}/cursor")
+    public BaseResponse<?> getUserPostsByCursor(
+            @PathVariable(value = "userId") Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            HttpServletRequest request) {
+
+        log.info("游标获取用户帖子列表 - 用户ID: {}, cursor: {}", userId, cursor);
+
+        try {
+            Long currentUserId = getCurrentUserIdOrNull(request);
+
+            CursorPage<ForumContent> page = postService.getPostsByAuthorIdByCursor(userId, cursor, size, currentUserId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("posts", convertToResponseDTOs(page.getItems()));
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+            response.put("pageSize", size);
+            if (includeTotal) {
+                response.put("totalCount", postService.getCachedPostCountByAuthorId(userId));
+            }
+
+            return ResultUtils.success(response);
+
+        } catch (IllegalArgumentException e) {
+            log.warn("参数错误: {}", e.getMessage());
+            return ResultUtils.error(40000, e.getMessage());
+
+        } catch (Exception e) {
+            log.error("获取用户帖子列表失败", e);
+            return ResultUtils.error(50000, "获取用户帖子列表失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取帖子的回复列表
      */
@@ -393,24 +634,7 @@ public class ForumPostController {
             List<ForumContent> replies = postService.getRepliesByPostId(postId, page, size, currentUserId);
 
             // 转换为 DTO 列表
-            List<ReplyResponseDTO> replyDTOs = new ArrayList<>();
-
-            for (ForumContent reply : replies) {
-                // 获取回复作者信息
-                UserDTO author = userService.getUserById(reply.getAuthorId());
-
-                // 如果是楼中楼回复，获取被回复用户的信息
-                UserDTO replyToUser = null;
-                if (reply.getReplyTo() != null) {
-                    ForumContent targetReply = postService.getContentById(reply.getReplyTo());
-                    if (targetReply != null) {
-                        replyToUser = userService.getUserById(targetReply.getAuthorId());
-                    }
-                }
-
-                ReplyResponseDTO dto = ReplyResponseDTO.fromContentAndUsers(reply, author, replyToUser);
-                replyDTOs.add(dto);
-            }
+            List<ReplyResponseDTO> replyDTOs = convertToReplyDTOs(replies);
 
             int total = postService.getReplyCountByPostId(postId);
 
@@ -428,6 +652,115 @@ public class ForumPostController {
         }
     }
 
+    /**
+     * 获取帖子的回复列表（游标分页）
+     */
+    @GetMapping("/{postId}/replies/cursor")
+    public BaseResponse<?> getRepliesByCursor(
+            @PathVariable(value = "postId") Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            HttpServletRequest request) {
+        try {
+            Long currentUserId = getCurrentUserIdOrNull(request);
+
+            CursorPage<ForumContent> page = postService.getRepliesByCursor(postId, cursor, size, currentUserId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("replies", convertToReplyDTOs(page.getItems()));
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+            response.put("size", size);
+            if (includeTotal) {
+                response.put("total", postService.getCachedReplyCount(postId));
+            }
+
+            return ResultUtils.success(response);
+
+        } catch (IllegalArgumentException e) {
+            log.warn("参数错误: {}", e.getMessage());
+            return ResultUtils.error(40000, e.getMessage());
+
+        } catch (Exception e) {
+            log.error("获取回复列表失败", e);
+            return ResultUtils.error(50000, "获取回复列表失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取帖子的回复树（楼中楼已嵌套）
+     * 每页 size 个根回复，每个根回复附带前 children 条子孙回复
+     * GET /api/forum/posts/{postId}/replies/tree
+     */
+    @GetMapping("/{postId}/replies/tree")
+    public BaseResponse<?> getReplyTree(
+            @PathVariable(value = "postId") Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "3") int children,
+            HttpServletRequest request) {
+        try {
+            Long currentUserId = getCurrentUserIdOrNull(request);
+
+            CursorPage<ForumContent> page = postService.getReplyTree(postId, cursor, size, children, currentUserId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("replies", ReplyResponseDTO.toTree(page.getItems()));
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+            response.put("size", size);
+
+            return ResultUtils.success(response);
+
+        } catch (IllegalArgumentException e) {
+            log.warn("参数错误: {}", e.getMessage());
+            return ResultUtils.error(40000, e.getMessage());
+
+        } catch (Exception e) {
+            log.error("获取回复树失败", e);
+            return ResultUtils.error(50000, "获取回复树失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 获取某条回复的完整子树（含该回复本身）
+     * GET /api/forum/posts/{postId}/replies/{replyId}/tree
+     */
+    @GetMapping("/{postId}/replies/{replyId}/tree")
+    public BaseResponse<?> getReplySubtree(
+            @PathVariable(value = "postId") Long postId,
+            @PathVariable(value = "replyId") Long replyId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            HttpServletRequest request) {
+        try {
+            Long currentUserId = getCurrentUserIdOrNull(request);
+
+            CursorPage<ForumContent> page = postService.getReplySubtree(postId, replyId, cursor, size, currentUserId);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("replies", ReplyResponseDTO.toTree(page.getItems()));
+            response.put("nextCursor", page.getNextCursor());
+            response.put("hasMore", page.isHasMore());
+            response.put("size", size);
+
+            return ResultUtils.success(response);
+
+        } catch (IllegalArgumentException e) {
+            log.warn("参数错误: {}", e.getMessage());
+            return ResultUtils.error(40000, e.getMessage());
+
+        } catch (RuntimeException e) {
+            log.warn("回复不存在: {}", e.getMessage());
+            return ResultUtils.error(40400, e.getMessage());
+
+        } catch (Exception e) {
+            log.error("获取回复子树失败", e);
+            return ResultUtils.error(50000, "获取回复子树失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 创建回复
      * POST /api/forum/posts/{postId}/replies
@@ -462,8 +795,12 @@ public class ForumPostController {
             // 创建回复
             ForumContent reply = postService.createReply(postId, body, userId, replyTo);
 
-            // 获取作者信息
+            // 获取作者信息（走用户缓存）
             UserDTO author = userService.getUserById(userId);
+            if (author != null) {
+                reply.setAuthorName(author.getUsername());
+                reply.setAuthorAvatar(author.getAvatarUrl());
+            }
 
             Map<String, Object> response = new HashMap<>();
             response.put("reply", reply);
@@ -536,10 +873,10 @@ public class ForumPostController {
                 return ResultUtils.error(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
             }
 
-            boolean result = contentLikeService.likeContent(replyId, userId);
+            ContentLikeState state = contentLikeService.setLike(replyId, userId, true);
 
-            if (result) {
-                int newCount = contentLikeService.getLikeCount(replyId);
+            if (state.isChanged()) {
+                int newCount = state.getLikeCount();
                 return ResultUtils.success(Map.of(
                         "message", "点赞成功",
                         "likeCount", newCount
@@ -569,10 +906,10 @@ public class ForumPostController {
                 return ResultUtils.error(ErrorCode.NOT_LOGIN_ERROR, "请先登录");
             }
 
-            boolean result = contentLikeService.unlikeContent(replyId, userId);
+            ContentLikeState state = contentLikeService.setLike(replyId, userId, false);
 
-            if (result) {
-                int newCount = contentLikeService.getLikeCount(replyId);
+            if (state.isChanged()) {
+                int newCount = state.getLikeCount();
                 return ResultUtils.success(Map.of(
                         "message", "取消点赞成功",
                         "likeCount", newCount
@@ -604,11 +941,23 @@ public class ForumPostController {
      */
     private List<PostResponseDTO> convertToResponseDTOs(List<ForumContent> posts) {
         List<PostResponseDTO> postDTOs = new ArrayList<>();
+        // 作者信息已由 ForumPostService 批量填充
         for (ForumContent post : posts) {
-            UserDTO author = userService.getUserById(post.getAuthorId());
-            PostResponseDTO dto = PostResponseDTO.fromContentAndUser(post, author);
-            postDTOs.add(dto);
+            postDTOs.add(PostResponseDTO.fromContent(post));
         }
         return postDTOs;
     }
-}
\ No newline at end of file
+
+    /**
+     * 转换为回复响应 DTO 列表
+     */
+    private List<ReplyResponseDTO> convertToReplyDTOs(List<ForumContent> replies) {
+        List<ReplyResponseDTO> replyDTOs = new ArrayList<>();
+
+        // 作者、被回复用户、点赞状态已由 ForumPostService 批量填充
+        for (ForumContent reply : replies) {
+            replyDTOs.add(ReplyResponseDTO.fromContent(reply));
+        }
+        return replyDTOs;
+    }
+}
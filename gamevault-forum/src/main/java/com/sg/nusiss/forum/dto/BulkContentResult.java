@@ -0,0 +1,37 @@
+package com.sg.nusiss.forum.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * 批量导入/删除的逐条结果（与请求中的条目一一对应）
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkContentResult {
+
+    private int index;          // 请求中的下标
+    private String ref;         // 请求中的 ref（导入时）
+    private Long contentId;
+    private boolean success;
+    private String error;
+
+    public static BulkContentResult success(int index, String ref, Long contentId) {
+        BulkContentResult result = new BulkContentResult();
+        result.index = index;
+        result.ref = ref;
+        result.contentId = contentId;
+        result.success = true;
+        return result;
+    }
+
+    public static BulkContentResult failure(int index, String ref, Long contentId, String error) {
+        BulkContentResult result = new BulkContentResult();
+        result.index = index;
+        result.ref = ref;
+        result.contentId = contentId;
+        result.success = false;
+        result.error = error;
+        return result;
+    }
+}
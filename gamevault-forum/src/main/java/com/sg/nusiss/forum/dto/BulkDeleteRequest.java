@@ -0,0 +1,18 @@
+package com.sg.nusiss.forum.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量软删除内容请求（版主使用，帖子和回复都可以）
+ */
+@Data
+public class BulkDeleteRequest {
+
+    @NotEmpty(message = "内容ID列表不能为空")
+    @Size(max = 5000, message = "单次最多删除5000条内容")
+    private List<Long> contentIds;
+}
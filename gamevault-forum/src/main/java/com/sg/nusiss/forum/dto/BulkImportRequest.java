@@ -0,0 +1,39 @@
+package com.sg.nusiss.forum.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量导入帖子/回复请求（版主与数据迁移工具使用）
+ *
+ * 回复的父帖子和被回复内容既可以用已有的 ID（parentId / replyTo），
+ * 也可以引用同一批中排在前面的条目（parentRef / replyToRef 对应该条目的 ref）
+ */
+@Data
+public class BulkImportRequest {
+
+    @NotEmpty(message = "导入列表不能为空")
+    @Size(max = 5000, message = "单次最多导入5000条内容")
+    @Valid
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+
+        private String ref;                  // 调用方自定义的条目标识（可选，用于批内引用和结果对照）
+        private String type;                 // post / reply
+        private String title;                // 帖子标题（回复不需要）
+        private String body;
+        private Long authorId;
+        private LocalDateTime createdDate;   // 原始发布时间（可选，默认当前时间）
+        private Long parentId;
+        private String parentRef;
+        private Long replyTo;
+        private String replyToRef;
+    }
+}
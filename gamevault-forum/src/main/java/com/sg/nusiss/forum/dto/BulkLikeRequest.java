@@ -0,0 +1,32 @@
+package com.sg.nusiss.forum.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量点赞请求
+ * 客户端离线期间的点赞操作按发生顺序回放，每项给出期望的最终状态（幂等，可重复提交）
+ */
+@Data
+public class BulkLikeRequest {
+
+    @NotEmpty(message = "操作列表不能为空")
+    @Size(max = 100, message = "单次最多提交100个点赞操作")
+    @Valid
+    private List<LikeAction> actions;
+
+    @Data
+    public static class LikeAction {
+
+        @NotNull(message = "内容ID不能为空")
+        private Long contentId;
+
+        @NotNull(message = "点赞状态不能为空")
+        private Boolean liked;
+    }
+}
@@ -0,0 +1,18 @@
+package com.sg.nusiss.forum.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;   // 下一页游标，没有更多数据时为 null
+    private boolean hasMore;
+}
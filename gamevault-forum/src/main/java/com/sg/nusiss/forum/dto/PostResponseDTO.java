@@ -1,5 +1,6 @@
 package com.sg.nusiss.forum.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.sg.nusiss.forum.entity.ForumContent;
 import com.sg.nusiss.common.dto.UserDTO;
 import lombok.Data;
@@ -15,8 +16,13 @@ public class PostResponseDTO {
 
     private Long contentId;
     private String title;
+    // 列表接口只返回 snippet，正文只在帖子详情中返回
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String body;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String bodyPlain;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String snippet;
     private Long authorId;
     private String authorName;
     private String authorAvatar;
@@ -30,7 +36,7 @@ public class PostResponseDTO {
     public PostResponseDTO() {}
 
     /**
-     * 从 Content 实体创建 DTO（不包含用户信息）
+     * 从 Content 实体创建 DTO（作者信息取实体上已填充的 authorName/authorAvatar）
      */
     public static PostResponseDTO fromContent(ForumContent content) {
         PostResponseDTO dto = new PostResponseDTO();
@@ -38,7 +44,10 @@ public class PostResponseDTO {
         dto.title = content.getTitle();
         dto.body = content.getBody();
         dto.bodyPlain = content.getBodyPlain();
+        dto.snippet = content.getSnippet();
         dto.authorId = content.getAuthorId();
+        dto.authorName = content.getAuthorName();
+        dto.authorAvatar = content.getAuthorAvatar();
         dto.createdDate = content.getCreatedDate();
         dto.updatedDate = content.getUpdatedDate();
         // 统计数据
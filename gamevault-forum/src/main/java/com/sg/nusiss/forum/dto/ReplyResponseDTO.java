@@ -1,10 +1,16 @@
 package com.sg.nusiss.forum.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.sg.nusiss.forum.entity.ForumContent;
 import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.forum.util.ReplyPath;
 import lombok.Data;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 回复响应数据传输对象
@@ -27,10 +33,24 @@ public class ReplyResponseDTO {
     private LocalDateTime createdDate;
     private LocalDateTime updatedDate;
 
+    // 以下字段只在回复树接口中返回
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer depth;                    // 树中层级，根回复为 0
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long treeParentId;                // 树中父回复ID（根回复为 null；分页时用于把后续页挂到已加载的节点下）
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean hasMoreChildren;          // 是否还有未返回的子回复
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean deleted;                  // 已删除的回复（仅作为占位节点保留子回复，正文为空）
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ReplyResponseDTO> children;
+
+    private static final String DELETED = "deleted";
+
     public ReplyResponseDTO() {}
 
     /**
-     * 从 ForumContent 实体创建 DTO（不包含用户信息）
+     * 从 ForumContent 实体创建 DTO（作者、被回复用户取实体上已填充的字段）
      */
     public static ReplyResponseDTO fromContent(ForumContent content) {
         ReplyResponseDTO dto = new ReplyResponseDTO();
@@ -40,6 +60,9 @@ public class ReplyResponseDTO {
         dto.body = content.getBody();
         dto.bodyPlain = content.getBodyPlain();
         dto.authorId = content.getAuthorId();
+        dto.authorName = content.getAuthorName();
+        dto.authorAvatar = content.getAuthorAvatar();
+        dto.replyToName = content.getReplyTo() != null ? content.getReplyToAuthorName() : null;
         dto.createdDate = content.getCreatedDate();
         dto.updatedDate = content.getUpdatedDate();
         dto.likeCount = content.getLikeCount() != null ? content.getLikeCount() : 0;
@@ -47,6 +70,46 @@ public class ReplyResponseDTO {
         return dto;
     }
 
+    /**
+     * 把按 reply_path 排好序的回复嵌套成树
+     * 父回复不在结果中时（已删除或在上一页）挂到最近的祖先下，没有祖先时作为顶层节点；
+     * 已删除的根回复作为占位节点返回（deleted = true，正文置空）
+     */
+    public static List<ReplyResponseDTO> toTree(List<ForumContent> replies) {
+        List<ReplyResponseDTO> roots = new ArrayList<>();
+        Map<String, ReplyResponseDTO> byPath = new HashMap<>();
+        for (ForumContent content : replies) {
+            ReplyResponseDTO dto = fromContent(content);
+            String path = content.getReplyPath();
+            dto.depth = content.getReplyDepth();
+            dto.hasMoreChildren = content.getHasMoreChildren();
+            dto.children = new ArrayList<>();
+            if (DELETED.equals(content.getStatus())) {
+                dto.deleted = true;
+                dto.body = "";
+                dto.bodyPlain = "";
+            }
+            if (path == null) {
+                roots.add(dto);
+                continue;
+            }
+            dto.treeParentId = ReplyPath.parentId(path);
+
+            ReplyResponseDTO parent = null;
+            for (String ancestor = ReplyPath.parent(path); ancestor != null && parent == null;
+                 ancestor = ReplyPath.parent(ancestor)) {
+                parent = byPath.get(ancestor);
+            }
+            if (parent != null) {
+                parent.children.add(dto);
+            } else {
+                roots.add(dto);
+            }
+            byPath.put(path, dto);
+        }
+        return roots;
+    }
+
     /**
      * 从 ForumContent 和 UserDTO 创建完整的 DTO
      * @param content 回复内容
@@ -0,0 +1,72 @@
+package com.sg.nusiss.forum.entity;
+
+/**
+ * 点赞状态
+ * 点赞写入语句的返回结果（写入后的状态与计数），批量点赞时也用作请求项
+ */
+
+public class ContentLikeState {
+    private Long contentId;
+    private Boolean liked;       // 写入后是否处于点赞状态（批量请求时为期望状态）
+    private Integer likeCount;   // 写入后的点赞数
+    private Boolean changed;     // 本次是否实际改变了点赞关系
+
+    // 默认构造函数
+    public ContentLikeState() {}
+
+    // 批量请求项构造函数
+    public ContentLikeState(Long contentId, Boolean liked) {
+        this.contentId = contentId;
+        this.liked = liked;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    public void setContentId(Long contentId) {
+        this.contentId = contentId;
+    }
+
+    public Boolean getLiked() {
+        return liked;
+    }
+
+    public void setLiked(Boolean liked) {
+        this.liked = liked;
+    }
+
+    public Integer getLikeCount() {
+        return likeCount;
+    }
+
+    public void setLikeCount(Integer likeCount) {
+        this.likeCount = likeCount;
+    }
+
+    public Boolean getChanged() {
+        return changed;
+    }
+
+    public void setChanged(Boolean changed) {
+        this.changed = changed;
+    }
+
+    public boolean isLiked() {
+        return Boolean.TRUE.equals(liked);
+    }
+
+    public boolean isChanged() {
+        return Boolean.TRUE.equals(changed);
+    }
+
+    @Override
+    public String toString() {
+        return "ContentLikeState{" +
+                "contentId=" + contentId +
+                ", liked=" + liked +
+                ", likeCount=" + likeCount +
+                ", changed=" + changed +
+                '}';
+    }
+}
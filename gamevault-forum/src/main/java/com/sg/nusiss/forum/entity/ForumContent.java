@@ -14,6 +14,7 @@ public class ForumContent {
     private String title;
     private String body;         // 原始内容（HTML/Markdown）
     private String bodyPlain;    // 纯文本内容（用于搜索）
+    private String snippet;      // 列表摘要（数据库生成列，列表查询不再取 body/bodyPlain）
     private Long authorId;
     private Long parentId;// 父内容ID，支持层级结构
     private Long replyTo;
@@ -26,6 +27,12 @@ public class ForumContent {
     private Boolean isLikedByCurrentUser;
     private String authorName;      // 作者用户名 (非数据库字段)
     private String authorAvatar;
+    private Float searchRank;       // 全文检索相关度 (非数据库字段)
+    private Long replyToAuthorId;   // 被回复内容的作者ID (回复列表查询时 JOIN 得到)
+    private String replyToAuthorName; // 被回复用户名 (非数据库字段)
+    private String replyPath;       // 回复树物化路径（见 ReplyPath）
+    private Integer replyDepth;     // 回复树层级，根回复为 0
+    private Boolean hasMoreChildren; // 回复树预览中是否还有未返回的子回复 (非数据库字段)
     // 默认构造函数
     public ForumContent() {}
 
@@ -87,6 +94,62 @@ public class ForumContent {
         this.authorAvatar = authorAvatar;
     }
 
+    public Float getSearchRank() {
+        return searchRank;
+    }
+
+    public void setSearchRank(Float searchRank) {
+        this.searchRank = searchRank;
+    }
+
+    public Long getReplyToAuthorId() {
+        return replyToAuthorId;
+    }
+
+    public void setReplyToAuthorId(Long replyToAuthorId) {
+        this.replyToAuthorId = replyToAuthorId;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+
+    public String getReplyToAuthorName() {
+        return replyToAuthorName;
+    }
+
+    public void setReplyToAuthorName(String replyToAuthorName) {
+        this.replyToAuthorName = replyToAuthorName;
+    }
+
+    public String getReplyPath() {
+        return replyPath;
+    }
+
+    public void setReplyPath(String replyPath) {
+        this.replyPath = replyPath;
+    }
+
+    public Integer getReplyDepth() {
+        return replyDepth;
+    }
+
+    public void setReplyDepth(Integer replyDepth) {
+        this.replyDepth = replyDepth;
+    }
+
+    public Boolean getHasMoreChildren() {
+        return hasMoreChildren;
+    }
+
+    public void setHasMoreChildren(Boolean hasMoreChildren) {
+        this.hasMoreChildren = hasMoreChildren;
+    }
+
     public Long getContentId() {
         return contentId;
     }
@@ -234,6 +297,38 @@ public class ForumContent {
         this.updatedDate = LocalDateTime.now();
     }
 
+    /**
+     * 浅拷贝（用于共享缓存中的实体，调用方可以安全地修改副本上的非数据库字段）
+     */
+    public ForumContent copy() {
+        ForumContent copy = new ForumContent();
+        copy.contentId = contentId;
+        copy.contentType = contentType;
+        copy.title = title;
+        copy.body = body;
+        copy.bodyPlain = bodyPlain;
+        copy.snippet = snippet;
+        copy.authorId = authorId;
+        copy.parentId = parentId;
+        copy.replyTo = replyTo;
+        copy.status = status;
+        copy.createdDate = createdDate;
+        copy.updatedDate = updatedDate;
+        copy.likeCount = likeCount;
+        copy.viewCount = viewCount;
+        copy.replyCount = replyCount;
+        copy.isLikedByCurrentUser = isLikedByCurrentUser;
+        copy.authorName = authorName;
+        copy.authorAvatar = authorAvatar;
+        copy.searchRank = searchRank;
+        copy.replyToAuthorId = replyToAuthorId;
+        copy.replyToAuthorName = replyToAuthorName;
+        copy.replyPath = replyPath;
+        copy.replyDepth = replyDepth;
+        copy.hasMoreChildren = hasMoreChildren;
+        return copy;
+    }
+
     // 简单的纯文本提取方法
     private String extractPlainText(String htmlContent) {
         if (htmlContent == null) return "";
@@ -2,6 +2,7 @@ package com.sg.nusiss.forum.repository;
 
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import com.sg.nusiss.forum.entity.ContentLikeState;
 import com.sg.nusiss.forum.entity.UserContentRelation;
 
 import java.util.List;
@@ -28,6 +29,27 @@ public interface ForumContentLikeMapper {
             @Param("relationTypeId") Integer relationTypeId
     );
 
+    /**
+     * 切换点赞状态（单条语句：删除或插入关系 + 同步 content_metrics / content_counters）
+     * @return 切换后的状态与点赞数；内容不存在或已删除时返回 null
+     */
+    ContentLikeState toggleLike(
+            @Param("userId") Long userId,
+            @Param("contentId") Long contentId,
+            @Param("relationTypeId") Integer relationTypeId
+    );
+
+    /**
+     * 批量设置点赞状态（单条语句，幂等；不存在或已删除的内容不返回）
+     * @param actions 每项的 contentId 与期望的 liked 状态，contentId 不能重复
+     * @return 每个内容写入后的状态与点赞数
+     */
+    List<ContentLikeState> setLikes(
+            @Param("userId") Long userId,
+            @Param("relationTypeId") Integer relationTypeId,
+            @Param("actions") List<ContentLikeState> actions
+    );
+
     /**
      * 查找点赞关系
      */
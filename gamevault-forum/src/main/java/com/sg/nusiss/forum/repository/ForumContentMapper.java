@@ -4,6 +4,8 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import com.sg.nusiss.forum.entity.ForumContent;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -20,6 +22,40 @@ public interface ForumContentMapper {
      */
     ForumContent findById(@Param("contentId") Long contentId);
 
+    /**
+     * 创建回复前的校验查询：一次取回帖子和被回复内容（只含类型、作者、父ID，不含正文和计数）
+     * @param replyTo 可为 null
+     */
+    List<ForumContent> findReplyTargets(@Param("parentId") Long parentId,
+                                        @Param("replyTo") Long replyTo);
+
+    /**
+     * 插入回复并由数据库计算回复树路径和层级
+     * @param maxDepth 最大层级，超过时挂在该层级的祖先下
+     * @return 新回复的 content_id / reply_path / reply_depth / created_date
+     */
+    ForumContent insertReply(@Param("reply") ForumContent reply,
+                             @Param("maxDepth") int maxDepth);
+
+    /**
+     * 回复树：按页取根回复，每个根回复附带按路径顺序的前 childLimit 条子孙回复
+     * 结果按 reply_path 排序（深度优先）
+     * @param afterPath 上一页最后一个根回复的路径，第一页为 null
+     */
+    List<ForumContent> findReplyTreePage(@Param("parentId") Long parentId,
+                                         @Param("afterPath") String afterPath,
+                                         @Param("limit") int limit,
+                                         @Param("childLimit") int childLimit);
+
+    /**
+     * 回复树：某条回复的整棵子树（含自身），按 reply_path 排序，一次索引区间扫描
+     * @param afterPath 上一页最后一条回复的路径，第一页为 null
+     */
+    List<ForumContent> findReplySubtree(@Param("parentId") Long parentId,
+                                        @Param("rootId") Long rootId,
+                                        @Param("afterPath") String afterPath,
+                                        @Param("limit") int limit);
+
     /**
      * 插入新内容
      */
@@ -44,6 +80,16 @@ public interface ForumContentMapper {
      */
     List<ForumContent> findActivePosts(@Param("offset") int offset, @Param("limit") int limit);
 
+    /**
+     * 按ID批量查询活跃帖子（结果顺序不保证）
+     */
+    List<ForumContent> findActivePostsByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 查询某时间之后发布的活跃帖子（只含ID、发布时间和计数，用于热榜打分）
+     */
+    List<ForumContent> findHotCandidates(@Param("since") LocalDateTime since, @Param("limit") int limit);
+
     /**
      * 统计活跃帖子总数
      */
@@ -69,6 +115,25 @@ public interface ForumContentMapper {
      */
     int countSearchPosts(@Param("keyword") String keyword);
 
+    /**
+     * 全文检索帖子（search_vector @@ tsquery，按相关度排序）
+     * @param keyword 搜索关键词（websearch 语法）
+     * @param afterRank 上一页最后一条的相关度，为 null 时按 offset 分页
+     * @param afterId 上一页最后一条的内容ID
+     * @param offset 偏移量（仅在没有游标时使用）
+     * @param limit 限制数量
+     */
+    List<ForumContent> fullTextSearchPosts(@Param("keyword") String keyword,
+                                           @Param("afterRank") Float afterRank,
+                                           @Param("afterId") Long afterId,
+                                           @Param("offset") int offset,
+                                           @Param("limit") int limit);
+
+    /**
+     * 统计全文检索结果数量，最多数到 cap
+     */
+    int countFullTextSearchPosts(@Param("keyword") String keyword, @Param("cap") int cap);
+
     // ==================== 层级结构查询 ====================
 
     /**
@@ -132,4 +197,97 @@ public interface ForumContentMapper {
      * 统计用户的活跃帖子数（未删除）
      */
     int countActiveByAuthorId(@Param("authorId") Long authorId);
-}
\ No newline at end of file
+
+    // ==================== 游标（keyset）分页 ====================
+
+    /**
+     * 查询活跃帖子，(created_date, content_id) 倒序
+     * @param afterDate 上一页最后一条的创建时间，为 null 时从第一条开始
+     * @param afterId 上一页最后一条的内容ID
+     */
+    List<ForumContent> findActivePostsAfter(@Param("afterDate") LocalDateTime afterDate,
+                                            @Param("afterId") Long afterId,
+                                            @Param("limit") int limit);
+
+    /**
+     * 查询用户的活跃帖子，(created_date, content_id) 倒序
+     */
+    List<ForumContent> selectActiveByAuthorIdAfter(@Param("authorId") Long authorId,
+                                                   @Param("afterDate") LocalDateTime afterDate,
+                                                   @Param("afterId") Long afterId,
+                                                   @Param("limit") int limit);
+
+    /**
+     * 查询回复，(created_date, content_id) 正序
+     */
+    List<ForumContent> findChildrenAfter(@Param("parentId") Long parentId,
+                                         @Param("afterDate") LocalDateTime afterDate,
+                                         @Param("afterId") Long afterId,
+                                         @Param("limit") int limit);
+
+    // ==================== 批量导入 / 删除 ====================
+
+    /**
+     * 预分配 count 个 content_id（升序）
+     */
+    List<Long> allocateContentIds(@Param("count") int count);
+
+    /**
+     * 批量插入（UNNEST 数组，一条语句，参数个数与行数无关）
+     * content_id 须预先分配；status 为 active，updated_date 与 created_date 相同
+     */
+    int batchInsertArrays(@Param("ids") Long[] ids,
+                          @Param("types") String[] types,
+                          @Param("titles") String[] titles,
+                          @Param("bodies") String[] bodies,
+                          @Param("bodyPlains") String[] bodyPlains,
+                          @Param("authorIds") Long[] authorIds,
+                          @Param("parentIds") Long[] parentIds,
+                          @Param("replyTos") Long[] replyTos,
+                          @Param("createdDates") Timestamp[] createdDates);
+
+    /**
+     * 批量插入已分配 content_id 的内容
+     */
+    default int batchInsert(List<ForumContent> contents) {
+        int n = contents.size();
+        Long[] ids = new Long[n];
+        String[] types = new String[n];
+        String[] titles = new String[n];
+        String[] bodies = new String[n];
+        String[] bodyPlains = new String[n];
+        Long[] authorIds = new Long[n];
+        Long[] parentIds = new Long[n];
+        Long[] replyTos = new Long[n];
+        Timestamp[] createdDates = new Timestamp[n];
+        for (int i = 0; i < n; i++) {
+            ForumContent content = contents.get(i);
+            ids[i] = content.getContentId();
+            types[i] = content.getContentType();
+            titles[i] = content.getTitle();
+            bodies[i] = content.getBody();
+            bodyPlains[i] = content.getBodyPlain();
+            authorIds[i] = content.getAuthorId();
+            parentIds[i] = content.getParentId();
+            replyTos[i] = content.getReplyTo();
+            createdDates[i] = Timestamp.valueOf(content.getCreatedDate());
+        }
+        return batchInsertArrays(ids, types, titles, bodies, bodyPlains, authorIds, parentIds, replyTos, createdDates);
+    }
+
+    /**
+     * 为批量插入的回复计算 reply_path / reply_depth（被回复内容也可以在同一批中）
+     */
+    int fillReplyPaths(@Param("ids") Long[] ids, @Param("maxDepth") int maxDepth);
+
+    /**
+     * 批量查询活跃内容的类型、作者、父ID和回复树路径（不含正文和计数）
+     */
+    List<ForumContent> findContentHeaders(@Param("ids") Long[] ids);
+
+    /**
+     * 批量软删除活跃内容
+     * @return 实际被删除的内容（content_id / content_type / author_id / parent_id）
+     */
+    List<ForumContent> softDeleteBatch(@Param("ids") Long[] ids);
+}
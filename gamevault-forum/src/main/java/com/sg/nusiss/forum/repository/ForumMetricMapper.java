@@ -23,6 +23,7 @@ public interface ForumMetricMapper {
 
     /**
      * 增加统计值
+     * view_count / like_count / reply_count 会在同一条语句中同步到 content_counters
      * @param contentId 内容ID
      * @param metricName 统计类型名称（view_count, like_count等）
      * @param increment 增加数量
@@ -32,12 +33,20 @@ public interface ForumMetricMapper {
                         @Param("increment") int increment);
 
     /**
-     * 设置统计值
+     * 设置统计值（同步 content_counters）
      */
     int setMetricValue(@Param("contentId") Long contentId,
                        @Param("metricName") String metricName,
                        @Param("value") int value);
 
+    /**
+     * 批量增加统计值（用于浏览量等写缓冲的定时刷新）
+     * @param metricName 统计类型名称（view_count / like_count / reply_count）
+     * @param deltas 每个内容的增量，contentId + metricValue(增量)
+     */
+    int batchIncrementMetric(@Param("metricName") String metricName,
+                             @Param("deltas") List<ContentMetric> deltas);
+
     // ==================== 查询操作 ====================
 
     /**
@@ -52,6 +61,11 @@ public interface ForumMetricMapper {
      */
     Map<String, Integer> getContentMetrics(@Param("contentId") Long contentId);
 
+    /**
+     * 批量获取点赞数（metricValue 为 like_count）
+     */
+    List<ContentMetric> findLikeCounts(@Param("contentIds") List<Long> contentIds);
+
     /**
      * 批量获取多个内容的统计数据
      * @param contentIds 内容ID列表
@@ -66,4 +80,56 @@ public interface ForumMetricMapper {
      */
     List<Long> findTopContentsByMetric(@Param("metricName") String metricName,
                                        @Param("limit") int limit);
-}
\ No newline at end of file
+
+    /**
+     * 批量初始化统计（帖子 view/like/reply，回复 like），同时写入 content_counters；已存在的行不变
+     */
+    int initBatchMetrics(@Param("contentIds") Long[] contentIds);
+
+    /**
+     * 按 contents 中的活跃回复数重置帖子的 reply_count（批量导入/删除后调用）
+     */
+    int syncReplyCounts(@Param("postIds") Long[] postIds);
+
+    // ==================== 计数表对账 ====================
+
+    /**
+     * 按 user_content_relations 和活跃回复重算点赞数、回复数，只改写有偏差的行
+     * 指定 contentIds 时只对账这些内容，否则对账 (fromId, toId] 区间
+     * @param settleSeconds 最近多少秒内写过的计数行跳过
+     * @return 被修正的内容数
+     */
+    int reconcileCounters(@Param("fromId") Long fromId,
+                          @Param("toId") Long toId,
+                          @Param("contentIds") Long[] contentIds,
+                          @Param("settleSeconds") int settleSeconds);
+
+    /**
+     * 对账 (fromId, toId] 区间的内容
+     */
+    default int reconcileCounterRange(long fromId, long toId, int settleSeconds) {
+        return reconcileCounters(fromId, toId, null, settleSeconds);
+    }
+
+    /**
+     * 立即对账指定内容（不跳过最近写过的行）
+     */
+    default int reconcileCounterIds(Long[] contentIds) {
+        return reconcileCounters(null, null, contentIds, 0);
+    }
+
+    /**
+     * 从 afterId 之后取 limit 个内容，返回其中最大的 content_id，没有更多内容时返回 null
+     */
+    Long findContentRangeEnd(@Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 读取后台任务检查点
+     */
+    Long findCheckpoint(@Param("jobName") String jobName);
+
+    /**
+     * 保存后台任务检查点
+     */
+    int saveCheckpoint(@Param("jobName") String jobName, @Param("lastId") long lastId);
+}
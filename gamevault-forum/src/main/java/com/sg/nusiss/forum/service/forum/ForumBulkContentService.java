@@ -0,0 +1,318 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.dto.BulkContentResult;
+import com.sg.nusiss.forum.dto.BulkImportRequest;
+import com.sg.nusiss.forum.entity.ForumContent;
+import com.sg.nusiss.forum.repository.ForumContentMapper;
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 批量导入与批量删除（版主、数据迁移工具使用）
+ *
+ * 逐条校验后把通过的条目一次写入：
+ * - 预分配 content_id（一条语句），批内引用（parentRef / replyToRef）在 Java 中解析
+ * - UNNEST 数组批量插入（一条语句）
+ * - 回复树路径、统计初始化、帖子回复数各一条语句
+ * 校验失败的条目在结果中返回原因，不影响其他条目；数据库错误时整批回滚
+ */
+@Slf4j
+@Service
+public class ForumBulkContentService {
+
+    private final ForumContentMapper contentMapper;
+    private final ForumMetricMapper metricMapper;
+    private final ForumCountCache countCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Set<Long> moderatorIds;
+    private final int replyTreeMaxDepth;
+
+    public ForumBulkContentService(
+            ForumContentMapper contentMapper,
+            ForumMetricMapper metricMapper,
+            ForumCountCache countCache,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${forum.moderation.moderator-ids:}") List<Long> moderatorIds,
+            @Value("${forum.reply-tree.max-depth:8}") int replyTreeMaxDepth) {
+        this.contentMapper = contentMapper;
+        this.metricMapper = metricMapper;
+        this.countCache = countCache;
+        this.eventPublisher = eventPublisher;
+        this.moderatorIds = Set.copyOf(moderatorIds);
+        this.replyTreeMaxDepth = replyTreeMaxDepth;
+    }
+
+    /**
+     * 是否为版主（forum.moderation.moderator-ids）
+     */
+    public boolean isModerator(Long userId) {
+        return userId != null && moderatorIds.contains(userId);
+    }
+
+    /**
+     * 批量导入帖子和回复
+     *
+     * @return 与 items 一一对应的结果
+     */
+    @Transactional
+    public List<BulkContentResult> importContents(List<BulkImportRequest.Item> items) {
+        if (items == null || items.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, ForumContent> existing = loadReferencedContents(items);
+
+        BulkContentResult[] results = new BulkContentResult[items.size()];
+        List<Integer> accepted = new ArrayList<>();
+        Map<String, Integer> acceptedRefs = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            BulkImportRequest.Item item = items.get(i);
+            String error = validate(item, items, acceptedRefs, existing);
+            if (error != null) {
+                results[i] = BulkContentResult.failure(i, item.getRef(), null, error);
+                continue;
+            }
+            accepted.add(i);
+            if (item.getRef() != null) {
+                acceptedRefs.put(item.getRef(), i);
+            }
+        }
+
+        if (accepted.isEmpty()) {
+            return List.of(results);
+        }
+
+        // 预分配 ID 后解析批内引用
+        List<Long> ids = contentMapper.allocateContentIds(accepted.size());
+        Map<Integer, Long> idByIndex = new HashMap<>();
+        for (int k = 0; k < accepted.size(); k++) {
+            idByIndex.put(accepted.get(k), ids.get(k));
+        }
+
+        List<ForumContent> contents = new ArrayList<>(accepted.size());
+        List<Long> replyIds = new ArrayList<>();
+        Set<Long> touchedPosts = new TreeSet<>();
+        Set<Long> authorIds = new LinkedHashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int index : accepted) {
+            BulkImportRequest.Item item = items.get(index);
+            Long contentId = idByIndex.get(index);
+            ForumContent content;
+            if ("post".equals(item.getType())) {
+                content = new ForumContent("post", item.getTitle().trim(), item.getBody(), item.getAuthorId());
+                authorIds.add(item.getAuthorId());
+            } else {
+                Long parentId = item.getParentRef() != null
+                        ? idByIndex.get(acceptedRefs.get(item.getParentRef()))
+                        : item.getParentId();
+                Long replyTo = item.getReplyToRef() != null
+                        ? idByIndex.get(acceptedRefs.get(item.getReplyToRef()))
+                        : item.getReplyTo();
+                content = new ForumContent("reply", item.getBody(), item.getAuthorId(), parentId, replyTo);
+                replyIds.add(contentId);
+                touchedPosts.add(parentId);
+            }
+            content.setContentId(contentId);
+            content.setCreatedDate(item.getCreatedDate() != null ? item.getCreatedDate() : now);
+            contents.add(content);
+            results[index] = BulkContentResult.success(index, item.getRef(), contentId);
+        }
+
+        contentMapper.batchInsert(contents);
+        if (!replyIds.isEmpty()) {
+            contentMapper.fillReplyPaths(replyIds.toArray(new Long[0]), replyTreeMaxDepth);
+        }
+        metricMapper.initBatchMetrics(ids.toArray(new Long[0]));
+        if (!touchedPosts.isEmpty()) {
+            metricMapper.syncReplyCounts(touchedPosts.toArray(new Long[0]));
+        }
+
+        countCache.evict(ForumPostService.POST_COUNT_KEY);
+        authorIds.forEach(authorId -> countCache.evict(ForumPostService.AUTHOR_COUNT_KEY + authorId));
+        touchedPosts.forEach(postId -> countCache.evict(ForumPostService.REPLY_COUNT_KEY + postId));
+        eventPublisher.publishEvent(new ForumContentEvent(ForumContentEvent.Type.BULK_IMPORTED, null));
+
+        log.info("批量导入完成 - 提交: {}, 成功: {}, 帖子: {}, 回复: {}",
+                items.size(), accepted.size(), accepted.size() - replyIds.size(), replyIds.size());
+        return List.of(results);
+    }
+
+    /**
+     * 批量软删除帖子和回复
+     *
+     * @return 与 contentIds 一一对应的结果
+     */
+    @Transactional
+    public List<BulkContentResult> deleteContents(List<Long> contentIds) {
+        if (contentIds == null || contentIds.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> distinct = new TreeSet<>();
+        for (Long contentId : contentIds) {
+            if (contentId != null) {
+                distinct.add(contentId);
+            }
+        }
+        List<ForumContent> deleted = distinct.isEmpty()
+                ? List.of()
+                : contentMapper.softDeleteBatch(distinct.toArray(new Long[0]));
+
+        Set<Long> deletedIds = new TreeSet<>();
+        Set<Long> touchedPosts = new TreeSet<>();
+        List<ForumContentEvent> events = new ArrayList<>(deleted.size());
+        boolean postDeleted = false;
+        for (ForumContent content : deleted) {
+            deletedIds.add(content.getContentId());
+            if (content.isPost()) {
+                postDeleted = true;
+                countCache.evict(ForumPostService.AUTHOR_COUNT_KEY + content.getAuthorId());
+                events.add(new ForumContentEvent(ForumContentEvent.Type.POST_DELETED, content.getContentId()));
+            } else if (content.isReply() && content.getParentId() != null) {
+                touchedPosts.add(content.getParentId());
+                events.add(new ForumContentEvent(ForumContentEvent.Type.REPLY_DELETED, content.getParentId()));
+            }
+        }
+
+        if (!touchedPosts.isEmpty()) {
+            metricMapper.syncReplyCounts(touchedPosts.toArray(new Long[0]));
+            touchedPosts.forEach(postId -> countCache.evict(ForumPostService.REPLY_COUNT_KEY + postId));
+        }
+        if (postDeleted) {
+            countCache.evict(ForumPostService.POST_COUNT_KEY);
+        }
+        events.forEach(eventPublisher::publishEvent);
+
+        List<BulkContentResult> results = new ArrayList<>(contentIds.size());
+        for (int i = 0; i < contentIds.size(); i++) {
+            Long contentId = contentIds.get(i);
+            if (contentId != null && deletedIds.remove(contentId)) {
+                results.add(BulkContentResult.success(i, null, contentId));
+            } else {
+                results.add(BulkContentResult.failure(i, null, contentId,
+                        contentId == null ? "内容ID不能为空" : "内容不存在、已删除或重复提交"));
+            }
+        }
+
+        log.info("批量删除完成 - 提交: {}, 删除: {}", contentIds.size(), deleted.size());
+        return results;
+    }
+
+    /**
+     * 一次查询批中引用的已有帖子和回复
+     */
+    private Map<Long, ForumContent> loadReferencedContents(List<BulkImportRequest.Item> items) {
+        Set<Long> referenced = new TreeSet<>();
+        for (BulkImportRequest.Item item : items) {
+            if (item.getParentId() != null) {
+                referenced.add(item.getParentId());
+            }
+            if (item.getReplyTo() != null) {
+                referenced.add(item.getReplyTo());
+            }
+        }
+        Map<Long, ForumContent> existing = new HashMap<>();
+        if (!referenced.isEmpty()) {
+            for (ForumContent content : contentMapper.findContentHeaders(referenced.toArray(new Long[0]))) {
+                existing.put(content.getContentId(), content);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * 校验单个条目，批内引用只能指向排在前面且已通过校验的条目
+     *
+     * @return 错误信息，通过时返回 null
+     */
+    private static String validate(BulkImportRequest.Item item, List<BulkImportRequest.Item> items,
+                                   Map<String, Integer> acceptedRefs, Map<Long, ForumContent> existing) {
+        if (item == null) {
+            return "条目不能为空";
+        }
+        if (item.getRef() != null && acceptedRefs.containsKey(item.getRef())) {
+            return "ref 重复: " + item.getRef();
+        }
+        if (item.getAuthorId() == null) {
+            return "作者ID不能为空";
+        }
+        if (item.getBody() == null || item.getBody().trim().isEmpty()) {
+            return "内容不能为空";
+        }
+
+        if ("post".equals(item.getType())) {
+            if (item.getTitle() == null || item.getTitle().trim().isEmpty()) {
+                return "帖子标题不能为空";
+            }
+            if (item.getTitle().trim().length() > 200) {
+                return "帖子标题不能超过200个字符";
+            }
+            if (item.getParentId() != null || item.getParentRef() != null
+                    || item.getReplyTo() != null || item.getReplyToRef() != null) {
+                return "帖子不能指定父内容或被回复内容";
+            }
+            return null;
+        }
+
+        if (!"reply".equals(item.getType())) {
+            return "type 只能是 post 或 reply";
+        }
+
+        // 父帖子：已有 ID 或批内引用，二选一
+        if ((item.getParentId() == null) == (item.getParentRef() == null)) {
+            return "回复必须且只能指定 parentId 或 parentRef 之一";
+        }
+        if (item.getReplyTo() != null && item.getReplyToRef() != null) {
+            return "replyTo 和 replyToRef 不能同时指定";
+        }
+
+        Object parentKey;
+        if (item.getParentRef() != null) {
+            Integer parentIndex = acceptedRefs.get(item.getParentRef());
+            if (parentIndex == null || !"post".equals(items.get(parentIndex).getType())) {
+                return "parentRef 未指向前面已通过校验的帖子: " + item.getParentRef();
+            }
+            parentKey = item.getParentRef();
+        } else {
+            ForumContent parent = existing.get(item.getParentId());
+            if (parent == null || !parent.isPost()) {
+                return "父帖子不存在: " + item.getParentId();
+            }
+            parentKey = item.getParentId();
+        }
+
+        if (item.getReplyToRef() != null) {
+            Integer targetIndex = acceptedRefs.get(item.getReplyToRef());
+            if (targetIndex == null || !"reply".equals(items.get(targetIndex).getType())) {
+                return "replyToRef 未指向前面已通过校验的回复: " + item.getReplyToRef();
+            }
+            BulkImportRequest.Item target = items.get(targetIndex);
+            Object targetParentKey = target.getParentRef() != null ? target.getParentRef() : target.getParentId();
+            if (!parentKey.equals(targetParentKey)) {
+                return "被回复内容不属于同一个帖子";
+            }
+        } else if (item.getReplyTo() != null) {
+            ForumContent target = existing.get(item.getReplyTo());
+            if (target == null || !target.isReply()) {
+                return "被回复内容不存在: " + item.getReplyTo();
+            }
+            if (item.getParentRef() != null || !target.getParentId().equals(item.getParentId())) {
+                return "被回复内容不属于同一个帖子";
+            }
+        }
+        return null;
+    }
+}
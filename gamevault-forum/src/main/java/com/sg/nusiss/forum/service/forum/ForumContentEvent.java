@@ -0,0 +1,42 @@
+package com.sg.nusiss.forum.service.forum;
+
+/**
+ * 论坛内容变更事件
+ * 由 ForumPostService / ForumContentLikeService 在写操作成功后发布，供各类读缓存失效或增量更新
+ */
+public class ForumContentEvent {
+
+    public enum Type {
+        POST_CREATED,
+        POST_UPDATED,
+        POST_DELETED,
+        REPLY_CREATED,
+        REPLY_DELETED,
+        LIKED,
+        UNLIKED,
+        // 批量导入（contentId 为 null）：列表类缓存整体失效；导入的是历史内容，不计入热榜
+        BULK_IMPORTED
+    }
+
+    private final Type type;
+    // 受影响的内容ID（回复事件为所属帖子ID，点赞事件为被点赞的帖子或回复ID）
+    private final Long contentId;
+
+    public ForumContentEvent(Type type, Long contentId) {
+        this.type = type;
+        this.contentId = contentId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    @Override
+    public String toString() {
+        return "ForumContentEvent{type=" + type + ", contentId=" + contentId + '}';
+    }
+}
@@ -2,17 +2,23 @@ package com.sg.nusiss.forum.service.forum;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.sg.nusiss.forum.constant.ForumRelationType;
+import com.sg.nusiss.forum.entity.ContentLikeState;
+import com.sg.nusiss.forum.entity.ContentMetric;
 import com.sg.nusiss.forum.entity.UserContentRelation;
 import com.sg.nusiss.forum.repository.ForumContentLikeMapper;
 import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import com.sg.nusiss.forum.util.LongIntOpenHashMap;
+import com.sg.nusiss.forum.util.LongOpenHashSet;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * 内容点赞服务（基于 user_content_relations 表）
@@ -24,59 +30,106 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ForumContentLikeService {
 
+    // 批量点赞单次最多的操作数
+    private static final int MAX_BULK_ACTIONS = 100;
+
     private final ForumContentLikeMapper contentLikeMapper;
     private final ForumMetricMapper metricMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 点赞内容
+     * @return true 如果本次新增了点赞
      */
-    @Transactional
     public boolean likeContent(Long contentId, Long userId) {
+        return setLike(contentId, userId, true).isChanged();
+    }
+
+    /**
+     * 取消点赞
+     * @return true 如果本次取消了点赞
+     */
+    public boolean unlikeContent(Long contentId, Long userId) {
+        return setLike(contentId, userId, false).isChanged();
+    }
+
+    /**
+     * 设置点赞状态（幂等，单条语句同时写关系与计数）
+     * @return 写入后的状态与点赞数
+     */
+    public ContentLikeState setLike(Long contentId, Long userId, boolean liked) {
         if (contentId == null || userId == null) {
             throw new IllegalArgumentException("内容ID和用户ID不能为空");
         }
 
-        // 检查是否已点赞
-        if (contentLikeMapper.existsByUserAndContentAndType(userId, contentId, ForumRelationType.LIKE.intValue())) {
-            return false;
+        List<ContentLikeState> states = contentLikeMapper.setLikes(
+                userId, ForumRelationType.LIKE.intValue(), List.of(new ContentLikeState(contentId, liked)));
+        if (states.isEmpty()) {
+            throw new IllegalArgumentException("内容不存在");
         }
 
-        // 创建点赞关系
-        UserContentRelation relation = new UserContentRelation(userId, contentId, ForumRelationType.LIKE.intValue());
-        relation.setCreatedDate(LocalDateTime.now());
-
-        int inserted = contentLikeMapper.insert(relation);
-        return inserted > 0;
+        ContentLikeState state = states.get(0);
+        publishIfChanged(state);
+        return state;
     }
 
     /**
-     * 取消点赞
+     * 切换点赞状态（单条语句完成判断、写入和计数，并发双击时结果仍与实际状态一致）
+     * @return 切换后的状态与点赞数
      */
-    @Transactional
-    public boolean unlikeContent(Long contentId, Long userId) {
+    public ContentLikeState toggleLike(Long contentId, Long userId) {
         if (contentId == null || userId == null) {
             throw new IllegalArgumentException("内容ID和用户ID不能为空");
         }
 
-        if (!contentLikeMapper.existsByUserAndContentAndType(userId, contentId, ForumRelationType.LIKE.intValue())) {
-            return false;
+        ContentLikeState state = contentLikeMapper.toggleLike(userId, contentId, ForumRelationType.LIKE.intValue());
+        if (state == null) {
+            throw new IllegalArgumentException("内容不存在");
         }
 
-        int deleted = contentLikeMapper.deleteByUserAndContentAndType(userId, contentId, ForumRelationType.LIKE.intValue());
-        return deleted > 0;
+        publishIfChanged(state);
+        return state;
     }
 
     /**
-     * 切换点赞状态
+     * 批量设置点赞状态（客户端回放离线操作）
+     * 同一内容出现多次时以最后一次为准；不存在或已删除的内容被忽略，不在返回结果中
+     *
+     * @return 每个内容写入后的状态与点赞数（按内容ID排序）
      */
-    @Transactional
-    public boolean toggleLike(Long contentId, Long userId) {
-        if (contentLikeMapper.existsByUserAndContentAndType(userId, contentId, ForumRelationType.LIKE.intValue())) {
-            unlikeContent(contentId, userId);
-            return false;
-        } else {
-            likeContent(contentId, userId);
-            return true;
+    public List<ContentLikeState> bulkSetLikes(Long userId, List<ContentLikeState> actions) {
+        if (userId == null) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        if (actions == null || actions.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (actions.size() > MAX_BULK_ACTIONS) {
+            throw new IllegalArgumentException("单次最多提交" + MAX_BULK_ACTIONS + "个点赞操作");
+        }
+
+        // 按内容去重（保留最后一次操作），并按ID排序使并发请求的加锁顺序一致
+        Map<Long, ContentLikeState> latest = new TreeMap<>();
+        for (ContentLikeState action : actions) {
+            if (action.getContentId() == null || action.getLiked() == null) {
+                throw new IllegalArgumentException("内容ID和点赞状态不能为空");
+            }
+            latest.put(action.getContentId(), new ContentLikeState(action.getContentId(), action.getLiked()));
+        }
+
+        List<ContentLikeState> states = contentLikeMapper.setLikes(
+                userId, ForumRelationType.LIKE.intValue(), new ArrayList<>(latest.values()));
+        states.forEach(this::publishIfChanged);
+
+        log.info("批量点赞完成 - 用户ID: {}, 请求数: {}, 有效内容数: {}, 实际变更数: {}", userId, actions.size(),
+                states.size(), states.stream().filter(ContentLikeState::isChanged).count());
+        return states;
+    }
+
+    private void publishIfChanged(ContentLikeState state) {
+        if (state.isChanged()) {
+            ForumContentEvent.Type type = state.isLiked() ? ForumContentEvent.Type.LIKED : ForumContentEvent.Type.UNLIKED;
+            eventPublisher.publishEvent(new ForumContentEvent(type, state.getContentId()));
         }
     }
 
@@ -103,6 +156,7 @@ public class ForumContentLikeService {
     /**
      * 获取内容的所有点赞用户ID
      */
+    @Transactional(readOnly = true)
     public List<Long> getLikedUserIds(Long contentId) {
         if (contentId == null) {
             throw new IllegalArgumentException("内容ID不能为空");
@@ -113,6 +167,7 @@ public class ForumContentLikeService {
     /**
      * 获取用户点赞的所有内容ID
      */
+    @Transactional(readOnly = true)
     public List<Long> getUserLikedContentIds(Long userId) {
         if (userId == null) {
             throw new IllegalArgumentException("用户ID不能为空");
@@ -128,30 +183,54 @@ public class ForumContentLikeService {
             return new HashMap<>();
         }
 
-        List<Long> likedContentIds = contentLikeMapper
-                .findLikedContentIdsByUserAndType(userId, contentIds, ForumRelationType.LIKE.intValue());
+        LongOpenHashSet liked = findLikedContentIds(userId, contentIds);
 
         Map<Long, Boolean> result = new HashMap<>();
         for (Long contentId : contentIds) {
-            result.put(contentId, likedContentIds.contains(contentId));
+            result.put(contentId, liked.contains(contentId));
         }
 
         return result;
     }
 
     /**
-     * 批量获取多个内容的点赞数
+     * 批量查询用户点赞过的内容ID（一次查询，结果为原始 long 集合）
      */
-    public Map<Long, Integer> batchGetLikeCounts(List<Long> contentIds) {
+    public LongOpenHashSet findLikedContentIds(Long userId, List<Long> contentIds) {
+        if (userId == null || contentIds == null || contentIds.isEmpty()) {
+            return new LongOpenHashSet(0);
+        }
+
+        List<Long> likedContentIds = contentLikeMapper
+                .findLikedContentIdsByUserAndType(userId, contentIds, ForumRelationType.LIKE.intValue());
+
+        LongOpenHashSet liked = new LongOpenHashSet(likedContentIds.size());
+        for (Long contentId : likedContentIds) {
+            liked.add(contentId);
+        }
+        return liked;
+    }
+
+    /**
+     * 批量获取多个内容的点赞数（一次查询，没有计数记录的内容不在结果中）
+     */
+    public LongIntOpenHashMap batchGetLikeCounts(List<Long> contentIds) {
         if (contentIds == null || contentIds.isEmpty()) {
-            return new HashMap<>();
+            return new LongIntOpenHashMap(0);
         }
-        return metricMapper.getBatchMetrics(contentIds, "like_count");
+
+        List<ContentMetric> counts = metricMapper.findLikeCounts(contentIds);
+        LongIntOpenHashMap result = new LongIntOpenHashMap(counts.size());
+        for (ContentMetric count : counts) {
+            result.put(count.getContentId(), count.getMetricValue() != null ? count.getMetricValue() : 0);
+        }
+        return result;
     }
 
     /**
      * 获取用户最近点赞的内容
      */
+    @Transactional(readOnly = true)
     public List<UserContentRelation> getUserRecentLikes(Long userId, int limit) {
         if (userId == null) {
             throw new IllegalArgumentException("用户ID不能为空");
@@ -162,6 +241,7 @@ public class ForumContentLikeService {
     /**
      * 获取内容的最近点赞记录
      */
+    @Transactional(readOnly = true)
     public List<UserContentRelation> getContentRecentLikes(Long contentId, int limit) {
         if (contentId == null) {
             throw new IllegalArgumentException("内容ID不能为空");
@@ -170,35 +250,31 @@ public class ForumContentLikeService {
     }
 
     /**
-     * 同步点赞数
+     * 同步点赞数（按 user_content_relations 重算，只改写有偏差的行）
      */
-    @Transactional
     public void syncLikeCount(Long contentId) {
         if (contentId == null) {
             throw new IllegalArgumentException("内容ID不能为空");
         }
 
-        int actualCount = contentLikeMapper.countByContentAndType(contentId, ForumRelationType.LIKE.intValue());
-        metricMapper.setMetricValue(contentId, "like_count", actualCount);
+        metricMapper.reconcileCounterIds(new Long[]{contentId});
     }
 
     /**
-     * 批量同步点赞数
+     * 批量同步点赞数（一条语句完成）
      */
-    @Transactional
     public void batchSyncLikeCounts(List<Long> contentIds) {
         if (contentIds == null || contentIds.isEmpty()) {
             return;
         }
 
-        for (Long contentId : contentIds) {
-            syncLikeCount(contentId);
-        }
+        metricMapper.reconcileCounterIds(contentIds.stream().distinct().toArray(Long[]::new));
     }
 
     /**
      * 获取热门内容（按点赞数排序）
      */
+    @Transactional(readOnly = true)
     public List<Long> getTopLikedContents(int limit) {
         return metricMapper.findTopContentsByMetric("like_count", limit);
     }
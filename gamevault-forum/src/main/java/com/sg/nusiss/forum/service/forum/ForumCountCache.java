@@ -0,0 +1,64 @@
+package com.sg.nusiss.forum.service.forum;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * 列表总数的短期缓存
+ * 游标分页的总数只是展示用，允许几秒的误差，避免每次翻页都执行 COUNT(*)
+ */
+@Component
+public class ForumCountCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, CachedCount> counts = new ConcurrentHashMap<>();
+
+    public ForumCountCache(@Value("${forum.pagination.count-cache-ttl-ms:30000}") long ttlMillis,
+                           @Value("${forum.pagination.count-cache-max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 获取缓存的总数，过期或不存在时调用 loader 重新统计
+     */
+    public int get(String key, IntSupplier loader) {
+        long now = System.currentTimeMillis();
+        CachedCount cached = counts.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            return cached.value;
+        }
+
+        int value = loader.getAsInt();
+        if (counts.size() >= maxEntries) {
+            counts.values().removeIf(c -> c.expiresAt <= now);
+            if (counts.size() >= maxEntries) {
+                counts.clear();
+            }
+        }
+        counts.put(key, new CachedCount(value, now + ttlMillis));
+        return value;
+    }
+
+    /**
+     * 使某个总数失效（写操作后调用）
+     */
+    public void evict(String key) {
+        counts.remove(key);
+    }
+
+    private static final class CachedCount {
+        final int value;
+        final long expiresAt;
+
+        CachedCount(int value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
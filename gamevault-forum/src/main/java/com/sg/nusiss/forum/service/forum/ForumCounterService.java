@@ -0,0 +1,225 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 内容计数对账服务
+ *
+ * content_counters 是 content_metrics（EAV）的宽表冗余，列表查询只读这张表；
+ * 点赞数、回复数都是增量维护的，删除并发等情况下会产生偏差。这里负责兜底：
+ * - 按 content_id 分段（每段 forum.counters.reconcile.batch-size 个内容）扫描
+ * - 每段一条语句，从 user_content_relations 和活跃回复重算点赞数、回复数，只改写有偏差的行
+ * - 每段完成后保存检查点（forum_job_checkpoints），重启后接着上次的位置扫
+ * - 每次最多处理 max-batches-per-run 段，段间暂停 batch-pause-ms，
+ *   每段都是独立的短事务，高峰期也可以持续运行
+ * 扫到最后一个内容后检查点归零，下一次执行开始新的一轮。
+ *
+ * 互斥（forum.counters.reconcile.lock-mode）：
+ * - memory：只保证本实例内不并发执行，适合单实例
+ * - redis：执行前 SET NX PX 抢锁，每段完成后续期，结束时释放；多个实例只有一个在扫，
+ *   不会重复处理同一段、互相覆盖检查点。没抢到锁或 Redis 不可用时跳过本次
+ */
+@Slf4j
+@Service
+public class ForumCounterService {
+
+    static final String JOB_NAME = "counter-reconcile";
+    static final String LOCK_KEY = "forum:jobs:" + JOB_NAME + ":lock";
+
+    // 仍由本实例持有时续期 / 删除
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end "
+                    + "return 0", Long.class);
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end "
+                    + "return 0", Long.class);
+
+    private final ForumMetricMapper metricMapper;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final long batchPauseMillis;
+    private final int settleSeconds;
+    private final StringRedisTemplate redisTemplate;
+    private final long lockTtlMillis;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Timer batchTimer;
+    private final Counter fixedCounter;
+
+    public ForumCounterService(
+            ForumMetricMapper metricMapper,
+            MeterRegistry meterRegistry,
+            @Value("${forum.counters.reconcile.batch-size:1000}") int batchSize,
+            @Value("${forum.counters.reconcile.max-batches-per-run:100}") int maxBatchesPerRun,
+            @Value("${forum.counters.reconcile.batch-pause-ms:100}") long batchPauseMillis,
+            @Value("${forum.counters.reconcile.settle-seconds:60}") int settleSeconds,
+            @Value("${forum.counters.reconcile.lock-mode:memory}") String lockMode,
+            @Value("${forum.counters.reconcile.lock-ttl-seconds:120}") long lockTtlSeconds,
+            ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+        this.metricMapper = metricMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatchesPerRun = Math.max(1, maxBatchesPerRun);
+        this.batchPauseMillis = Math.max(0, batchPauseMillis);
+        this.settleSeconds = Math.max(0, settleSeconds);
+        this.redisTemplate = "redis".equalsIgnoreCase(lockMode) ? redisTemplateProvider.getIfAvailable() : null;
+        this.lockTtlMillis = TimeUnit.SECONDS.toMillis(Math.max(1, lockTtlSeconds));
+
+        if ("redis".equalsIgnoreCase(lockMode) && redisTemplate == null) {
+            log.warn("计数对账配置为 redis 锁，但没有可用的 StringRedisTemplate，只在本实例内互斥");
+        }
+
+        this.batchTimer = Timer.builder("forum.counters.reconcile.batch")
+                .description("计数对账单段耗时")
+                .register(meterRegistry);
+        this.fixedCounter = Counter.builder("forum.counters.reconcile.fixed")
+                .description("计数对账修正的内容数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 从检查点开始执行一次增量对账（其他实例或线程正在执行时跳过）
+     *
+     * @return 本次被修正的内容数
+     */
+    public int reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("计数对账正在执行，跳过本次");
+            return 0;
+        }
+        String token = null;
+        try {
+            if (redisTemplate != null) {
+                token = UUID.randomUUID().toString();
+                if (!acquireLock(token)) {
+                    return 0;
+                }
+            }
+            return reconcileLocked(token);
+        } finally {
+            if (token != null) {
+                releaseLock(token);
+            }
+            running.set(false);
+        }
+    }
+
+    private int reconcileLocked(String token) {
+        long start = System.currentTimeMillis();
+        Long checkpoint = metricMapper.findCheckpoint(JOB_NAME);
+        long fromId = checkpoint != null ? checkpoint : 0L;
+
+        int batches = 0;
+        int fixed = 0;
+        boolean passCompleted = false;
+
+        while (batches < maxBatchesPerRun) {
+            if (batches > 0 && !pause()) {
+                break;
+            }
+
+            Long toId = metricMapper.findContentRangeEnd(fromId, batchSize);
+            if (toId == null) {
+                passCompleted = true;
+                break;
+            }
+
+            long batchStart = System.nanoTime();
+            int batchFixed;
+            try {
+                batchFixed = metricMapper.reconcileCounterRange(fromId, toId, settleSeconds);
+            } finally {
+                batchTimer.record(System.nanoTime() - batchStart, TimeUnit.NANOSECONDS);
+            }
+            if (batchFixed > 0) {
+                fixedCounter.increment(batchFixed);
+                log.info("计数对账修正偏差 - 区间: ({}, {}], 修正内容数: {}", fromId, toId, batchFixed);
+            }
+
+            fixed += batchFixed;
+            batches++;
+            fromId = toId;
+            metricMapper.saveCheckpoint(JOB_NAME, fromId);
+
+            if (token != null && !renewLock(token)) {
+                log.warn("计数对账锁已失效，停止本次对账 - 检查点: {}", fromId);
+                break;
+            }
+        }
+
+        if (passCompleted) {
+            // 一轮扫描结束，下次从头开始
+            metricMapper.saveCheckpoint(JOB_NAME, 0L);
+        }
+
+        log.info("计数对账完成 - 处理段数: {}, 修正内容数: {}, 检查点: {}, 本轮结束: {}, 耗时: {}ms",
+                batches, fixed, passCompleted ? 0L : fromId, passCompleted, System.currentTimeMillis() - start);
+        return fixed;
+    }
+
+    private boolean acquireLock(String token) {
+        try {
+            Boolean acquired = redisTemplate.opsForValue()
+                    .setIfAbsent(LOCK_KEY, token, Duration.ofMillis(lockTtlMillis));
+            if (!Boolean.TRUE.equals(acquired)) {
+                log.debug("计数对账锁被其他实例持有，跳过本次");
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("获取计数对账锁失败，跳过本次: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean renewLock(String token) {
+        try {
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(LOCK_KEY), token, String.valueOf(lockTtlMillis));
+            return renewed != null && renewed == 1L;
+        } catch (Exception e) {
+            log.warn("计数对账锁续期失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void releaseLock(String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_KEY), token);
+        } catch (Exception e) {
+            // 锁到期后自动释放
+            log.warn("释放计数对账锁失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 段间暂停，把对账对数据库的压力摊开
+     *
+     * @return false 表示线程被中断（应用关闭），应停止本次对账
+     */
+    private boolean pause() {
+        if (batchPauseMillis == 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -1,18 +1,30 @@
 package com.sg.nusiss.forum.service.forum;
 
 import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.forum.dto.CursorPage;
 import com.sg.nusiss.forum.service.user.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import com.sg.nusiss.forum.entity.ForumContent;
 import com.sg.nusiss.forum.repository.ForumContentMapper;
 import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import com.sg.nusiss.forum.util.HashIdUtil;
+import com.sg.nusiss.forum.util.LongIntOpenHashMap;
+import com.sg.nusiss.forum.util.LongOpenHashSet;
+import com.sg.nusiss.forum.util.PageCursor;
+import com.sg.nusiss.forum.util.ReplyPath;
+import com.sg.nusiss.forum.util.SearchCursor;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -26,12 +38,40 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ForumPostService {
 
+    static final String POST_COUNT_KEY = "posts";
+    static final String AUTHOR_COUNT_KEY = "author:";
+    static final String REPLY_COUNT_KEY = "replies:";
+
     private final ForumContentMapper contentMapper;
     private final ForumMetricMapper metricMapper;
     private final ForumContentLikeService contentLikeService;
+    private final ViewCountBuffer viewCountBuffer;
+    private final HashIdUtil hashIdUtil;
+    private final ForumCountCache countCache;
+    private final FrontPageCache frontPageCache;
+    private final HotPostRanking hotPostRanking;
+    private final ReplyFanoutPipeline replyFanoutPipeline;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ⭐ 修复: 添加 UserService 注入
     private final UserService userService;
+    private final PostAuthorEnricher postAuthorEnricher;
+
+    // 搜索模式：ilike（默认，模糊匹配）/ fulltext（tsvector 全文检索）
+    @Value("${forum.search.mode:ilike}")
+    private String searchMode;
+
+    // fulltext 模式下结果计数的上限
+    @Value("${forum.search.count-cap:1000}")
+    private int searchCountCap;
+
+    // 回复树最大层级，更深的楼中楼挂在该层级的祖先下
+    @Value("${forum.reply-tree.max-depth:8}")
+    private int replyTreeMaxDepth;
+
+    // 回复树每个根回复最多预览的子孙回复数
+    @Value("${forum.reply-tree.max-preview-children:10}")
+    private int replyTreeMaxPreview;
 
     /**
      * 创建新帖子
@@ -63,9 +103,11 @@ public class ForumPostService {
                 log.info("帖子创建成功 - 帖子ID: {}, 作者ID: {}", post.getContentId(), authorId);
                 // 初始化统计数据
                 initializePostMetrics(post.getContentId());
+                evictPostCounts(authorId);
+                eventPublisher.publishEvent(new ForumContentEvent(ForumContentEvent.Type.POST_CREATED, post.getContentId()));
 
                 // ⭐ 修复: 填充作者信息
-                enrichSinglePostWithUserInfo(post);
+                postAuthorEnricher.enrichPost(post);
 
                 return post;
             } else {
@@ -89,10 +131,17 @@ public class ForumPostService {
             throw new RuntimeException("帖子不存在");
         }
 
-        log.info("从数据库查到的点赞数: {}", post.getLikeCount());
+        log.debug("从数据库查到的点赞数: {}", post.getLikeCount());
+
+        // 叠加写缓冲中尚未落库的浏览量
+        long pendingViews = viewCountBuffer.getPending(id);
+        if (pendingViews > 0) {
+            int viewCount = post.getViewCount() != null ? post.getViewCount() : 0;
+            post.setViewCount((int) Math.min(Integer.MAX_VALUE, viewCount + pendingViews));
+        }
 
         // ⭐ 修复: 获取作者信息
-        enrichSinglePostWithUserInfo(post);
+        postAuthorEnricher.enrichPost(post);
 
         // 查询点赞状态
         if (currentUserId != null) {
@@ -105,23 +154,64 @@ public class ForumPostService {
 
     /**
      * 获取帖子列表（带当前用户的点赞状态）
-     * ⭐ 修复: 添加用户信息获取
+     * 前几页走 FrontPageCache 快照，只有点赞状态按请求计算
      */
     public List<ForumContent> getPostList(int page, int size, Long currentUserId) {
+        List<ForumContent> posts = frontPageCache.isCacheable(page, size)
+                ? frontPageCache.getPage(page, () -> loadPostPage(page, size))
+                : loadPostPage(page, size);
+
+        // 设置点赞状态
+        if (currentUserId != null && !posts.isEmpty()) {
+            enrichPostsWithLikeStatus(posts, currentUserId);
+        }
+
+        return posts;
+    }
+
+    /**
+     * 查询一页帖子并填充作者信息（不含点赞状态）
+     */
+    private List<ForumContent> loadPostPage(int page, int size) {
         List<ForumContent> posts = contentMapper.findActivePosts(page * size, size);
 
-        if (posts.isEmpty()) {
-            return posts;
+        if (!posts.isEmpty()) {
+            // ⭐ 修复: 批量获取并填充用户信息
+            postAuthorEnricher.enrichPosts(posts);
         }
 
-        // ⭐ 修复: 批量获取并填充用户信息
-        enrichPostsWithUserInfo(posts);
+        return posts;
+    }
 
-        // 设置点赞状态
-        if (currentUserId != null) {
-            enrichPostsWithLikeStatus(posts, currentUserId);
+    /**
+     * 获取热门帖子（按时间衰减的互动热度排序）
+     * 排名来自 HotPostRanking，这里只按主键取 K 条帖子详情
+     */
+    @Transactional(readOnly = true)
+    public List<ForumContent> getHotPosts(int size, Long currentUserId) {
+        size = normalizeSize(size);
+
+        List<Long> ids = hotPostRanking.getTopPostIds(size);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, ForumContent> byId = contentMapper.findActivePostsByIds(ids).stream()
+                .collect(Collectors.toMap(ForumContent::getContentId, post -> post));
+        List<ForumContent> posts = new ArrayList<>(byId.size());
+        for (Long id : ids) {
+            ForumContent post = byId.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
         }
 
+        if (!posts.isEmpty()) {
+            postAuthorEnricher.enrichPosts(posts);
+            if (currentUserId != null) {
+                enrichPostsWithLikeStatus(posts, currentUserId);
+            }
+        }
         return posts;
     }
 
@@ -136,23 +226,42 @@ public class ForumPostService {
      * 搜索帖子
      * ⭐ 修复: 添加用户信息获取
      */
+    @Transactional(readOnly = true)
     public List<ForumContent> searchPosts(String keyword, int page, int size, Long currentUserId) {
+        return searchPosts(keyword, null, page, size, currentUserId);
+    }
+
+    /**
+     * 搜索帖子（支持游标）
+     * fulltext 模式下按相关度排序，cursor 不为空时按游标翻页并忽略 page；ilike 模式忽略 cursor
+     */
+    @Transactional(readOnly = true)
+    public List<ForumContent> searchPosts(String keyword, String cursor, int page, int size, Long currentUserId) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return getPostList(page, size, currentUserId);
         }
 
         if (page < 0) page = 0;
-        if (size <= 0 || size > 100) size = 20;
+        size = normalizeSize(size);
 
         int offset = page * size;
-        List<ForumContent> posts = contentMapper.searchPosts(keyword.trim(), offset, size);
+        List<ForumContent> posts;
+        if (isFullTextSearch()) {
+            SearchCursor after = SearchCursor.decode(cursor, hashIdUtil);
+            posts = contentMapper.fullTextSearchPosts(keyword.trim(),
+                    after != null ? after.getRank() : null,
+                    after != null ? after.getContentId() : null,
+                    offset, size);
+        } else {
+            posts = contentMapper.searchPosts(keyword.trim(), offset, size);
+        }
 
         if (posts.isEmpty()) {
             return posts;
         }
 
         // ⭐ 修复: 批量获取并填充用户信息
-        enrichPostsWithUserInfo(posts);
+        postAuthorEnricher.enrichPosts(posts);
 
         // 设置点赞状态
         if (currentUserId != null) {
@@ -162,32 +271,67 @@ public class ForumPostService {
         return posts;
     }
 
+    /**
+     * 生成下一页搜索游标（仅 fulltext 模式，没有更多结果时返回 null）
+     */
+    public String nextSearchCursor(List<ForumContent> posts, int size) {
+        if (!isFullTextSearch() || posts == null || posts.size() < normalizeSize(size)) {
+            return null;
+        }
+        ForumContent last = posts.get(posts.size() - 1);
+        if (last.getSearchRank() == null) {
+            return null;
+        }
+        return new SearchCursor(last.getSearchRank(), last.getContentId()).encode(hashIdUtil);
+    }
+
     /**
      * 统计搜索结果数量
+     * fulltext 模式最多数到 forum.search.count-cap，达到上限时为近似值
      */
+    @Transactional(readOnly = true)
     public int getSearchCount(String keyword) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return getPostCount();
         }
+        if (isFullTextSearch()) {
+            return contentMapper.countFullTextSearchPosts(keyword.trim(), searchCountCap);
+        }
         return contentMapper.countSearchPosts(keyword.trim());
     }
 
+    /**
+     * 搜索结果数量是否为近似值
+     */
+    public boolean isSearchCountApproximate(int count) {
+        return isFullTextSearch() && count >= searchCountCap;
+    }
+
+    /**
+     * 当前搜索模式：ilike / fulltext
+     */
+    public String getSearchMode() {
+        return isFullTextSearch() ? "fulltext" : "ilike";
+    }
+
+    private boolean isFullTextSearch() {
+        return "fulltext".equalsIgnoreCase(searchMode);
+    }
+
+    private static int normalizeSize(int size) {
+        return (size <= 0 || size > 100) ? 20 : size;
+    }
+
     /**
      * 增加帖子浏览量
+     * 只写入内存缓冲，由 ViewCountBuffer 定时批量落库（调用方需已确认帖子存在）
      */
     public void incrementViewCount(Long postId) {
         if (postId == null) {
             throw new IllegalArgumentException("帖子ID不能为空");
         }
 
-        // 验证帖子存在
-        ForumContent post = contentMapper.findById(postId);
-        if (post == null || !post.isPost()) {
-            throw new RuntimeException("帖子不存在");
-        }
-
-        // 增加浏览量
-        metricMapper.incrementMetric(postId, "view_count", 1);
+        viewCountBuffer.increment(postId);
     }
 
     /**
@@ -211,6 +355,8 @@ public class ForumPostService {
 
         // 执行软删除
         contentMapper.softDelete(postId);
+        evictPostCounts(post.getAuthorId());
+        eventPublisher.publishEvent(new ForumContentEvent(ForumContentEvent.Type.POST_DELETED, postId));
     }
 
     /**
@@ -244,8 +390,10 @@ public class ForumPostService {
         // 保存更新
         int result = contentMapper.update(post);
         if (result > 0) {
+            eventPublisher.publishEvent(new ForumContentEvent(ForumContentEvent.Type.POST_UPDATED, postId));
+
             // ⭐ 修复: 填充作者信息
-            enrichSinglePostWithUserInfo(post);
+            postAuthorEnricher.enrichPost(post);
             return post;
         } else {
             throw new RuntimeException("更新帖子失败");
@@ -269,16 +417,17 @@ public class ForumPostService {
      * 根据作者ID获取活跃帖子列表（未删除）
      * ⭐ 修复: 添加用户信息获取
      */
+    @Transactional(readOnly = true)
     public List<ForumContent> getPostsByAuthorId(Long authorId, int page, int size, Long currentUserId) {
         if (authorId == null) {
             throw new IllegalArgumentException("作者ID不能为空");
         }
 
         if (page < 0) page = 0;
-        if (size <= 0 || size > 100) size = 20;
+        size = normalizeSize(size);
 
         int offset = page * size;
-        log.info("查询用户活跃帖子 - 用户ID: {}, 页码: {}, 每页: {}", authorId, page, size);
+        log.debug("查询用户活跃帖子 - 用户ID: {}, 页码: {}, 每页: {}", authorId, page, size);
 
         List<ForumContent> posts = contentMapper.selectActiveByAuthorId(authorId, offset, size);
 
@@ -287,18 +436,7 @@ public class ForumPostService {
         }
 
         // ⭐ 修复: 获取作者信息(所有帖子是同一个作者,只需要查一次)
-        UserDTO author = userService.getUserById(authorId);
-        posts.forEach(post -> {
-            if (author != null) {
-                post.setAuthorName(author.getUsername());
-                post.setAuthorAvatar(author.getAvatarUrl());
-                log.debug("填充用户信息 - 帖子ID: {}, 用户: {}", post.getContentId(), author.getUsername());
-            } else {
-                post.setAuthorName("未知用户");
-                post.setAuthorAvatar(null);
-                log.warn("用户不存在 - 作者ID: {}", authorId);
-            }
-        });
+        postAuthorEnricher.enrichPostsWithSingleAuthor(posts, authorId);
 
         // 如果用户登录了，批量查询点赞状态
         if (currentUserId != null) {
@@ -311,12 +449,13 @@ public class ForumPostService {
     /**
      * 统计作者的活跃帖子数（未删除）
      */
+    @Transactional(readOnly = true)
     public int getPostCountByAuthorId(Long authorId) {
         if (authorId == null) {
             throw new IllegalArgumentException("作者ID不能为空");
         }
 
-        log.info("统计用户活跃帖子数 - 用户ID: {}", authorId);
+        log.debug("统计用户活跃帖子数 - 用户ID: {}", authorId);
         return contentMapper.countActiveByAuthorId(authorId);
     }
 
@@ -337,8 +476,18 @@ public class ForumPostService {
             throw new IllegalArgumentException("作者ID不能为空");
         }
 
+        // 一次查询取回帖子和被回复内容
+        ForumContent parent = null;
+        ForumContent targetReply = null;
+        for (ForumContent target : contentMapper.findReplyTargets(parentId, replyTo)) {
+            if (target.getContentId().equals(parentId)) {
+                parent = target;
+            } else {
+                targetReply = target;
+            }
+        }
+
         // 验证父内容存在
-        ForumContent parent = contentMapper.findById(parentId);
         if (parent == null) {
             throw new RuntimeException("父内容不存在");
         }
@@ -348,18 +497,17 @@ public class ForumPostService {
 
         // 如果有 replyTo，验证目标回复是否存在
         if (replyTo != null) {
-            ForumContent targetReply = contentMapper.findById(replyTo);
             if (targetReply == null) {
                 log.warn("目标回复不存在 - replyTo: {}", replyTo);
                 throw new RuntimeException("目标回复不存在");
             }
             // 确保目标回复属于同一个帖子
-            if (!targetReply.getParentId().equals(parentId)) {
+            if (!parentId.equals(targetReply.getParentId())) {
                 log.warn("目标回复不属于该帖子 - 目标回复的parentId: {}, 当前parentId: {}",
                         targetReply.getParentId(), parentId);
                 throw new RuntimeException("目标回复不属于该帖子");
             }
-            log.info("验证通过 - 回复目标: {}, 属于帖子: {}", replyTo, parentId);
+            log.debug("验证通过 - 回复目标: {}, 属于帖子: {}", replyTo, parentId);
         }
 
         try {
@@ -367,26 +515,27 @@ public class ForumPostService {
             ForumContent reply;
             if (replyTo != null) {
                 reply = new ForumContent("reply", body.trim(), authorId, parentId, replyTo);
-                log.info("创建楼中楼回复 - 回复目标ID: {}", replyTo);
+                log.debug("创建楼中楼回复 - 回复目标ID: {}", replyTo);
             } else {
                 reply = new ForumContent("reply", body.trim(), authorId, parentId);
-                log.info("创建根回复(直接回复帖子)");
+                log.debug("创建根回复(直接回复帖子)");
             }
 
-            // 保存到数据库
-            int result = contentMapper.insert(reply);
-            if (result > 0) {
-                log.info("回复创建成功 - 回复ID: {}, 父内容ID: {}, replyTo: {}",
-                        reply.getContentId(), parentId, replyTo);
-
-                // 初始化回复的统计数据
-                initializeReplyMetrics(reply.getContentId());
-
-                // 更新父内容(帖子)的回复数 +1
-                metricMapper.incrementMetric(parentId, "reply_count", 1);
-
-                // ⭐ 修复: 填充作者信息
-                enrichSinglePostWithUserInfo(reply);
+            // 保存到数据库（回复树路径和层级由同一条语句计算）
+            ForumContent inserted = contentMapper.insertReply(reply, replyTreeMaxDepth);
+            if (inserted != null) {
+                reply.setContentId(inserted.getContentId());
+                reply.setReplyPath(inserted.getReplyPath());
+                reply.setReplyDepth(inserted.getReplyDepth());
+                log.info("回复创建成功 - 回复ID: {}, 父内容ID: {}, replyTo: {}, 层级: {}",
+                        reply.getContentId(), parentId, replyTo, reply.getReplyDepth());
+
+                // 统计初始化、帖子回复数、缓存失效和通知交给后台批量处理
+                replyFanoutPipeline.submit(reply.getContentId(), parentId, authorId, parent.getAuthorId(),
+                        targetReply != null ? targetReply.getAuthorId() : null);
+                if (targetReply != null) {
+                    reply.setReplyToAuthorId(targetReply.getAuthorId());
+                }
 
                 return reply;
             } else {
@@ -409,7 +558,7 @@ public class ForumPostService {
         }
 
         if (page < 0) page = 0;
-        if (size <= 0 || size > 100) size = 20;
+        size = normalizeSize(size);
 
         int offset = page * size;
 
@@ -420,21 +569,7 @@ public class ForumPostService {
             return replies;
         }
 
-        // ⭐ 修复: 批量获取并填充用户信息
-        enrichPostsWithUserInfo(replies);
-
-        // 为每个回复加载统计数据（如果 SQL 没有 JOIN）
-        for (ForumContent reply : replies) {
-            if (reply.getLikeCount() == null) {
-                Integer likeCount = metricMapper.getMetricValue(reply.getContentId(), "like_count");
-                reply.setLikeCount(likeCount != null ? likeCount : 0);
-            }
-        }
-
-        // 设置当前用户的点赞状态
-        if (currentUserId != null) {
-            enrichPostsWithLikeStatus(replies, currentUserId);
-        }
+        hydrateReplies(replies, currentUserId);
 
         return replies;
     }
@@ -473,6 +608,8 @@ public class ForumPostService {
 
         // 更新父内容的回复数 -1
         metricMapper.incrementMetric(reply.getParentId(), "reply_count", -1);
+        countCache.evict(REPLY_COUNT_KEY + reply.getParentId());
+        eventPublisher.publishEvent(new ForumContentEvent(ForumContentEvent.Type.REPLY_DELETED, reply.getParentId()));
     }
 
     /**
@@ -485,79 +622,216 @@ public class ForumPostService {
         return contentMapper.findById(contentId);
     }
 
+    // ========================================
+    // 游标（keyset）分页
+    // ========================================
+
+    /**
+     * 按游标获取帖子列表，翻到第 N 页与第 1 页代价相同
+     * @param cursor 上一页返回的 nextCursor，为空时取第一页
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<ForumContent> getPostListByCursor(String cursor, int size, Long currentUserId) {
+        size = normalizeSize(size);
+        PageCursor after = PageCursor.decode(cursor, hashIdUtil);
+
+        List<ForumContent> rows = contentMapper.findActivePostsAfter(
+                after != null ? after.getCreatedDate() : null,
+                after != null ? after.getContentId() : null,
+                size + 1);
+        CursorPage<ForumContent> page = toCursorPage(rows, size);
+
+        if (!page.getItems().isEmpty()) {
+            postAuthorEnricher.enrichPosts(page.getItems());
+            if (currentUserId != null) {
+                enrichPostsWithLikeStatus(page.getItems(), currentUserId);
+            }
+        }
+        return page;
+    }
+
     /**
-     * 初始化回复的统计数据
+     * 按游标获取用户的活跃帖子
      */
-    private void initializeReplyMetrics(Long replyId) {
-        try {
-            metricMapper.setMetricValue(replyId, "like_count", 0);
-        } catch (Exception e) {
-            log.error("初始化回复统计数据失败: {}", e.getMessage());
+    @Transactional(readOnly = true)
+    public CursorPage<ForumContent> getPostsByAuthorIdByCursor(Long authorId, String cursor, int size, Long currentUserId) {
+        if (authorId == null) {
+            throw new IllegalArgumentException("作者ID不能为空");
+        }
+        size = normalizeSize(size);
+        PageCursor after = PageCursor.decode(cursor, hashIdUtil);
+
+        List<ForumContent> rows = contentMapper.selectActiveByAuthorIdAfter(authorId,
+                after != null ? after.getCreatedDate() : null,
+                after != null ? after.getContentId() : null,
+                size + 1);
+        CursorPage<ForumContent> page = toCursorPage(rows, size);
+
+        if (!page.getItems().isEmpty()) {
+            postAuthorEnricher.enrichPostsWithSingleAuthor(page.getItems(), authorId);
+            if (currentUserId != null) {
+                enrichPostsWithLikeStatus(page.getItems(), currentUserId);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * 按游标获取帖子的回复（按时间正序）
+     */
+    public CursorPage<ForumContent> getRepliesByCursor(Long postId, String cursor, int size, Long currentUserId) {
+        if (postId == null) {
+            throw new IllegalArgumentException("帖子ID不能为空");
+        }
+        size = normalizeSize(size);
+        PageCursor after = PageCursor.decode(cursor, hashIdUtil);
+
+        List<ForumContent> rows = contentMapper.findChildrenAfter(postId,
+                after != null ? after.getCreatedDate() : null,
+                after != null ? after.getContentId() : null,
+                size + 1);
+        CursorPage<ForumContent> page = toCursorPage(rows, size);
+
+        if (!page.getItems().isEmpty()) {
+            hydrateReplies(page.getItems(), currentUserId);
         }
+        return page;
+    }
+
+    /**
+     * 活跃帖子总数（短期缓存）
+     */
+    public int getCachedPostCount() {
+        return countCache.get(POST_COUNT_KEY, contentMapper::countActivePosts);
+    }
+
+    /**
+     * 用户活跃帖子数（短期缓存）
+     */
+    public int getCachedPostCountByAuthorId(Long authorId) {
+        return countCache.get(AUTHOR_COUNT_KEY + authorId, () -> getPostCountByAuthorId(authorId));
+    }
+
+    /**
+     * 帖子回复数（短期缓存）
+     */
+    public int getCachedReplyCount(Long postId) {
+        return countCache.get(REPLY_COUNT_KEY + postId, () -> getReplyCountByPostId(postId));
+    }
+
+    private void evictPostCounts(Long authorId) {
+        countCache.evict(POST_COUNT_KEY);
+        countCache.evict(AUTHOR_COUNT_KEY + authorId);
+    }
+
+    /**
+     * 多取一条判断是否还有下一页，并用本页最后一条生成游标
+     */
+    private CursorPage<ForumContent> toCursorPage(List<ForumContent> rows, int size) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null, false);
+        }
+        List<ForumContent> items = new ArrayList<>(rows.subList(0, size));
+        ForumContent last = items.get(items.size() - 1);
+        String nextCursor = new PageCursor(last.getCreatedDate(), last.getContentId()).encode(hashIdUtil);
+        return new CursorPage<>(items, nextCursor, true);
     }
 
     // ========================================
-    // ⭐ 新增辅助方法: 用户信息填充
+    // 回复树（楼中楼）
     // ========================================
 
     /**
-     * 为单个帖子/回复填充用户信息
+     * 按页获取回复树：每页 size 个根回复，每个根回复附带按楼中楼顺序的前 previewChildren 条子孙回复
+     * 结果按深度优先顺序平铺返回，子孙回复没有取完的根回复 hasMoreChildren = true
      */
-    private void enrichSinglePostWithUserInfo(ForumContent content) {
-        if (content == null) {
-            return;
+    public CursorPage<ForumContent> getReplyTree(Long postId, String cursor, int size, int previewChildren,
+                                                 Long currentUserId) {
+        if (postId == null) {
+            throw new IllegalArgumentException("帖子ID不能为空");
         }
-
-        UserDTO author = userService.getUserById(content.getAuthorId());
-        if (author != null) {
-            content.setAuthorName(author.getUsername());
-            content.setAuthorAvatar(author.getAvatarUrl());
-            log.debug("填充用户信息 - 内容ID: {}, 用户: {}", content.getContentId(), author.getUsername());
-        } else {
-            content.setAuthorName("未知用户");
-            content.setAuthorAvatar(null);
-            log.warn("用户不存在 - 作者ID: {}", content.getAuthorId());
+        size = normalizeSize(size);
+        previewChildren = Math.max(0, Math.min(previewChildren, replyTreeMaxPreview));
+        String afterPath = decodeReplyTreeCursor(cursor);
+
+        // 多取一个根回复判断是否有下一页，每个根回复多取一条子孙判断是否还有更多
+        List<ForumContent> rows = contentMapper.findReplyTreePage(postId, afterPath, size + 1, previewChildren + 1);
+
+        List<ForumContent> items = new ArrayList<>(rows.size());
+        ForumContent root = null;
+        int roots = 0;
+        int descendants = 0;
+        boolean hasMore = false;
+        for (ForumContent row : rows) {
+            if (row.getReplyDepth() != null && row.getReplyDepth() == 0) {
+                if (++roots > size) {
+                    hasMore = true;
+                    break;
+                }
+                root = row;
+                root.setHasMoreChildren(false);
+                descendants = 0;
+                items.add(row);
+            } else if (root != null) {
+                if (++descendants <= previewChildren) {
+                    items.add(row);
+                } else {
+                    root.setHasMoreChildren(true);
+                }
+            }
         }
+
+        String nextCursor = hasMore ? encodeReplyTreeCursor(root.getReplyPath()) : null;
+        hydrateReplies(items, currentUserId);
+        return new CursorPage<>(items, nextCursor, hasMore);
     }
 
     /**
-     * 批量填充帖子/回复的用户信息
+     * 获取某条回复的整棵子树（含自身），按深度优先顺序分页
      */
-    private void enrichPostsWithUserInfo(List<ForumContent> contents) {
-        if (contents == null || contents.isEmpty()) {
-            return;
+    public CursorPage<ForumContent> getReplySubtree(Long postId, Long replyId, String cursor, int size,
+                                                    Long currentUserId) {
+        if (postId == null || replyId == null) {
+            throw new IllegalArgumentException("帖子ID和回复ID不能为空");
         }
+        size = normalizeSize(size);
+        String afterPath = decodeReplyTreeCursor(cursor);
 
-        // 1. 收集所有作者ID
-        List<Long> authorIds = contents.stream()
-                .map(ForumContent::getAuthorId)
-                .distinct()
-                .collect(Collectors.toList());
+        List<ForumContent> rows = contentMapper.findReplySubtree(postId, replyId, afterPath, size + 1);
+        if (rows.isEmpty() && afterPath == null) {
+            throw new RuntimeException("回复不存在");
+        }
 
-        log.info("批量查询用户信息 - 用户ID列表: {}", authorIds);
+        boolean hasMore = rows.size() > size;
+        List<ForumContent> items = hasMore ? new ArrayList<>(rows.subList(0, size)) : rows;
+        String nextCursor = hasMore ? encodeReplyTreeCursor(items.get(items.size() - 1).getReplyPath()) : null;
 
-        // 2. 批量查询用户
-        List<UserDTO> users = userService.getUsersByIds(authorIds);
-        Map<Long, UserDTO> userMap = users.stream()
-                .collect(Collectors.toMap(UserDTO::getUserId, user -> user));
+        hydrateReplies(items, currentUserId);
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
 
-        log.info("批量查询到 {} 个用户", users.size());
+    /**
+     * 回复树游标：路径上的 ID 序列经 HashIdUtil 编码
+     */
+    private String encodeReplyTreeCursor(String replyPath) {
+        return hashIdUtil.encodeMultipleIds(ReplyPath.ids(replyPath));
+    }
 
-        // 3. 填充用户信息到内容
-        contents.forEach(content -> {
-            UserDTO user = userMap.get(content.getAuthorId());
-            if (user != null) {
-                content.setAuthorName(user.getUsername());
-                content.setAuthorAvatar(user.getAvatarUrl());
-                log.debug("填充用户信息 - 内容ID: {}, 用户: {}", content.getContentId(), user.getUsername());
-            } else {
-                content.setAuthorName("未知用户");
-                content.setAuthorAvatar(null);
-                log.warn("用户不存在 - 作者ID: {}", content.getAuthorId());
-            }
-        });
+    private String decodeReplyTreeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        Long[] ids = hashIdUtil.decodeMultipleIds(cursor);
+        if (ids.length == 0) {
+            throw new IllegalArgumentException("无效的回复游标");
+        }
+        return ReplyPath.of(ids);
     }
 
+    // ========================================
+    // ⭐ 新增辅助方法: 点赞状态填充（作者信息由 PostAuthorEnricher 填充）
+    // ========================================
+
     /**
      * 批量填充点赞状态
      */
@@ -579,4 +853,63 @@ public class ForumPostService {
                 )
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * 填充一页回复的作者、被回复用户、点赞数和当前用户点赞状态
+     *
+     * 查询次数与页大小无关：
+     * - 回复行、点赞数、被回复内容的作者ID：回复列表 SQL 一次 JOIN 得到
+     * - 点赞数缺失时（SQL 未 JOIN 计数表）：一次批量查询
+     * - 当前用户点赞状态：一次 IN 查询
+     * - 作者与被回复用户资料：一次批量用户查询（经 UserProfileCache）
+     */
+    private void hydrateReplies(List<ForumContent> replies, Long currentUserId) {
+        if (replies == null || replies.isEmpty()) {
+            return;
+        }
+
+        List<Long> replyIds = new ArrayList<>(replies.size());
+        List<Long> missingLikeCounts = new ArrayList<>();
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (ForumContent reply : replies) {
+            replyIds.add(reply.getContentId());
+            if (reply.getLikeCount() == null) {
+                missingLikeCounts.add(reply.getContentId());
+            }
+            userIds.add(reply.getAuthorId());
+            if (reply.getReplyToAuthorId() != null) {
+                userIds.add(reply.getReplyToAuthorId());
+            }
+        }
+
+        LongIntOpenHashMap likeCounts = contentLikeService.batchGetLikeCounts(missingLikeCounts);
+        LongOpenHashSet liked = currentUserId != null
+                ? contentLikeService.findLikedContentIds(currentUserId, replyIds)
+                : null;
+        Map<Long, UserDTO> users = userService.getUsersByIds(new ArrayList<>(userIds)).stream()
+                .collect(Collectors.toMap(UserDTO::getUserId, user -> user, (a, b) -> a));
+
+        for (ForumContent reply : replies) {
+            long replyId = reply.getContentId();
+            if (reply.getLikeCount() == null) {
+                reply.setLikeCount(likeCounts.get(replyId, 0));
+            }
+            if (liked != null) {
+                reply.setIsLikedByCurrentUser(liked.contains(replyId));
+            }
+
+            UserDTO author = users.get(reply.getAuthorId());
+            if (author != null) {
+                reply.setAuthorName(author.getUsername());
+                reply.setAuthorAvatar(author.getAvatarUrl());
+            } else {
+                reply.setAuthorName("未知用户");
+                reply.setAuthorAvatar(null);
+                log.warn("用户不存在 - 作者ID: {}", reply.getAuthorId());
+            }
+
+            UserDTO replyToUser = reply.getReplyToAuthorId() != null ? users.get(reply.getReplyToAuthorId()) : null;
+            reply.setReplyToAuthorName(replyToUser != null ? replyToUser.getUsername() : null);
+        }
+    }
+}
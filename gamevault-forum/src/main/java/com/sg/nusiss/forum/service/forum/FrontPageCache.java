@@ -0,0 +1,311 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.entity.ForumContent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * 首页帖子列表快照
+ *
+ * 默认帖子列表的前 N 页对所有用户都一样（点赞状态除外），这里缓存已填充作者信息的快照，
+ * 每次请求只复制快照并由调用方叠加当前用户的点赞状态。
+ *
+ * 快照根据 ForumContentEvent 增量维护：
+ * - 发帖、批量导入：所有页失效
+ * - 删帖：该帖所在页及之后的页失效；编辑：只失效所在页
+ * - 点赞、回复：直接修改快照中对应帖子的计数，不重建
+ * 浏览量等其他变化依靠 TTL（forum.front-page.ttl-seconds）刷新。
+ *
+ * forum.front-page.mode=redis 时，结构性变更会递增 Redis 中的版本号，
+ * 其他实例发现版本号变化后丢弃本地快照。
+ */
+@Slf4j
+@Component
+public class FrontPageCache {
+
+    private static final String REDIS_VERSION_KEY = "forum:frontpage:version";
+
+    private final int cachedPages;
+    private final int pageSize;
+    private final long ttlMillis;
+    private final long versionCheckMillis;
+    private final StringRedisTemplate redisTemplate;
+
+    private final AtomicReferenceArray<Snapshot> pages;
+    private final Object[] pageLocks;
+    // 每次结构性失效递增，用于丢弃失效前开始加载的快照
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile long knownRemoteVersion;
+    private volatile long remoteVersionCheckedAt;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public FrontPageCache(
+            @Value("${forum.front-page.cached-pages:3}") int cachedPages,
+            @Value("${forum.front-page.page-size:20}") int pageSize,
+            @Value("${forum.front-page.ttl-seconds:15}") long ttlSeconds,
+            @Value("${forum.front-page.mode:memory}") String mode,
+            @Value("${forum.front-page.version-check-ms:1000}") long versionCheckMillis,
+            ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+            MeterRegistry meterRegistry) {
+        this.cachedPages = Math.max(0, cachedPages);
+        this.pageSize = pageSize;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.versionCheckMillis = versionCheckMillis;
+        this.redisTemplate = "redis".equalsIgnoreCase(mode) ? redisTemplateProvider.getIfAvailable() : null;
+        this.pages = new AtomicReferenceArray<>(this.cachedPages);
+        this.pageLocks = new Object[this.cachedPages];
+        for (int i = 0; i < this.cachedPages; i++) {
+            pageLocks[i] = new Object();
+        }
+
+        if ("redis".equalsIgnoreCase(mode) && redisTemplate == null) {
+            log.warn("首页快照配置为 redis 模式，但没有可用的 StringRedisTemplate，只在本实例内失效");
+        }
+
+        this.hits = Counter.builder("forum.frontpage.requests")
+                .description("首页快照请求数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("forum.frontpage.requests")
+                .description("首页快照请求数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 该页是否走快照（只缓存默认每页大小的前 N 页）
+     */
+    public boolean isCacheable(int page, int size) {
+        return page >= 0 && page < cachedPages && size == pageSize;
+    }
+
+    /**
+     * 获取某页快照的副本，快照不存在或过期时调用 loader 重建
+     */
+    public List<ForumContent> getPage(int page, Supplier<List<ForumContent>> loader) {
+        syncRemoteVersion();
+
+        Snapshot snapshot = pages.get(page);
+        if (snapshot != null && !snapshot.isExpired()) {
+            hits.increment();
+            return copyOf(snapshot.posts);
+        }
+
+        // 同一页只允许一个线程重建，其他线程等待后直接使用新快照
+        synchronized (pageLocks[page]) {
+            snapshot = pages.get(page);
+            if (snapshot != null && !snapshot.isExpired()) {
+                hits.increment();
+                return copyOf(snapshot.posts);
+            }
+
+            misses.increment();
+            long loadGeneration = generation.get();
+            List<ForumContent> posts = loader.get();
+            Snapshot rebuilt = new Snapshot(Collections.unmodifiableList(copyOf(posts)),
+                    System.currentTimeMillis() + ttlMillis);
+            // 加载期间发生过结构性变更时不缓存，避免把旧数据放回去；
+            // 只读事务中加载的可能来自有延迟的从库，也不缓存
+            if (generation.get() == loadGeneration
+                    && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                pages.set(page, rebuilt);
+            }
+            return copyOf(rebuilt.posts);
+        }
+    }
+
+    /**
+     * 内容变更时增量维护快照（事务提交后执行）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentEvent(ForumContentEvent event) {
+        Long contentId = event.getContentId();
+        switch (event.getType()) {
+            case POST_CREATED:
+            case BULK_IMPORTED:
+                invalidateFrom(0);
+                publishRemoteVersion();
+                break;
+            case POST_DELETED: {
+                int page = pageOf(contentId);
+                if (page >= 0) {
+                    invalidateFrom(page);
+                }
+                publishRemoteVersion();
+                break;
+            }
+            case POST_UPDATED: {
+                int page = pageOf(contentId);
+                if (page >= 0) {
+                    generation.incrementAndGet();
+                    pages.set(page, null);
+                }
+                publishRemoteVersion();
+                break;
+            }
+            case REPLY_CREATED:
+                adjustCounts(contentId, 0, 1);
+                break;
+            case REPLY_DELETED:
+                adjustCounts(contentId, 0, -1);
+                break;
+            case LIKED:
+                adjustCounts(contentId, 1, 0);
+                break;
+            case UNLIKED:
+                adjustCounts(contentId, -1, 0);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 清空所有快照
+     */
+    public void invalidateAll() {
+        invalidateFrom(0);
+    }
+
+    private void invalidateFrom(int fromPage) {
+        generation.incrementAndGet();
+        for (int i = fromPage; i < cachedPages; i++) {
+            pages.set(i, null);
+        }
+    }
+
+    private int pageOf(Long contentId) {
+        for (int i = 0; i < cachedPages; i++) {
+            Snapshot snapshot = pages.get(i);
+            if (snapshot != null && snapshot.indexOf(contentId) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 修改快照中某个帖子的点赞数/回复数（写时复制，读线程拿到的快照不会被改动）
+     */
+    private void adjustCounts(Long contentId, int likeDelta, int replyDelta) {
+        for (int i = 0; i < cachedPages; i++) {
+            while (true) {
+                Snapshot snapshot = pages.get(i);
+                int index = snapshot != null ? snapshot.indexOf(contentId) : -1;
+                if (index < 0) {
+                    break;
+                }
+
+                ForumContent patched = snapshot.posts.get(index).copy();
+                patched.setLikeCount(Math.max(0, nullToZero(patched.getLikeCount()) + likeDelta));
+                patched.setReplyCount(Math.max(0, nullToZero(patched.getReplyCount()) + replyDelta));
+
+                List<ForumContent> posts = new ArrayList<>(snapshot.posts);
+                posts.set(index, patched);
+                Snapshot updated = new Snapshot(Collections.unmodifiableList(posts), snapshot.expiresAt);
+                if (pages.compareAndSet(i, snapshot, updated)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * redis 模式：递增共享版本号，通知其他实例丢弃快照
+     */
+    private void publishRemoteVersion() {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            Long version = redisTemplate.opsForValue().increment(REDIS_VERSION_KEY);
+            if (version != null) {
+                if (version != knownRemoteVersion + 1) {
+                    // 期间其他实例也有变更，本地快照全部作废
+                    invalidateFrom(0);
+                }
+                knownRemoteVersion = version;
+            }
+        } catch (Exception e) {
+            log.warn("发布首页快照版本失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * redis 模式：最多每 version-check-ms 检查一次共享版本号
+     */
+    private void syncRemoteVersion() {
+        if (redisTemplate == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - remoteVersionCheckedAt < versionCheckMillis) {
+            return;
+        }
+        remoteVersionCheckedAt = now;
+
+        try {
+            String value = redisTemplate.opsForValue().get(REDIS_VERSION_KEY);
+            long version = value != null ? Long.parseLong(value) : 0L;
+            if (version != knownRemoteVersion) {
+                invalidateFrom(0);
+                knownRemoteVersion = version;
+            }
+        } catch (Exception e) {
+            log.warn("读取首页快照版本失败: {}", e.getMessage());
+        }
+    }
+
+    private static List<ForumContent> copyOf(List<ForumContent> posts) {
+        List<ForumContent> copies = new ArrayList<>(posts.size());
+        for (ForumContent post : posts) {
+            copies.add(post.copy());
+        }
+        return copies;
+    }
+
+    private static int nullToZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static final class Snapshot {
+        final List<ForumContent> posts;
+        final long expiresAt;
+
+        Snapshot(List<ForumContent> posts, long expiresAt) {
+            this.posts = posts;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return expiresAt <= System.currentTimeMillis();
+        }
+
+        int indexOf(Long contentId) {
+            for (int i = 0; i < posts.size(); i++) {
+                if (posts.get(i).getContentId().equals(contentId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
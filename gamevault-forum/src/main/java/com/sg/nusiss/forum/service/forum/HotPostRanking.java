@@ -0,0 +1,378 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.entity.ForumContent;
+import com.sg.nusiss.forum.repository.ForumContentMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热帖排行
+ *
+ * 分数 = Σ 权重 × 2^((事件时间 - anchor) / 半衰期)，即按时间指数衰减的加权互动量。
+ * 所有帖子的分数同比例衰减，因此不需要定期重算：新事件只需把带时间系数的权重累加到分数上，
+ * 排名与"当前时刻衰减后的分数"完全一致。anchor 每 64 个半衰期前移一次，防止系数溢出。
+ *
+ * 数据来源：
+ * - 发帖、删帖、点赞、回复：ForumContentEvent
+ * - 浏览：ViewsFlushedEvent（ViewCountBuffer 每轮刷新一次）
+ * - 定时任务从 content_counters 补充本实例没有见过的近期帖子（启动、其他实例发帖等）
+ *
+ * 两种模式（forum.hot.mode）：
+ * - memory：本地按分数排序的有序集合，最多保留 max-tracked 个帖子
+ * - redis：ZSET（key 按 anchor 分代），多实例共享；Redis 出错时读取本地排行
+ */
+@Slf4j
+@Component
+public class HotPostRanking {
+
+    private static final String REDIS_KEY_PREFIX = "forum:hot:posts:";
+    private static final int ANCHOR_HALF_LIVES = 64;
+    // 预热失败后的重试间隔
+    private static final long WARM_RETRY_MILLIS = 30_000;
+
+    // 只给已在榜中的帖子加分（ZADD XX INCR），不把回复或过期帖子带进来；
+    // 负增量（取消点赞等）后分数最低为 0，与本地排行一致
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #ARGV, 2 do\n"
+                    + "  local score = redis.call('ZADD', KEYS[1], 'XX', 'INCR', ARGV[i + 1], ARGV[i])\n"
+                    + "  if score and tonumber(score) < 0 then redis.call('ZADD', KEYS[1], 'XX', 0, ARGV[i]) end\n"
+                    + "end\n"
+                    + "return #ARGV / 2", Long.class);
+
+    private final ForumContentMapper contentMapper;
+    private final StringRedisTemplate redisTemplate;
+
+    private final long halfLifeMillis;
+    private final long anchorPeriodMillis;
+    private final int windowDays;
+    private final int maxTracked;
+    private final double postWeight;
+    private final double viewWeight;
+    private final double likeWeight;
+    private final double replyWeight;
+
+    // 本地排行：postId -> 条目；ranking 按分数降序
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(
+            Comparator.comparingDouble((Entry e) -> e.score).reversed()
+                    .thenComparing((Entry e) -> e.postId, Comparator.reverseOrder()));
+    private long anchorMillis;
+    private volatile boolean warmed;
+    private volatile long lastWarmAttempt;
+
+    public HotPostRanking(
+            ForumContentMapper contentMapper,
+            @Value("${forum.hot.mode:memory}") String mode,
+            @Value("${forum.hot.half-life-hours:6}") double halfLifeHours,
+            @Value("${forum.hot.window-days:7}") int windowDays,
+            @Value("${forum.hot.max-tracked:5000}") int maxTracked,
+            @Value("${forum.hot.weight-post:5}") double postWeight,
+            @Value("${forum.hot.weight-view:1}") double viewWeight,
+            @Value("${forum.hot.weight-like:5}") double likeWeight,
+            @Value("${forum.hot.weight-reply:10}") double replyWeight,
+            ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+            MeterRegistry meterRegistry) {
+        this.contentMapper = contentMapper;
+        this.redisTemplate = "redis".equalsIgnoreCase(mode) ? redisTemplateProvider.getIfAvailable() : null;
+        this.halfLifeMillis = Math.max(1L, (long) (halfLifeHours * TimeUnit.HOURS.toMillis(1)));
+        this.anchorPeriodMillis = halfLifeMillis * ANCHOR_HALF_LIVES;
+        this.windowDays = windowDays;
+        this.maxTracked = Math.max(1, maxTracked);
+        this.postWeight = postWeight;
+        this.viewWeight = viewWeight;
+        this.likeWeight = likeWeight;
+        this.replyWeight = replyWeight;
+        this.anchorMillis = anchorFor(System.currentTimeMillis());
+
+        if ("redis".equalsIgnoreCase(mode) && redisTemplate == null) {
+            log.warn("热榜配置为 redis 模式，但没有可用的 StringRedisTemplate，使用本地排行");
+        }
+
+        Gauge.builder("forum.hot.tracked", this, HotPostRanking::getTrackedCount)
+                .description("本地热榜跟踪的帖子数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取热度最高的 K 个帖子ID（按热度降序）
+     */
+    public List<Long> getTopPostIds(int k) {
+        if (!warmed && System.currentTimeMillis() - lastWarmAttempt > WARM_RETRY_MILLIS) {
+            refreshFromDatabase();
+        }
+
+        if (redisTemplate != null) {
+            try {
+                Set<String> members = redisTemplate.opsForZSet().reverseRange(redisKey(currentAnchor()), 0, k - 1);
+                if (members != null && !members.isEmpty()) {
+                    List<Long> ids = new ArrayList<>(members.size());
+                    for (String member : members) {
+                        ids.add(Long.parseLong(member));
+                    }
+                    return ids;
+                }
+            } catch (Exception e) {
+                log.warn("读取 Redis 热榜失败，使用本地排行: {}", e.getMessage());
+            }
+        }
+
+        synchronized (this) {
+            List<Long> ids = new ArrayList<>(Math.min(k, ranking.size()));
+            Iterator<Entry> iterator = ranking.iterator();
+            while (iterator.hasNext() && ids.size() < k) {
+                ids.add(iterator.next().postId);
+            }
+            return ids;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onContentEvent(ForumContentEvent event) {
+        Long contentId = event.getContentId();
+        switch (event.getType()) {
+            case POST_CREATED:
+                addPost(contentId, postWeight, System.currentTimeMillis());
+                break;
+            case POST_DELETED:
+                removePost(contentId);
+                break;
+            case LIKED:
+                increment(Map.of(contentId, likeWeight));
+                break;
+            case UNLIKED:
+                increment(Map.of(contentId, -likeWeight));
+                break;
+            case REPLY_CREATED:
+                increment(Map.of(contentId, replyWeight));
+                break;
+            case REPLY_DELETED:
+                increment(Map.of(contentId, -replyWeight));
+                break;
+            default:
+                break;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onViewsFlushed(ViewsFlushedEvent event) {
+        Map<Long, Double> weights = new HashMap<>();
+        event.getDeltas().forEach((postId, delta) -> weights.put(postId, delta * viewWeight));
+        increment(weights);
+    }
+
+    /**
+     * 从 content_counters 补充近期帖子（由定时任务调用）
+     * 已在榜中的帖子保留增量累计的分数，只补充缺失的帖子；同时裁剪榜单大小
+     */
+    public void refreshFromDatabase() {
+        long now = System.currentTimeMillis();
+        lastWarmAttempt = now;
+        List<ForumContent> candidates;
+        try {
+            candidates = contentMapper.findHotCandidates(LocalDateTime.now().minusDays(windowDays), maxTracked);
+        } catch (Exception e) {
+            log.warn("加载热榜候选帖子失败: {}", e.getMessage());
+            return;
+        }
+
+        long anchor = currentAnchor();
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        for (ForumContent post : candidates) {
+            long createdAt = post.getCreatedDate() != null
+                    ? post.getCreatedDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : now;
+            // 历史互动的发生时间未知，近似为发帖时刻
+            double weight = postWeight
+                    + viewWeight * nullToZero(post.getViewCount())
+                    + likeWeight * nullToZero(post.getLikeCount())
+                    + replyWeight * nullToZero(post.getReplyCount());
+            scores.put(post.getContentId(), weight * decayFactor(createdAt, anchor));
+        }
+
+        synchronized (this) {
+            scores.forEach((postId, score) -> {
+                if (!entries.containsKey(postId)) {
+                    put(postId, score);
+                }
+            });
+            trim();
+        }
+
+        if (redisTemplate != null && !scores.isEmpty()) {
+            try {
+                String key = redisKey(anchor);
+                Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+                scores.forEach((postId, score) -> tuples.add(ZSetOperations.TypedTuple.of(postId.toString(), score)));
+                redisTemplate.opsForZSet().addIfAbsent(key, tuples);
+                redisTemplate.opsForZSet().removeRange(key, 0, -(maxTracked + 1L));
+                redisTemplate.expire(key, 2 * anchorPeriodMillis, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                log.warn("同步 Redis 热榜失败: {}", e.getMessage());
+            }
+        }
+
+        warmed = true;
+        log.debug("热榜候选已刷新 - 候选数: {}, 本地跟踪数: {}", scores.size(), getTrackedCount());
+    }
+
+    public synchronized int getTrackedCount() {
+        return entries.size();
+    }
+
+    private void addPost(Long postId, double weight, long eventMillis) {
+        long anchor = currentAnchor();
+        double score = weight * decayFactor(eventMillis, anchor);
+        synchronized (this) {
+            put(postId, score);
+            trim();
+        }
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForZSet().add(redisKey(anchor), postId.toString(), score);
+            } catch (Exception e) {
+                log.warn("写入 Redis 热榜失败 - postId: {}, 错误: {}", postId, e.getMessage());
+            }
+        }
+    }
+
+    private void removePost(Long postId) {
+        synchronized (this) {
+            Entry entry = entries.remove(postId);
+            if (entry != null) {
+                ranking.remove(entry);
+            }
+        }
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.opsForZSet().remove(redisKey(currentAnchor()), postId.toString());
+            } catch (Exception e) {
+                log.warn("从 Redis 热榜移除失败 - postId: {}, 错误: {}", postId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 给已在榜中的帖子加分（不在榜中的ID忽略，例如回复、过期帖子）
+     */
+    private void increment(Map<Long, Double> weights) {
+        if (weights.isEmpty()) {
+            return;
+        }
+        long anchor = currentAnchor();
+        double factor = decayFactor(System.currentTimeMillis(), anchor);
+
+        synchronized (this) {
+            weights.forEach((postId, weight) -> {
+                Entry entry = entries.get(postId);
+                if (entry != null) {
+                    ranking.remove(entry);
+                    entry.score = Math.max(0, entry.score + weight * factor);
+                    ranking.add(entry);
+                }
+            });
+        }
+
+        if (redisTemplate != null) {
+            List<String> args = new ArrayList<>(weights.size() * 2);
+            weights.forEach((postId, weight) -> {
+                args.add(postId.toString());
+                args.add(Double.toString(weight * factor));
+            });
+            try {
+                redisTemplate.execute(INCREMENT_SCRIPT, List.of(redisKey(anchor)), args.toArray());
+            } catch (Exception e) {
+                log.warn("更新 Redis 热榜失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void put(Long postId, double score) {
+        Entry entry = entries.get(postId);
+        if (entry != null) {
+            ranking.remove(entry);
+            entry.score = score;
+        } else {
+            entry = new Entry(postId, score);
+            entries.put(postId, entry);
+        }
+        ranking.add(entry);
+    }
+
+    /**
+     * 超出上限时丢弃分数最低的帖子
+     */
+    private void trim() {
+        while (entries.size() > maxTracked) {
+            Entry lowest = ranking.pollLast();
+            entries.remove(lowest.postId);
+        }
+    }
+
+    /**
+     * 当前 anchor；跨过 anchor 周期时把本地分数整体缩放到新 anchor（排名不变）
+     */
+    private synchronized long currentAnchor() {
+        long anchor = anchorFor(System.currentTimeMillis());
+        if (anchor != anchorMillis) {
+            double scale = decayFactor(anchorMillis, anchor);
+            List<Entry> all = new ArrayList<>(ranking);
+            ranking.clear();
+            for (Entry entry : all) {
+                entry.score *= scale;
+                ranking.add(entry);
+            }
+            anchorMillis = anchor;
+            // Redis 使用新的分代 key，需要从数据库重新填充
+            warmed = redisTemplate == null;
+        }
+        return anchorMillis;
+    }
+
+    private long anchorFor(long millis) {
+        return Math.floorDiv(millis, anchorPeriodMillis) * anchorPeriodMillis;
+    }
+
+    private double decayFactor(long eventMillis, long anchor) {
+        return Math.pow(2.0, (double) (eventMillis - anchor) / halfLifeMillis);
+    }
+
+    private String redisKey(long anchor) {
+        return REDIS_KEY_PREFIX + (anchor / anchorPeriodMillis);
+    }
+
+    private static int nullToZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static final class Entry {
+        final long postId;
+        double score;
+
+        Entry(long postId, double score) {
+            this.postId = postId;
+            this.score = score;
+        }
+    }
+}
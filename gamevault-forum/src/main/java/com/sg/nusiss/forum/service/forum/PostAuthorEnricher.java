@@ -0,0 +1,86 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.forum.entity.ForumContent;
+import com.sg.nusiss.forum.service.user.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 为帖子/回复填充作者信息（用户名、头像）
+ *
+ * 只依赖 UserService，用户查询经 UserProfileCache；查不到的作者显示为"未知用户"。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostAuthorEnricher {
+
+    private static final String UNKNOWN_USER = "未知用户";
+
+    private final UserService userService;
+
+    /**
+     * 为单个帖子/回复填充用户信息
+     */
+    public void enrichPost(ForumContent content) {
+        if (content == null) {
+            return;
+        }
+
+        UserDTO author = userService.getUserById(content.getAuthorId());
+        fill(content, author, content.getAuthorId());
+    }
+
+    /**
+     * 批量填充帖子/回复的用户信息（作者去重后一次批量查询）
+     */
+    public void enrichPosts(List<ForumContent> contents) {
+        if (contents == null || contents.isEmpty()) {
+            return;
+        }
+
+        // 1. 收集所有作者ID
+        List<Long> authorIds = contents.stream()
+                .map(ForumContent::getAuthorId)
+                .distinct()
+                .collect(Collectors.toList());
+
+        log.debug("批量查询用户信息 - 用户ID列表: {}", authorIds);
+
+        // 2. 批量查询用户
+        List<UserDTO> users = userService.getUsersByIds(authorIds);
+        Map<Long, UserDTO> userMap = users.stream()
+                .collect(Collectors.toMap(UserDTO::getUserId, user -> user));
+
+        log.debug("批量查询到 {} 个用户", users.size());
+
+        // 3. 填充用户信息到内容
+        contents.forEach(content -> fill(content, userMap.get(content.getAuthorId()), content.getAuthorId()));
+    }
+
+    /**
+     * 为同一作者的多个帖子填充作者信息（只查一次）
+     */
+    public void enrichPostsWithSingleAuthor(List<ForumContent> posts, Long authorId) {
+        UserDTO author = userService.getUserById(authorId);
+        posts.forEach(post -> fill(post, author, authorId));
+    }
+
+    private static void fill(ForumContent content, UserDTO author, Long authorId) {
+        if (author != null) {
+            content.setAuthorName(author.getUsername());
+            content.setAuthorAvatar(author.getAvatarUrl());
+            log.debug("填充用户信息 - 内容ID: {}, 用户: {}", content.getContentId(), author.getUsername());
+        } else {
+            content.setAuthorName(UNKNOWN_USER);
+            content.setAuthorAvatar(null);
+            log.warn("用户不存在 - 作者ID: {}", authorId);
+        }
+    }
+}
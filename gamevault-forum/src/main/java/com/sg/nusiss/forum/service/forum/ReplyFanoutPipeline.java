@@ -0,0 +1,300 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.entity.ContentMetric;
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 回复创建后的异步扇出
+ *
+ * 创建回复的请求线程只做校验和一次 INSERT，其余步骤按提交顺序交给单个后台线程批量处理：
+ * 1. 初始化新回复的 like_count（一条批量语句）
+ * 2. 按帖子聚合后增加帖子的 reply_count（一条批量语句）
+ * 3. 失效回复总数缓存，发布 REPLY_CREATED 事件（首页快照、热榜）
+ * 4. 发布 ReplyNotificationEvent 通知楼主和被回复者（由 ReplyNotificationListener 接收）
+ *
+ * 队列有界（forum.reply-pipeline.queue-capacity），队列满时由提交线程自己处理该回复，
+ * 让写入速度自然降到数据库能承受的水平；请求线程上每一步只尝试一次、不做退避等待。
+ * 后台线程上数据库步骤失败会按退避重试，重试用尽后只记录指标和日志，
+ * 偏差由 ForumCounterService 的定时对账修正。
+ */
+@Slf4j
+@Service
+public class ReplyFanoutPipeline {
+
+    private static final String LIKE_COUNT = "like_count";
+    private static final String REPLY_COUNT = "reply_count";
+
+    private final ForumMetricMapper metricMapper;
+    private final ForumCountCache countCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final BlockingQueue<ReplyCreated> queue;
+    private final int batchSize;
+    private final long offerTimeoutMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    private final Timer batchTimer;
+    private final Counter processed;
+    private final Counter failures;
+    private final Counter callerRuns;
+
+    public ReplyFanoutPipeline(
+            ForumMetricMapper metricMapper,
+            ForumCountCache countCache,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${forum.reply-pipeline.queue-capacity:10000}") int queueCapacity,
+            @Value("${forum.reply-pipeline.batch-size:200}") int batchSize,
+            @Value("${forum.reply-pipeline.offer-timeout-ms:50}") long offerTimeoutMillis,
+            @Value("${forum.reply-pipeline.max-attempts:3}") int maxAttempts,
+            @Value("${forum.reply-pipeline.retry-backoff-ms:200}") long retryBackoffMillis) {
+        this.metricMapper = metricMapper;
+        this.countCache = countCache;
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+
+        this.batchTimer = Timer.builder("forum.reply.pipeline.batch")
+                .description("回复扇出批处理耗时")
+                .register(meterRegistry);
+        this.processed = Counter.builder("forum.reply.pipeline.processed")
+                .description("已完成扇出的回复数")
+                .register(meterRegistry);
+        this.failures = Counter.builder("forum.reply.pipeline.failures")
+                .description("重试用尽仍失败的扇出步骤数")
+                .register(meterRegistry);
+        this.callerRuns = Counter.builder("forum.reply.pipeline.caller.runs")
+                .description("队列已满、由请求线程直接处理的回复数")
+                .register(meterRegistry);
+        Gauge.builder("forum.reply.pipeline.queued", queue, BlockingQueue::size)
+                .description("等待扇出的回复数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::runLoop, "forum-reply-fanout");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 提交一条已写入数据库的回复
+     *
+     * @param replyId       新回复ID
+     * @param postId        所属帖子ID
+     * @param authorId      回复者
+     * @param postAuthorId  楼主
+     * @param replyToAuthorId 被回复者（直接回复帖子时为 null）
+     */
+    public void submit(Long replyId, Long postId, Long authorId, Long postAuthorId, Long replyToAuthorId) {
+        ReplyCreated task = new ReplyCreated(replyId, postId, authorId, postAuthorId, replyToAuthorId);
+
+        if (running) {
+            try {
+                if (queue.offer(task, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            callerRuns.increment();
+            log.warn("回复扇出队列已满，由请求线程直接处理 - 回复ID: {}", replyId);
+        }
+        // 请求线程上只尝试一次，失败交给定时对账
+        process(List.of(task), 1);
+    }
+
+    /**
+     * 等待扇出的回复数
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * 应用关闭前处理完队列中剩余的回复
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<ReplyCreated> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.info("应用关闭前处理剩余 {} 条回复扇出", remaining.size());
+            process(remaining);
+        }
+    }
+
+    private void runLoop() {
+        List<ReplyCreated> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                ReplyCreated first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("回复扇出批处理异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 处理一批回复（按提交顺序）
+     */
+    void process(List<ReplyCreated> batch) {
+        process(batch, maxAttempts);
+    }
+
+    private void process(List<ReplyCreated> batch, int attempts) {
+        long start = System.nanoTime();
+        try {
+            // 1. 新回复的 like_count 初始为 0（增量为 0，已存在的行不受影响，可安全重试）
+            List<ContentMetric> replyRows = new ArrayList<>(batch.size());
+            // 2. 按帖子聚合回复数增量，按 content_id 排序保证多实例加锁顺序一致
+            Map<Long, Integer> replyDeltas = new TreeMap<>();
+            for (ReplyCreated task : batch) {
+                replyRows.add(new ContentMetric(task.replyId, null, 0));
+                replyDeltas.merge(task.postId, 1, Integer::sum);
+            }
+            replyRows.sort(Comparator.comparing(ContentMetric::getContentId));
+
+            List<ContentMetric> postRows = new ArrayList<>(replyDeltas.size());
+            replyDeltas.forEach((postId, delta) -> postRows.add(new ContentMetric(postId, null, delta)));
+
+            withRetry("初始化回复统计", batch.size(), attempts,
+                    () -> metricMapper.batchIncrementMetric(LIKE_COUNT, replyRows));
+            withRetry("更新帖子回复数", batch.size(), attempts,
+                    () -> metricMapper.batchIncrementMetric(REPLY_COUNT, postRows));
+
+            // 3. 读缓存失效（每条回复一个事件，快照和热榜按条累加）
+            for (Long postId : replyDeltas.keySet()) {
+                countCache.evict(ForumPostService.REPLY_COUNT_KEY + postId);
+            }
+            for (ReplyCreated task : batch) {
+                publish(new ForumContentEvent(ForumContentEvent.Type.REPLY_CREATED, task.postId));
+            }
+
+            // 4. 通知
+            for (ReplyCreated task : batch) {
+                Set<Long> recipients = task.recipients();
+                if (!recipients.isEmpty()) {
+                    publish(new ReplyNotificationEvent(task.replyId, task.postId, task.authorId, recipients));
+                }
+            }
+
+            processed.increment(batch.size());
+            log.debug("回复扇出完成 - 回复数: {}, 帖子数: {}", batch.size(), replyDeltas.size());
+        } finally {
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 执行一个数据库步骤，失败时按退避重试（每一步都是单条语句，失败不会部分生效）
+     */
+    private void withRetry(String step, int batchCount, int attempts, Runnable action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                action.run();
+                return;
+            } catch (Exception e) {
+                if (attempt >= attempts) {
+                    failures.increment();
+                    log.error("回复扇出步骤失败，已重试 {} 次，等待定时对账修正 - 步骤: {}, 回复数: {}, 错误: {}",
+                            attempt, step, batchCount, e.getMessage());
+                    return;
+                }
+                log.warn("回复扇出步骤失败，第 {} 次重试 - 步骤: {}, 错误: {}", attempt, step, e.getMessage());
+                try {
+                    Thread.sleep(retryBackoffMillis * attempt);
+                } catch (InterruptedException ie) {
+                    // 关闭过程中不再等待，直接再试一次
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void publish(Object event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            log.warn("回复扇出事件处理失败 - 事件: {}, 错误: {}", event, e.getMessage());
+        }
+    }
+
+    static final class ReplyCreated {
+        final Long replyId;
+        final Long postId;
+        final Long authorId;
+        final Long postAuthorId;
+        final Long replyToAuthorId;
+
+        ReplyCreated(Long replyId, Long postId, Long authorId, Long postAuthorId, Long replyToAuthorId) {
+            this.replyId = replyId;
+            this.postId = postId;
+            this.authorId = authorId;
+            this.postAuthorId = postAuthorId;
+            this.replyToAuthorId = replyToAuthorId;
+        }
+
+        Set<Long> recipients() {
+            Set<Long> recipients = new LinkedHashSet<>();
+            if (postAuthorId != null && !postAuthorId.equals(authorId)) {
+                recipients.add(postAuthorId);
+            }
+            if (replyToAuthorId != null && !replyToAuthorId.equals(authorId)) {
+                recipients.add(replyToAuthorId);
+            }
+            return recipients;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.sg.nusiss.forum.service.forum;
+
+import java.util.Set;
+
+/**
+ * 回复通知事件
+ * ReplyFanoutPipeline 在回复的计数更新完成后发布，recipientIds 为需要通知的用户（楼主、被回复者，不含回复者本人）
+ */
+public class ReplyNotificationEvent {
+
+    private final Long replyId;
+    private final Long postId;
+    private final Long authorId;
+    private final Set<Long> recipientIds;
+
+    public ReplyNotificationEvent(Long replyId, Long postId, Long authorId, Set<Long> recipientIds) {
+        this.replyId = replyId;
+        this.postId = postId;
+        this.authorId = authorId;
+        this.recipientIds = recipientIds;
+    }
+
+    public Long getReplyId() {
+        return replyId;
+    }
+
+    public Long getPostId() {
+        return postId;
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public Set<Long> getRecipientIds() {
+        return recipientIds;
+    }
+
+    @Override
+    public String toString() {
+        return "ReplyNotificationEvent{replyId=" + replyId + ", postId=" + postId
+                + ", authorId=" + authorId + ", recipientIds=" + recipientIds + '}';
+    }
+}
@@ -0,0 +1,33 @@
+package com.sg.nusiss.forum.service.forum;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 回复通知的接收端
+ *
+ * 论坛目前没有站内信或推送通道，这里只记录日志和指标（forum.reply.notifications），
+ * 接入通知通道时替换 onReplyNotification 的实现即可，ReplyFanoutPipeline 不需要改动。
+ */
+@Slf4j
+@Component
+public class ReplyNotificationListener {
+
+    private final Counter notifications;
+
+    public ReplyNotificationListener(MeterRegistry meterRegistry) {
+        this.notifications = Counter.builder("forum.reply.notifications")
+                .description("回复产生的通知数（每个接收者一条）")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onReplyNotification(ReplyNotificationEvent event) {
+        notifications.increment(event.getRecipientIds().size());
+        log.info("回复通知 - 帖子ID: {}, 回复ID: {}, 回复者: {}, 接收者: {}",
+                event.getPostId(), event.getReplyId(), event.getAuthorId(), event.getRecipientIds());
+    }
+}
@@ -0,0 +1,178 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.entity.ContentMetric;
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 浏览量写缓冲（write-behind）
+ *
+ * 浏览量只在内存中按帖子累加（LongAdder，无锁），由定时任务每隔几秒把
+ * 聚合后的增量用一条批量语句写入 content_metrics / content_counters，
+ * 应用关闭时也会最后刷新一次。
+ */
+@Slf4j
+@Service
+public class ViewCountBuffer {
+
+    private static final String VIEW_COUNT = "view_count";
+
+    private final ForumMetricMapper metricMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // postId -> 未刷新的浏览增量
+    private final Map<Long, LongAdder> pending = new ConcurrentHashMap<>();
+
+    // 上一轮被移除的空闲计数器，下一轮再收一次尾巴，避免并发写入丢失
+    private List<Map.Entry<Long, LongAdder>> retired = new ArrayList<>();
+
+    private final Timer flushTimer;
+    private final Counter flushedViews;
+    private final Counter failedFlushes;
+
+    public ViewCountBuffer(ForumMetricMapper metricMapper, ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry) {
+        this.metricMapper = metricMapper;
+        this.eventPublisher = eventPublisher;
+        this.flushTimer = Timer.builder("forum.views.flush")
+                .description("浏览量批量刷新耗时")
+                .register(meterRegistry);
+        this.flushedViews = Counter.builder("forum.views.flushed")
+                .description("已写入数据库的浏览量")
+                .register(meterRegistry);
+        this.failedFlushes = Counter.builder("forum.views.flush.failures")
+                .description("浏览量刷新失败次数")
+                .register(meterRegistry);
+        Gauge.builder("forum.views.buffered", this, ViewCountBuffer::getBufferedViews)
+                .description("缓冲中尚未刷新的浏览量")
+                .register(meterRegistry);
+        Gauge.builder("forum.views.buffered.posts", pending, Map::size)
+                .description("缓冲中的帖子数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次浏览
+     */
+    public void increment(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        pending.computeIfAbsent(postId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * 获取某帖子尚未刷新的浏览增量
+     */
+    public long getPending(Long postId) {
+        LongAdder adder = pending.get(postId);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * 把缓冲中的增量批量写入数据库
+     *
+     * @return 本次写入的浏览量
+     */
+    public synchronized long flush() {
+        Map<Long, Long> deltas = new HashMap<>();
+        List<Map.Entry<Long, LongAdder>> idle = new ArrayList<>();
+
+        for (Map.Entry<Long, LongAdder> entry : retired) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.merge(entry.getKey(), delta, Long::sum);
+            }
+        }
+
+        for (Map.Entry<Long, LongAdder> entry : pending.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.merge(entry.getKey(), delta, Long::sum);
+            } else {
+                idle.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        // 连续一个周期没有浏览的帖子移出缓冲，防止 Map 无限增长
+        idle.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+        retired = idle;
+
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        List<ContentMetric> batch = new ArrayList<>(deltas.size());
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : deltas.entrySet()) {
+            int delta = (int) Math.min(entry.getValue(), Integer.MAX_VALUE);
+            batch.add(new ContentMetric(entry.getKey(), null, delta));
+            total += delta;
+        }
+        // 按 content_id 排序，多实例并发刷新时加锁顺序一致
+        batch.sort(Comparator.comparing(ContentMetric::getContentId));
+
+        long start = System.nanoTime();
+        try {
+            metricMapper.batchIncrementMetric(VIEW_COUNT, batch);
+            flushedViews.increment(total);
+            log.debug("浏览量刷新完成 - 帖子数: {}, 浏览量: {}", batch.size(), total);
+        } catch (Exception e) {
+            // 写入失败时把增量放回缓冲，下个周期重试
+            failedFlushes.increment();
+            batch.forEach(m -> pending.computeIfAbsent(m.getContentId(), id -> new LongAdder())
+                    .add(m.getMetricValue()));
+            log.error("浏览量刷新失败，{} 个帖子的增量已放回缓冲: {}", batch.size(), e.getMessage());
+            return 0;
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        try {
+            eventPublisher.publishEvent(new ViewsFlushedEvent(deltas));
+        } catch (Exception e) {
+            log.warn("浏览量刷新事件处理失败: {}", e.getMessage());
+        }
+        return total;
+    }
+
+    /**
+     * 应用关闭前刷新剩余增量
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        long flushed = flush();
+        if (getBufferedViews() > 0) {
+            log.warn("应用关闭时仍有 {} 次浏览未能写入", getBufferedViews());
+        } else if (flushed > 0) {
+            log.info("应用关闭前已刷新 {} 次浏览", flushed);
+        }
+    }
+
+    /**
+     * 缓冲中尚未刷新的浏览量（用于监控）
+     */
+    public long getBufferedViews() {
+        long sum = 0;
+        for (LongAdder adder : pending.values()) {
+            sum += adder.sum();
+        }
+        return sum;
+    }
+}
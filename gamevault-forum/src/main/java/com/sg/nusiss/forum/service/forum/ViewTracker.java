@@ -1,25 +1,62 @@
 package com.sg.nusiss.forum.service.forum;
 
+import com.sg.nusiss.forum.util.LongOpenHashSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 浏览记录追踪器
  * 用于防止短时间内重复计数浏览量
+ *
+ * 两种模式（forum.views.dedup.mode）：
+ * - memory：进程内按时间分桶的原始 long 集合，过期时整桶丢弃，总条数有上限
+ * - redis：SET NX PX 写入 Redis，多个论坛实例共享去重结果；Redis 不可用时退回 memory
  */
+@Slf4j
 @Service
 public class ViewTracker {
-    
-    // 存储格式: "userId_postId" -> lastViewTime
-    // 如果userId为null，使用sessionId
-    private final Map<String, Long> viewRecords = new ConcurrentHashMap<>();
-    
-    // 时间窗口：5分钟内不重复计数
-    private static final long VIEW_WINDOW_MS = TimeUnit.MINUTES.toMillis(5);
-    
+
+    private static final String REDIS_KEY_PREFIX = "forum:view:dedup:";
+
+    // 分段锁数量（2 的幂）
+    private static final int STRIPES = 16;
+
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final int windowBuckets;
+    private final boolean redisMode;
+    private final StringRedisTemplate redisTemplate;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public ViewTracker(
+            @Value("${forum.views.dedup.window-minutes:5}") long windowMinutes,
+            @Value("${forum.views.dedup.bucket-seconds:60}") long bucketSeconds,
+            @Value("${forum.views.dedup.max-entries:500000}") int maxEntries,
+            @Value("${forum.views.dedup.mode:memory}") String mode,
+            ObjectProvider<StringRedisTemplate> redisTemplateProvider) {
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.bucketMillis = TimeUnit.SECONDS.toMillis(bucketSeconds);
+        // 时间窗口覆盖的完整桶数，窗口实际长度在 [window, window + bucket) 之间
+        this.windowBuckets = (int) Math.max(1, (windowMillis + bucketMillis - 1) / bucketMillis);
+        this.redisMode = "redis".equalsIgnoreCase(mode);
+        this.redisTemplate = redisMode ? redisTemplateProvider.getIfAvailable() : null;
+
+        int perStripe = Math.max(1, maxEntries / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(windowBuckets + 1, perStripe);
+        }
+
+        if (redisMode && redisTemplate == null) {
+            log.warn("浏览去重配置为 redis 模式，但没有可用的 StringRedisTemplate，使用本地模式");
+        }
+    }
+
     /**
      * 检查是否应该增加浏览量
      * @param userId 用户ID（可能为null，未登录用户）
@@ -28,43 +65,157 @@ public class ViewTracker {
      * @return true如果应该增加浏览量，false如果在时间窗口内已浏览过
      */
     public boolean shouldIncrementView(Long userId, String sessionId, Long postId) {
-        String key = buildKey(userId, sessionId, postId);
-        long currentTime = System.currentTimeMillis();
-        
-        Long lastViewTime = viewRecords.get(key);
-        
-        // 如果从未浏览过，或者超过时间窗口
-        if (lastViewTime == null || (currentTime - lastViewTime) > VIEW_WINDOW_MS) {
-            viewRecords.put(key, currentTime);
-            return true;
+        if (postId == null || (userId == null && sessionId == null)) {
+            return false;
+        }
+
+        if (redisTemplate != null) {
+            try {
+                Boolean added = redisTemplate.opsForValue().setIfAbsent(
+                        buildRedisKey(userId, sessionId, postId), "1", Duration.ofMillis(windowMillis));
+                return Boolean.TRUE.equals(added);
+            } catch (Exception e) {
+                log.warn("Redis 浏览去重失败，退回本地去重: {}", e.getMessage());
+            }
         }
-        
-        // 在时间窗口内，不增加浏览量
-        return false;
+
+        long key = buildKey(userId, sessionId, postId);
+        int stripe = (int) LongOpenHashSet.HashMix.mix(key) & (STRIPES - 1);
+        return stripes[stripe].markIfAbsent(key, System.currentTimeMillis() / bucketMillis);
     }
-    
+
     /**
-     * 构建缓存key
+     * 构建去重 key：userId、postId 都小于 2^31 时无损打包为一个 long，
+     * 否则（或匿名 session）取 64 位哈希并置最高位，两种 key 不会互相冲突
      */
-    private String buildKey(Long userId, String sessionId, Long postId) {
-        String userIdentifier = userId != null ? "user_" + userId : "session_" + sessionId;
-        return userIdentifier + "_post_" + postId;
+    static long buildKey(Long userId, String sessionId, long postId) {
+        if (userId != null && (userId >>> 31) == 0 && (postId >>> 32) == 0) {
+            return (userId << 32) | postId;
+        }
+        long identity = userId != null ? userId : hashString(sessionId) ^ 0x5bd1e995L;
+        return LongOpenHashSet.HashMix.mix(identity * 0x9E3779B97F4A7C15L + postId) | Long.MIN_VALUE;
+    }
+
+    private static long hashString(String value) {
+        // 64 位 FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static String buildRedisKey(Long userId, String sessionId, Long postId) {
+        String identity = userId != null ? "u" + userId : "s" + sessionId;
+        return REDIS_KEY_PREFIX + identity + ":" + postId;
     }
-    
+
     /**
-     * 清理过期记录（可选，由定时任务调用）
+     * 清理过期记录（由定时任务调用）
+     * 只丢弃整个过期的时间桶，不逐条扫描
      */
     public void cleanExpiredRecords() {
-        long currentTime = System.currentTimeMillis();
-        viewRecords.entrySet().removeIf(entry -> 
-            (currentTime - entry.getValue()) > VIEW_WINDOW_MS
-        );
+        long epoch = System.currentTimeMillis() / bucketMillis;
+        for (Stripe stripe : stripes) {
+            stripe.expire(epoch);
+        }
     }
-    
+
     /**
-     * 获取当前记录数（用于监控）
+     * 获取当前本地记录数（用于监控）
      */
     public int getRecordCount() {
-        return viewRecords.size();
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.size();
+        }
+        return count;
+    }
+
+    /**
+     * 一个分段：环形排列的时间桶，每个桶是一组原始 long key
+     */
+    private final class Stripe {
+
+        private final LongOpenHashSet[] buckets;
+        private final long[] bucketEpochs;
+        private final int maxEntries;
+        private int size;
+
+        Stripe(int bucketCount, int maxEntries) {
+            this.buckets = new LongOpenHashSet[bucketCount];
+            this.bucketEpochs = new long[bucketCount];
+            this.maxEntries = maxEntries;
+            for (int i = 0; i < bucketCount; i++) {
+                buckets[i] = new LongOpenHashSet(64);
+                bucketEpochs[i] = Long.MIN_VALUE;
+            }
+        }
+
+        synchronized boolean markIfAbsent(long key, long epoch) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (isLive(i, epoch) && buckets[i].contains(key)) {
+                    return false;
+                }
+            }
+
+            LongOpenHashSet current = currentBucket(epoch);
+            if (size >= maxEntries) {
+                evictOldest(epoch);
+            }
+            if (current.add(key)) {
+                size++;
+            }
+            return true;
+        }
+
+        synchronized void expire(long epoch) {
+            for (int i = 0; i < buckets.length; i++) {
+                if (!isLive(i, epoch) && !buckets[i].isEmpty()) {
+                    dropBucket(i);
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private boolean isLive(int i, long epoch) {
+            return bucketEpochs[i] >= epoch - windowBuckets && bucketEpochs[i] <= epoch;
+        }
+
+        private LongOpenHashSet currentBucket(long epoch) {
+            int index = (int) Math.floorMod(epoch, (long) buckets.length);
+            if (bucketEpochs[index] != epoch) {
+                dropBucket(index);
+                bucketEpochs[index] = epoch;
+            }
+            return buckets[index];
+        }
+
+        /**
+         * 达到内存上限时丢弃最旧的桶（去重变宽松，但内存不再增长）
+         */
+        private void evictOldest(long epoch) {
+            int oldest = -1;
+            for (int i = 0; i < buckets.length; i++) {
+                if (!buckets[i].isEmpty() && bucketEpochs[i] != epoch
+                        && (oldest < 0 || bucketEpochs[i] < bucketEpochs[oldest])) {
+                    oldest = i;
+                }
+            }
+            if (oldest < 0) {
+                // 只剩当前桶，直接清空
+                oldest = (int) Math.floorMod(epoch, (long) buckets.length);
+            }
+            dropBucket(oldest);
+        }
+
+        private void dropBucket(int index) {
+            size -= buckets[index].size();
+            buckets[index].clear();
+        }
     }
-}
\ No newline at end of file
+}
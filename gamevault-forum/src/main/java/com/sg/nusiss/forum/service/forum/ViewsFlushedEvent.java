@@ -0,0 +1,21 @@
+package com.sg.nusiss.forum.service.forum;
+
+import java.util.Map;
+
+/**
+ * 浏览量批量落库事件
+ * ViewCountBuffer 每次刷新成功后发布一次，携带本轮各帖子的浏览增量
+ */
+public class ViewsFlushedEvent {
+
+    // postId -> 本轮浏览增量
+    private final Map<Long, Long> deltas;
+
+    public ViewsFlushedEvent(Map<Long, Long> deltas) {
+        this.deltas = deltas;
+    }
+
+    public Map<Long, Long> getDeltas() {
+        return deltas;
+    }
+}
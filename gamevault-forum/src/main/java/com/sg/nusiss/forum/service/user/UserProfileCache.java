@@ -0,0 +1,346 @@
+package com.sg.nusiss.forum.service.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sg.nusiss.common.dto.UserDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 用户信息（UserDTO）多级缓存
+ *
+ * 查找顺序：
+ * 1. 请求级缓存：同一次 HTTP 请求内同一个用户只查一次（包括查不到的情况）
+ * 2. 本地缓存：进程内 ConcurrentHashMap + TTL，命中不加锁；超过上限时由一个线程淘汰过期和最久未访问的条目，
+ *    一次淘汰到上限的 90%，排序淘汰的开销分摊到之后的写入上
+ * 3. Redis 缓存：多个论坛实例共享（forum.user-cache.mode=redis 时启用，Redis 出错时跳过）
+ * 4. 以上都未命中时才调用 loader 访问 Auth 服务，批量查询只查未命中的 ID
+ *
+ * 查不到的用户不写入本地和 Redis 缓存，避免 Auth 服务短暂故障后长期显示"未知用户"
+ */
+@Slf4j
+@Component
+public class UserProfileCache {
+
+    private static final String REDIS_KEY_PREFIX = "forum:user:";
+    private static final String REQUEST_ATTRIBUTE = UserProfileCache.class.getName() + ".MEMO";
+
+    private final long localTtlMillis;
+    private final int localMaxEntries;
+    private final long redisTtlMillis;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<Long, CachedUser> local = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    private final Counter requestHits;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+
+    public UserProfileCache(
+            @Value("${forum.user-cache.mode:local}") String mode,
+            @Value("${forum.user-cache.local-ttl-seconds:60}") long localTtlSeconds,
+            @Value("${forum.user-cache.local-max-entries:10000}") int localMaxEntries,
+            @Value("${forum.user-cache.redis-ttl-seconds:600}") long redisTtlSeconds,
+            ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+            ObjectProvider<ObjectMapper> objectMapperProvider,
+            MeterRegistry meterRegistry) {
+        this.localTtlMillis = TimeUnit.SECONDS.toMillis(localTtlSeconds);
+        this.localMaxEntries = Math.max(1, localMaxEntries);
+        this.redisTtlMillis = TimeUnit.SECONDS.toMillis(redisTtlSeconds);
+        this.redisTemplate = "redis".equalsIgnoreCase(mode) ? redisTemplateProvider.getIfAvailable() : null;
+        this.objectMapper = objectMapperProvider.getIfAvailable(ObjectMapper::new);
+
+        if ("redis".equalsIgnoreCase(mode) && redisTemplate == null) {
+            log.warn("用户缓存配置为 redis 模式，但没有可用的 StringRedisTemplate，只使用本地缓存");
+        }
+
+        this.requestHits = hitCounter(meterRegistry, "request");
+        this.localHits = hitCounter(meterRegistry, "local");
+        this.redisHits = hitCounter(meterRegistry, "redis");
+        this.misses = Counter.builder("forum.user.cache.misses")
+                .description("三级缓存都未命中、需要调用 Auth 服务的用户数")
+                .register(meterRegistry);
+        meterRegistry.gauge("forum.user.cache.local.size", local, Map::size);
+    }
+
+    private static Counter hitCounter(MeterRegistry meterRegistry, String tier) {
+        return Counter.builder("forum.user.cache.hits")
+                .description("用户信息缓存命中数")
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询单个用户
+     */
+    public UserDTO get(Long userId, Function<Long, UserDTO> loader) {
+        if (userId == null) {
+            return null;
+        }
+        return getAll(List.of(userId), ids -> {
+            UserDTO user = loader.apply(ids.get(0));
+            return user != null ? List.of(user) : List.of();
+        }).get(userId);
+    }
+
+    /**
+     * 批量查询用户，loader 只会收到所有缓存都未命中的 ID
+     *
+     * @return userId -> UserDTO，查不到的用户不在结果中
+     */
+    public Map<Long, UserDTO> getAll(Collection<Long> userIds, Function<List<Long>, List<UserDTO>> loader) {
+        Map<Long, UserDTO> result = new HashMap<>();
+        Map<Long, UserDTO> memo = requestMemo();
+
+        List<Long> pending = new ArrayList<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            if (userId == null) {
+                continue;
+            }
+            if (memo != null && memo.containsKey(userId)) {
+                requestHits.increment();
+                UserDTO user = memo.get(userId);
+                if (user != null) {
+                    result.put(userId, user);
+                }
+                continue;
+            }
+            UserDTO user = getLocal(userId);
+            if (user != null) {
+                localHits.increment();
+                result.put(userId, user);
+            } else {
+                pending.add(userId);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            pending = fillFromRedis(pending, result);
+        }
+
+        if (!pending.isEmpty()) {
+            misses.increment(pending.size());
+            List<UserDTO> loaded = loader.apply(pending);
+            List<UserDTO> fetched = new ArrayList<>();
+            if (loaded != null) {
+                for (UserDTO user : loaded) {
+                    if (user != null && user.getUserId() != null) {
+                        result.put(user.getUserId(), user);
+                        putLocal(user);
+                        fetched.add(user);
+                    }
+                }
+            }
+            putRedis(fetched);
+        }
+
+        if (memo != null) {
+            for (Long userId : userIds) {
+                if (userId != null) {
+                    memo.put(userId, result.get(userId));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 使某个用户的缓存失效（用户修改资料后调用）
+     */
+    public void evict(Long userId) {
+        local.remove(userId);
+        Map<Long, UserDTO> memo = requestMemo();
+        if (memo != null) {
+            memo.remove(userId);
+        }
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.delete(REDIS_KEY_PREFIX + userId);
+            } catch (Exception e) {
+                log.warn("删除 Redis 用户缓存失败 - userId: {}, 错误: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    private UserDTO getLocal(Long userId) {
+        CachedUser cached = local.get(userId);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            local.remove(userId, cached);
+            return null;
+        }
+        cached.lastAccess = System.nanoTime();
+        return cached.user;
+    }
+
+    private void putLocal(UserDTO user) {
+        local.put(user.getUserId(), new CachedUser(user, System.currentTimeMillis() + localTtlMillis));
+        if (local.size() > localMaxEntries) {
+            trimLocal();
+        }
+    }
+
+    /**
+     * 淘汰过期条目，仍超过上限的 90% 时按最近访问时间淘汰最旧的条目；同一时间只有一个线程执行，其余线程直接返回
+     */
+    private void trimLocal() {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            local.values().removeIf(cached -> cached.expiresAt <= now);
+
+            int excess = local.size() - localMaxEntries * 9 / 10;
+            if (excess <= 0) {
+                return;
+            }
+            List<Map.Entry<Long, CachedUser>> entries = new ArrayList<>(local.entrySet());
+            entries.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccess));
+            for (int i = 0; i < excess && i < entries.size(); i++) {
+                Map.Entry<Long, CachedUser> entry = entries.get(i);
+                local.remove(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    /**
+     * 从 Redis 批量读取（MGET），命中的回填到本地缓存
+     *
+     * @return 仍未命中的 ID
+     */
+    private List<Long> fillFromRedis(List<Long> userIds, Map<Long, UserDTO> result) {
+        if (redisTemplate == null) {
+            return userIds;
+        }
+
+        List<String> keys = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            keys.add(REDIS_KEY_PREFIX + userId);
+        }
+
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(keys);
+        } catch (Exception e) {
+            log.warn("读取 Redis 用户缓存失败，直接查询 Auth 服务: {}", e.getMessage());
+            return userIds;
+        }
+        if (values == null) {
+            return userIds;
+        }
+
+        List<Long> remaining = new ArrayList<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            UserDTO user = deserialize(values.get(i));
+            if (user != null) {
+                redisHits.increment();
+                result.put(userIds.get(i), user);
+                putLocal(user);
+            } else {
+                remaining.add(userIds.get(i));
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * 批量写入 Redis（管道 SET PX）
+     */
+    private void putRedis(List<UserDTO> users) {
+        if (redisTemplate == null || users.isEmpty()) {
+            return;
+        }
+
+        try {
+            Expiration expiration = Expiration.milliseconds(redisTtlMillis);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (UserDTO user : users) {
+                    byte[] key = (REDIS_KEY_PREFIX + user.getUserId()).getBytes(StandardCharsets.UTF_8);
+                    byte[] value = serialize(user).getBytes(StandardCharsets.UTF_8);
+                    connection.stringCommands().set(key, value, expiration, RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("写入 Redis 用户缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private String serialize(UserDTO user) {
+        try {
+            return objectMapper.writeValueAsString(user);
+        } catch (Exception e) {
+            throw new IllegalStateException("用户信息序列化失败", e);
+        }
+    }
+
+    private UserDTO deserialize(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, UserDTO.class);
+        } catch (Exception e) {
+            log.warn("Redis 用户缓存格式错误，忽略: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 当前请求的缓存（不在 HTTP 请求线程中时返回 null）
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<Long, UserDTO> requestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<Long, UserDTO> memo = (Map<Long, UserDTO>) attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<>();
+            attributes.setAttribute(REQUEST_ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memo;
+    }
+
+    private static final class CachedUser {
+        final UserDTO user;
+        final long expiresAt;
+        // 最近访问时间（System.nanoTime），只用于淘汰排序，不需要精确
+        volatile long lastAccess = System.nanoTime();
+
+        CachedUser(UserDTO user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.sg.nusiss.forum.service.user;
 
 import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.forum.util.ForumRequestStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,7 +15,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * UserService - 适配直接返回 UserDTO 的版本
@@ -25,26 +30,55 @@ import java.util.List;
 public class UserService {
 
     private final RestTemplate restTemplate;
+    private final UserProfileCache profileCache;
+    private final MeterRegistry meterRegistry;
 
     @Value("${auth.service.url:http://gamevault-auth}")
     private String authServiceUrl;
 
     /**
-     * 根据用户ID查询用户信息
-     *
-     * 🔥 修改点: 直接接收 UserDTO,而不是 BaseResponse<UserDTO>
+     * 根据用户ID查询用户信息（经过 UserProfileCache）
      */
     public UserDTO getUserById(Long userId) {
         if (userId == null) {
             log.warn("getUserById - userId 为 null");
             return null;
         }
+        return profileCache.get(userId, this::fetchUserById);
+    }
 
-        log.info("🔍 开始查询用户信息 - userId: {}", userId);
+    /**
+     * 批量查询用户信息（经过 UserProfileCache，只向 Auth 服务查询未命中的用户）
+     */
+    public List<UserDTO> getUsersByIds(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
 
+        Map<Long, UserDTO> users = profileCache.getAll(userIds, this::fetchUsersByIds);
+        List<UserDTO> result = new ArrayList<>(users.size());
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            UserDTO user = users.get(userId);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 调用 Auth 服务查询单个用户
+     *
+     * 🔥 修改点: 直接接收 UserDTO,而不是 BaseResponse<UserDTO>
+     */
+    private UserDTO fetchUserById(Long userId) {
+        log.debug("🔍 开始查询用户信息 - userId: {}", userId);
+
+        Timer.Sample sample = startRemoteCall();
+        String outcome = "error";
         try {
             String url = authServiceUrl + "/api/users/" + userId;
-            log.info("🌐 调用 Auth 服务 - URL: {}", url);
+            log.debug("🌐 调用 Auth 服务 - URL: {}", url);
 
             // 🔥 直接接收 UserDTO,不是 BaseResponse
             ResponseEntity<UserDTO> response = restTemplate.exchange(
@@ -56,10 +90,12 @@ public class UserService {
 
             if (response.getBody() != null) {
                 UserDTO user = response.getBody();
-                log.info("✅ 成功获取用户信息 - userId: {}, username: {}",
+                outcome = "success";
+                log.debug("✅ 成功获取用户信息 - userId: {}, username: {}",
                         userId, user.getUsername());
                 return user;
             } else {
+                outcome = "empty";
                 log.warn("⚠️ Auth 服务响应体为空 - userId: {}", userId);
             }
 
@@ -69,6 +105,7 @@ public class UserService {
             log.error("💡 请检查: 1) Auth 服务是否启动 2) Nacos 是否正常 3) 网络是否互通");
 
         } catch (org.springframework.web.client.HttpClientErrorException.NotFound e) {
+            outcome = "not_found";
             log.warn("⚠️ 用户不存在 - userId: {}", userId);
 
         } catch (org.springframework.web.client.HttpClientErrorException e) {
@@ -79,6 +116,8 @@ public class UserService {
         } catch (Exception e) {
             log.error("❌ 调用 Auth 服务失败 - userId: {}, 错误类型: {}, 错误信息: {}",
                     userId, e.getClass().getSimpleName(), e.getMessage(), e);
+        } finally {
+            stopRemoteCall(sample, "getUser", outcome);
         }
 
         // 返回 null,让调用方处理
@@ -87,17 +126,15 @@ public class UserService {
     }
 
     /**
-     * 批量查询用户信息
+     * 调用 Auth 服务批量查询用户
      *
      * 🔥 修改点: 直接接收 List<UserDTO>
      */
-    public List<UserDTO> getUsersByIds(List<Long> userIds) {
-        if (userIds == null || userIds.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-        log.info("🔍 批量查询用户信息 - userIds: {}", userIds);
+    private List<UserDTO> fetchUsersByIds(List<Long> userIds) {
+        log.debug("🔍 批量查询用户信息 - userIds: {}", userIds);
 
+        Timer.Sample sample = startRemoteCall();
+        String outcome = "error";
         try {
             String url = authServiceUrl + "/api/users/batch";
 
@@ -110,12 +147,16 @@ public class UserService {
 
             if (response.getBody() != null) {
                 List<UserDTO> users = response.getBody();
-                log.info("✅ 成功批量获取 {} 个用户信息", users.size());
+                outcome = "success";
+                log.debug("✅ 成功批量获取 {} 个用户信息", users.size());
                 return users;
             }
+            outcome = "empty";
 
         } catch (Exception e) {
             log.error("❌ 批量查询用户失败: userIds={}", userIds, e);
+        } finally {
+            stopRemoteCall(sample, "getUsers", outcome);
         }
 
         return new ArrayList<>();
@@ -127,8 +168,10 @@ public class UserService {
      * 🔥 修改点: 直接接收 List<UserDTO>
      */
     public List<UserDTO> searchUsers(String keyword) {
-        log.info("🔍 搜索用户 - keyword: {}", keyword);
+        log.debug("🔍 搜索用户 - keyword: {}", keyword);
 
+        Timer.Sample sample = startRemoteCall();
+        String outcome = "error";
         try {
             String url = authServiceUrl + "/api/users/search?keyword=" + keyword;
 
@@ -141,14 +184,35 @@ public class UserService {
 
             if (response.getBody() != null) {
                 List<UserDTO> users = response.getBody();
-                log.info("✅ 搜索到 {} 个用户", users.size());
+                outcome = "success";
+                log.debug("✅ 搜索到 {} 个用户", users.size());
                 return users;
             }
+            outcome = "empty";
 
         } catch (Exception e) {
             log.error("❌ 搜索用户失败: keyword={}", keyword, e);
+        } finally {
+            stopRemoteCall(sample, "searchUsers", outcome);
         }
 
         return new ArrayList<>();
     }
-}
\ No newline at end of file
+
+    private Timer.Sample startRemoteCall() {
+        ForumRequestStats.recordRemoteCall();
+        return Timer.start(meterRegistry);
+    }
+
+    /**
+     * 记录一次 Auth 服务调用（forum.remote.call，按 operation / outcome 区分）
+     */
+    private void stopRemoteCall(Timer.Sample sample, String operation, String outcome) {
+        sample.stop(Timer.builder("forum.remote.call")
+                .description("调用 Auth 服务的耗时")
+                .tag("service", "auth")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+    }
+}
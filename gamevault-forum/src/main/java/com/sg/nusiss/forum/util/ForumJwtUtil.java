@@ -9,6 +9,8 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -76,7 +78,7 @@ public class ForumJwtUtil {
                 logger.debug("RS256 解析成功 - username: {}, userId: {}", username, userId);
 
                 if (username != null && userId != null) {
-                    return new TokenInfo(true, userId, username);
+                    return new TokenInfo(true, userId, username, expirationOf(rs256Claims));
                 }
             }
         } catch (Exception e) {
@@ -86,6 +88,23 @@ public class ForumJwtUtil {
         return new TokenInfo(false, null, null);
     }
 
+    /**
+     * 读取 exp（JwtDecoder 给出的是 Instant，兼容 Date 和秒数）
+     */
+    private static Instant expirationOf(Claims claims) {
+        Object exp = claims.get("exp");
+        if (exp instanceof Instant) {
+            return (Instant) exp;
+        }
+        if (exp instanceof Date) {
+            return ((Date) exp).toInstant();
+        }
+        if (exp instanceof Number) {
+            return Instant.ofEpochSecond(((Number) exp).longValue());
+        }
+        return null;
+    }
+
     /**
      * Token 解析结果
      */
@@ -93,11 +112,17 @@ public class ForumJwtUtil {
         public final boolean valid;
         public final Long userId;
         public final String username;
+        public final Instant expiresAt;  // JWT exp，无效 Token 为 null
 
         public TokenInfo(boolean valid, Long userId, String username) {
+            this(valid, userId, username, null);
+        }
+
+        public TokenInfo(boolean valid, Long userId, String username, Instant expiresAt) {
             this.valid = valid;
             this.userId = userId;
             this.username = username;
+            this.expiresAt = expiresAt;
         }
     }
 
@@ -0,0 +1,63 @@
+package com.sg.nusiss.forum.util;
+
+/**
+ * 单个请求内的数据库语句数和远程调用数
+ *
+ * 由 ForumRequestMetricsInterceptor 在请求开始时绑定到当前线程、结束时取出记录到指标；
+ * 不在请求线程上执行的语句（定时任务、后台扇出）不计入任何请求。
+ */
+public final class ForumRequestStats {
+
+    private static final ThreadLocal<ForumRequestStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int remoteCalls;
+
+    private ForumRequestStats() {}
+
+    /**
+     * 为当前线程开始一次统计
+     */
+    public static ForumRequestStats begin() {
+        ForumRequestStats stats = new ForumRequestStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * 结束当前线程的统计，返回统计结果（没有开始过时返回 null）
+     */
+    public static ForumRequestStats end() {
+        ForumRequestStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    /**
+     * 记录一条数据库语句
+     */
+    public static void recordStatement() {
+        ForumRequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+
+    /**
+     * 记录一次远程调用
+     */
+    public static void recordRemoteCall() {
+        ForumRequestStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.remoteCalls++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getRemoteCalls() {
+        return remoteCalls;
+    }
+}
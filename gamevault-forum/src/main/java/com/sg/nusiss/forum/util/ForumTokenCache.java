@@ -0,0 +1,138 @@
+package com.sg.nusiss.forum.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 已验证 Token 的缓存
+ *
+ * RS256 验签是论坛服务最耗 CPU 的步骤之一，同一会话的后续请求直接复用上次的验证结果：
+ * - 以 Token 的 SHA-256 作为键，内存中不保留原始 Token
+ * - 有效 Token 缓存到 JWT exp（且不超过 forum.auth.token-cache.max-ttl-seconds）
+ * - 无效 Token 短暂缓存（negative-ttl-seconds），签名错误或已过期的 Token 不会重新变成有效
+ * - 条目数达到上限时先清理过期条目，仍然满则整体清空
+ */
+@Component
+public class ForumTokenCache {
+
+    private final long maxTtlMillis;
+    private final long negativeTtlMillis;
+    private final int maxEntries;
+    private final Map<String, CachedToken> tokens = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer verifyTimer;
+
+    public ForumTokenCache(
+            @Value("${forum.auth.token-cache.max-ttl-seconds:900}") long maxTtlSeconds,
+            @Value("${forum.auth.token-cache.negative-ttl-seconds:30}") long negativeTtlSeconds,
+            @Value("${forum.auth.token-cache.max-entries:50000}") int maxEntries,
+            MeterRegistry meterRegistry) {
+        this.maxTtlMillis = TimeUnit.SECONDS.toMillis(maxTtlSeconds);
+        this.negativeTtlMillis = TimeUnit.SECONDS.toMillis(negativeTtlSeconds);
+        this.maxEntries = Math.max(1, maxEntries);
+
+        this.hits = Counter.builder("forum.auth.token.cache")
+                .description("Token 验证缓存请求数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("forum.auth.token.cache")
+                .description("Token 验证缓存请求数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.verifyTimer = Timer.builder("forum.auth.token.verify")
+                .description("Token 验签耗时（缓存未命中时）")
+                .register(meterRegistry);
+        Gauge.builder("forum.auth.token.cache.size", tokens, Map::size)
+                .description("Token 验证缓存条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 获取 Token 的验证结果，未命中或已过期时调用 verifier 验签并缓存
+     */
+    public ForumJwtUtil.TokenInfo verify(String token, Function<String, ForumJwtUtil.TokenInfo> verifier) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+
+        CachedToken cached = tokens.get(key);
+        if (cached != null && cached.expiresAt > now) {
+            hits.increment();
+            return cached.info;
+        }
+
+        misses.increment();
+        long start = System.nanoTime();
+        ForumJwtUtil.TokenInfo info;
+        try {
+            info = verifier.apply(token);
+        } finally {
+            verifyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        long expiresAt = expiresAt(info, now);
+        if (expiresAt > now) {
+            if (tokens.size() >= maxEntries) {
+                tokens.values().removeIf(c -> c.expiresAt <= now);
+                if (tokens.size() >= maxEntries) {
+                    tokens.clear();
+                }
+            }
+            tokens.put(key, new CachedToken(info, expiresAt));
+        } else if (cached != null) {
+            tokens.remove(key, cached);
+        }
+        return info;
+    }
+
+    /**
+     * 清空缓存（更换公钥等场景）
+     */
+    public void clear() {
+        tokens.clear();
+    }
+
+    private long expiresAt(ForumJwtUtil.TokenInfo info, long now) {
+        if (info == null || !info.valid) {
+            return now + negativeTtlMillis;
+        }
+        long limit = now + maxTtlMillis;
+        Instant exp = info.expiresAt;
+        // 没有 exp 的 Token 只按 max-ttl 缓存
+        return exp != null ? Math.min(exp.toEpochMilli(), limit) : limit;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    private static final class CachedToken {
+        final ForumJwtUtil.TokenInfo info;
+        final long expiresAt;
+
+        CachedToken(ForumJwtUtil.TokenInfo info, long expiresAt) {
+            this.info = info;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
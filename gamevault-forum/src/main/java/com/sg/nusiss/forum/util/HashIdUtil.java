@@ -1,28 +1,38 @@
 package com.sg.nusiss.forum.util;
 
-import org.hashids.Hashids;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
-import java.util.Objects;
-
 /**
  * HashID工具类 - 用于加密/解密ID
  * 将数字ID转换为短字符串，避免在URL中暴露真实ID
+ *
+ * 编解码由 HashidsCodec 完成（与 org.hashids 输出一致，字母表预先算好），
+ * 单个帖子ID再经过一层最近使用缓存（hashid.cache-size），列表接口可以用 long[] 批量编解码。
  */
 @Component
 public class HashIdUtil {
 
-    private final Hashids postHashids;
-    private final Hashids userHashids;
-    private final Hashids forumHashids;
+    private static final int DEFAULT_CACHE_SIZE = 4096;
+
+    private final HashidsCodec postCodec;
+    private final HashidsCodec userCodec;
+    private final HashidsCodec forumCodec;
+    private final RecentHashIdCache postCache;
+
+    public HashIdUtil(String salt) {
+        this(salt, DEFAULT_CACHE_SIZE);
+    }
 
-    public HashIdUtil(@Value("${hashid.salt:forum-backend-2024}") String salt) {
+    @Autowired
+    public HashIdUtil(@Value("${hashid.salt:forum-backend-2024}") String salt,
+                      @Value("${hashid.cache-size:4096}") int cacheSize) {
         // 使用不同的盐值和最小长度来区分不同类型的ID
-        this.postHashids = new Hashids(salt + "-post", 8);
-        this.userHashids = new Hashids(salt + "-user", 6);
-        this.forumHashids = new Hashids(salt + "-forum", 6);
+        this.postCodec = new HashidsCodec(salt + "-post", 8);
+        this.userCodec = new HashidsCodec(salt + "-user", 6);
+        this.forumCodec = new HashidsCodec(salt + "-forum", 6);
+        this.postCache = new RecentHashIdCache(cacheSize);
     }
 
     // ==================== Post ID 编码/解码 ====================
@@ -33,7 +43,7 @@ public class HashIdUtil {
      */
     public String encodePostId(Long id) {
         if (id == null) return null;
-        return postHashids.encode(id);
+        return encode(id.longValue());
     }
 
     /**
@@ -41,92 +51,117 @@ public class HashIdUtil {
      * 例如: "x9Kje2Qp" -> 123
      */
     public Long decodePostId(String hash) {
-        if (hash == null || hash.isEmpty()) return null;
-        try {
-            long[] decode = postHashids.decode(hash);
-            return decode.length > 0 ? decode[0] : null;
-        } catch (Exception e) {
-            return null;
+        long id = decode(hash);
+        return id >= 0 ? id : null;
+    }
+
+    /**
+     * 批量编码帖子ID（列表接口用，无效ID对应 null）
+     */
+    public String[] encodePostIds(long[] ids) {
+        String[] hashes = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            hashes[i] = ids[i] >= 0 ? encode(ids[i]) : null;
         }
+        return hashes;
+    }
+
+    /**
+     * 批量解码帖子ID（无效的 hash 对应 -1）
+     */
+    public long[] decodePostIds(String[] hashes) {
+        long[] ids = new long[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            ids[i] = decode(hashes[i]);
+        }
+        return ids;
     }
 
     // ==================== User ID 编码/解码 ====================
 
     public String encodeUserId(Long id) {
         if (id == null) return null;
-        return userHashids.encode(id);
+        return userCodec.encode(id.longValue());
     }
 
     public Long decodeUserId(String hash) {
         if (hash == null || hash.isEmpty()) return null;
-        try {
-            long[] decode = userHashids.decode(hash);
-            return decode.length > 0 ? decode[0] : null;
-        } catch (Exception e) {
-            return null;
-        }
+        long id = userCodec.decodeFirst(hash);
+        return id >= 0 ? id : null;
     }
 
     // ==================== Forum ID 编码/解码 ====================
 
     public String encodeForumId(Long id) {
         if (id == null) return null;
-        return forumHashids.encode(id);
+        return forumCodec.encode(id.longValue());
     }
 
     public Long decodeForumId(String hash) {
         if (hash == null || hash.isEmpty()) return null;
-        try {
-            long[] decode = forumHashids.decode(hash);
-            return decode.length > 0 ? decode[0] : null;
-        } catch (Exception e) {
-            return null;
-        }
+        long id = forumCodec.decodeFirst(hash);
+        return id >= 0 ? id : null;
     }
 
     // ==================== 批量编码 ====================
 
     /**
      * 批量编码多个ID
-     * 使用Java 8 Stream API进行类型转换
      */
     public String encodeMultipleIds(Long... ids) {
         if (ids == null || ids.length == 0) return null;
 
-        // 检查是否有null值
-        if (Arrays.stream(ids).anyMatch(Objects::isNull)) {
-            return null;
+        long[] primitiveIds = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            // 检查是否有null值
+            if (ids[i] == null) {
+                return null;
+            }
+            primitiveIds[i] = ids[i];
         }
-
-        // 转换为原始类型数组
-        long[] primitiveIds = Arrays.stream(ids)
-                .mapToLong(Long::longValue)
-                .toArray();
-
-        return postHashids.encode(primitiveIds);
+        return postCodec.encode(primitiveIds);
     }
 
     /**
      * 批量解码多个ID
      */
     public Long[] decodeMultipleIds(String hash) {
-        if (hash == null || hash.isEmpty()) return new Long[0];
-        try {
-            long[] primitiveIds = postHashids.decode(hash);
-            // 转换为包装类型数组
-            return Arrays.stream(primitiveIds)
-                    .boxed()
-                    .toArray(Long[]::new);
-        } catch (Exception e) {
-            return new Long[0];
+        long[] primitiveIds = decodeIds(hash);
+        Long[] ids = new Long[primitiveIds.length];
+        for (int i = 0; i < primitiveIds.length; i++) {
+            ids[i] = primitiveIds[i];
         }
+        return ids;
+    }
+
+    /**
+     * 编码多个ID（原始类型，游标用）
+     */
+    public String encodeIds(long... ids) {
+        if (ids == null || ids.length == 0) return null;
+        return postCodec.encode(ids);
+    }
+
+    /**
+     * 解码多个ID（原始类型，无效时返回空数组）
+     */
+    public long[] decodeIds(String hash) {
+        if (hash == null || hash.isEmpty()) return new long[0];
+        return postCodec.decode(hash);
     }
 
     /**
      * 编码单个ID的辅助方法（兼容原始类型）
      */
     public String encode(long id) {
-        return postHashids.encode(id);
+        String hash = postCache.getHash(id);
+        if (hash == null) {
+            hash = postCodec.encode(id);
+            if (!hash.isEmpty()) {
+                postCache.put(id, hash);
+            }
+        }
+        return hash;
     }
 
     /**
@@ -134,11 +169,16 @@ public class HashIdUtil {
      */
     public long decode(String hash) {
         if (hash == null || hash.isEmpty()) return -1;
-        try {
-            long[] decode = postHashids.decode(hash);
-            return decode.length > 0 ? decode[0] : -1;
-        } catch (Exception e) {
-            return -1;
+        long id = postCache.getId(hash);
+        if (id >= 0) {
+            return id;
+        }
+        // 只缓存单个ID的 hash，多ID的 hash 按原逻辑取第一个
+        id = postCodec.decodeSingle(hash);
+        if (id >= 0) {
+            postCache.put(id, hash);
+            return id;
         }
+        return postCodec.decodeFirst(hash);
     }
-}
\ No newline at end of file
+}
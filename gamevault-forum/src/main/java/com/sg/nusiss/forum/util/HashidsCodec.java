@@ -0,0 +1,463 @@
+package com.sg.nusiss.forum.util;
+
+import java.util.Arrays;
+
+/**
+ * Hashids 编解码，输出与 org.hashids:hashids 1.0.3 完全一致（已生成的链接和游标继续有效）
+ *
+ * 原实现每编码一个数字都要按 lottery 字符重新洗牌一次字母表，解码还要走正则和 split。
+ * 洗牌结果只取决于 lottery 字符和数字所在位置，这里在构造时一次算好：
+ * - shuffled[lottery][i]：第 i 个数字使用的字母表，以及对应的字符 -> 下标反查表
+ * - padding[lottery][i]：共 i + 1 个数字时，第一轮补齐最小长度用的字母表
+ * 编解码都在线程本地的缓冲区上进行，单个数字编码除结果字符串外不再分配，解码不分配。
+ * 超过 PRECOMPUTED_POSITIONS 个数字的位置按原算法现算。
+ */
+final class HashidsCodec {
+
+    static final long MAX_NUMBER = 9007199254740992L;
+
+    private static final String DEFAULT_ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ1234567890";
+    private static final String DEFAULT_SEPS = "cfhistuCFHISTU";
+    private static final double SEP_DIV = 3.5;
+    private static final int GUARD_DIV = 12;
+
+    // 预计算的数字位置数（游标 2 个，回复树路径最多 9 个）
+    private static final int PRECOMPUTED_POSITIONS = 16;
+
+    // 字符分类（字母表只含 ASCII）
+    private static final byte OTHER = 0;
+    private static final byte ALPHABET = 1;
+    private static final byte SEPARATOR = 2;
+    private static final byte GUARD = 3;
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final char[] salt;
+    private final int minLength;
+    private final char[] alphabet;
+    private final char[] seps;
+    private final char[] guards;
+    private final byte[] charClass = new byte[128];
+    private final int[] alphabetIndex = new int[128];
+
+    private final char[][][] shuffled;
+    private final byte[][][] positions;
+    private final char[][][] padding;
+
+    HashidsCodec(String salt, int minLength) {
+        this.salt = salt.toCharArray();
+        this.minLength = Math.max(0, minLength);
+
+        // 以下字母表/分隔符/守卫字符的推导与 org.hashids.Hashids 构造函数相同
+        String alphabet = DEFAULT_ALPHABET;
+        String seps = DEFAULT_SEPS;
+        for (int i = 0; i < seps.length(); i++) {
+            int j = alphabet.indexOf(seps.charAt(i));
+            if (j == -1) {
+                seps = seps.substring(0, i) + " " + seps.substring(i + 1);
+            } else {
+                alphabet = alphabet.substring(0, j) + " " + alphabet.substring(j + 1);
+            }
+        }
+        alphabet = alphabet.replaceAll("\\s+", "");
+        seps = shuffle(seps.replaceAll("\\s+", "").toCharArray(), this.salt);
+
+        if (seps.isEmpty() || ((float) alphabet.length() / seps.length()) > SEP_DIV) {
+            int sepsLength = (int) Math.ceil(alphabet.length() / SEP_DIV);
+            if (sepsLength == 1) {
+                sepsLength++;
+            }
+            if (sepsLength > seps.length()) {
+                int diff = sepsLength - seps.length();
+                seps += alphabet.substring(0, diff);
+                alphabet = alphabet.substring(diff);
+            } else {
+                seps = seps.substring(0, sepsLength);
+            }
+        }
+
+        alphabet = shuffle(alphabet.toCharArray(), this.salt);
+        int guardCount = (int) Math.ceil((double) alphabet.length() / GUARD_DIV);
+        String guards;
+        if (alphabet.length() < 3) {
+            guards = seps.substring(0, guardCount);
+            seps = seps.substring(guardCount);
+        } else {
+            guards = alphabet.substring(0, guardCount);
+            alphabet = alphabet.substring(guardCount);
+        }
+
+        this.alphabet = alphabet.toCharArray();
+        this.seps = seps.toCharArray();
+        this.guards = guards.toCharArray();
+
+        Arrays.fill(alphabetIndex, -1);
+        for (int i = 0; i < this.alphabet.length; i++) {
+            charClass[this.alphabet[i]] = ALPHABET;
+            alphabetIndex[this.alphabet[i]] = i;
+        }
+        for (char sep : this.seps) {
+            charClass[sep] = SEPARATOR;
+        }
+        for (char guard : this.guards) {
+            charClass[guard] = GUARD;
+        }
+
+        // 预计算每个 lottery 字符下各位置的字母表
+        int length = this.alphabet.length;
+        this.shuffled = new char[length][PRECOMPUTED_POSITIONS][];
+        this.positions = new byte[length][PRECOMPUTED_POSITIONS][];
+        this.padding = new char[length][PRECOMPUTED_POSITIONS][];
+        for (int lottery = 0; lottery < length; lottery++) {
+            char[] current = this.alphabet;
+            for (int i = 0; i < PRECOMPUTED_POSITIONS; i++) {
+                current = nextAlphabet(this.alphabet[lottery], current);
+                shuffled[lottery][i] = current;
+                positions[lottery][i] = indexTable(current);
+                padding[lottery][i] = consistentShuffle(current, current);
+            }
+        }
+    }
+
+    // ==================== 编码 ====================
+
+    /**
+     * 编码单个数字（负数返回空字符串，与 Hashids 一致）
+     */
+    String encode(long number) {
+        if (number < 0) {
+            return "";
+        }
+        checkNumber(number);
+        Scratch scratch = SCRATCH.get();
+        scratch.numbers[0] = number;
+        int start = encodeInto(scratch.numbers, 1, scratch);
+        return new String(scratch.chars, start, scratch.end - start);
+    }
+
+    /**
+     * 编码多个数字（任一为负数时返回空字符串，与 Hashids 一致）
+     */
+    String encode(long... numbers) {
+        if (numbers.length == 0) {
+            return "";
+        }
+        for (long number : numbers) {
+            if (number < 0) {
+                return "";
+            }
+            checkNumber(number);
+        }
+        Scratch scratch = SCRATCH.get();
+        int start = encodeInto(numbers, numbers.length, scratch);
+        return new String(scratch.chars, start, scratch.end - start);
+    }
+
+    /**
+     * 把 numbers[0, count) 编码到 scratch.chars，返回起始下标（结束下标为 scratch.end）
+     */
+    private int encodeInto(long[] numbers, int count, Scratch scratch) {
+        int alphabetLength = alphabet.length;
+        // 左侧留出守卫字符和一轮补齐的位置
+        char[] out = scratch.ensureChars(alphabetLength + 4 + count * 16 + minLength + alphabetLength);
+        int head = alphabetLength + 2;
+        int tail = head;
+
+        long numberHash = 0;
+        for (int i = 0; i < count; i++) {
+            numberHash += numbers[i] % (i + 100);
+        }
+        int lottery = (int) (numberHash % alphabetLength);
+        out[tail++] = alphabet[lottery];
+
+        char[] current = alphabet;
+        for (int i = 0; i < count; i++) {
+            long number = numbers[i];
+            current = alphabetAt(lottery, i, current);
+
+            // 按当前字母表转成 alphabetLength 进制（低位在后）
+            int digitsStart = tail;
+            long value = number;
+            do {
+                out[tail++] = current[(int) (value % alphabetLength)];
+                value /= alphabetLength;
+            } while (value > 0);
+            reverse(out, digitsStart, tail);
+
+            if (i + 1 < count) {
+                number %= (out[digitsStart] + i);
+                out[tail++] = seps[(int) (number % seps.length)];
+            }
+        }
+
+        if (tail - head < minLength) {
+            out[--head] = guards[(int) ((numberHash + out[head + 1]) % guards.length)];
+            if (tail - head < minLength) {
+                out[tail++] = guards[(int) ((numberHash + out[head + 2]) % guards.length)];
+            }
+        }
+
+        int halfLength = alphabetLength / 2;
+        int round = 0;
+        while (tail - head < minLength) {
+            current = round == 0 && count <= PRECOMPUTED_POSITIONS
+                    ? padding[lottery][count - 1]
+                    : consistentShuffle(current, current);
+            round++;
+
+            // 两侧各补半个字母表，再从中间截取 minLength 个字符
+            int length = tail - head;
+            int right = alphabetLength - halfLength;
+            int newHead = halfLength;
+            System.arraycopy(out, head, out, newHead + right, length);
+            System.arraycopy(current, halfLength, out, newHead, right);
+            System.arraycopy(current, 0, out, newHead + right + length, halfLength);
+            head = newHead;
+            tail = newHead + right + length + halfLength;
+
+            int excess = tail - head - minLength;
+            if (excess > 0) {
+                head += excess / 2;
+                tail = head + minLength;
+            }
+        }
+
+        scratch.end = tail;
+        return head;
+    }
+
+    // ==================== 解码 ====================
+
+    /**
+     * 解码并返回第一个数字，无效时返回 -1（不分配对象）
+     */
+    long decodeFirst(CharSequence hash) {
+        Scratch scratch = SCRATCH.get();
+        int count = decodeInto(hash, scratch);
+        return count > 0 ? scratch.decoded[0] : -1;
+    }
+
+    /**
+     * 解码只包含一个数字的 hash，无效或包含多个数字时返回 -1
+     */
+    long decodeSingle(CharSequence hash) {
+        Scratch scratch = SCRATCH.get();
+        int count = decodeInto(hash, scratch);
+        return count == 1 ? scratch.decoded[0] : -1;
+    }
+
+    /**
+     * 解码全部数字，无效时返回空数组
+     */
+    long[] decode(CharSequence hash) {
+        Scratch scratch = SCRATCH.get();
+        int count = decodeInto(hash, scratch);
+        return count > 0 ? Arrays.copyOf(scratch.decoded, count) : new long[0];
+    }
+
+    /**
+     * 解码到 scratch.decoded，返回数字个数（无效时返回 0）
+     */
+    private int decodeInto(CharSequence hash, Scratch scratch) {
+        int length = hash == null ? 0 : hash.length();
+        if (length == 0) {
+            return 0;
+        }
+
+        // 按守卫字符切分：2 或 3 段时取第二段，否则取第一段（与 Hashids 相同，末尾的空段不计）
+        int segments = 1;
+        int lastNonEmpty = -1;
+        int segmentStart = 0;
+        int firstStart = 0, firstEnd = length, secondStart = -1, secondEnd = -1;
+        for (int i = 0; i < length; i++) {
+            char ch = hash.charAt(i);
+            if (ch >= 128 || charClass[ch] == OTHER) {
+                return 0;
+            }
+            if (charClass[ch] == GUARD) {
+                if (segments == 1) {
+                    firstEnd = i;
+                } else if (segments == 2) {
+                    secondEnd = i;
+                }
+                if (i > segmentStart) {
+                    lastNonEmpty = segments;
+                }
+                segments++;
+                segmentStart = i + 1;
+                if (segments == 2) {
+                    secondStart = segmentStart;
+                    secondEnd = length;
+                }
+            }
+        }
+        if (length > segmentStart) {
+            lastNonEmpty = segments;
+        }
+        int effectiveSegments = lastNonEmpty;
+        if (effectiveSegments <= 0) {
+            return 0;
+        }
+        int start = firstStart, end = firstEnd;
+        if (effectiveSegments == 2 || effectiveSegments == 3) {
+            start = secondStart;
+            end = secondEnd;
+        }
+        if (start >= end) {
+            return 0;
+        }
+
+        char lotteryChar = hash.charAt(start);
+        if (charClass[lotteryChar] != ALPHABET) {
+            return 0;
+        }
+        int lottery = alphabetIndex[lotteryChar];
+
+        // 按分隔符切出各个数字
+        long[] decoded = scratch.decoded;
+        int count = 0;
+        long value = 0;
+        char[] current = alphabet;
+        byte[] index = null;
+        boolean hasDigits = false;
+        for (int i = start + 1; i <= end; i++) {
+            if (index == null) {
+                current = alphabetAt(lottery, count, current);
+                index = count < PRECOMPUTED_POSITIONS ? positions[lottery][count] : indexTable(current);
+            }
+            if (i == end || charClass[hash.charAt(i)] == SEPARATOR) {
+                if (i == end && !hasDigits && count > 0) {
+                    // 末尾的空段不算一个数字
+                    break;
+                }
+                decoded = scratch.ensureDecoded(count + 1);
+                decoded[count++] = value;
+                value = 0;
+                hasDigits = false;
+                index = null;
+                continue;
+            }
+            int digit = index[hash.charAt(i)];
+            if (digit < 0) {
+                return 0;
+            }
+            value = value * current.length + digit;
+            if (value > MAX_NUMBER || value < 0) {
+                return 0;
+            }
+            hasDigits = true;
+        }
+
+        // 重新编码必须与输入完全一致，否则不是合法的 hash
+        int encodedStart = encodeInto(decoded, count, scratch);
+        if (scratch.end - encodedStart != length) {
+            return 0;
+        }
+        char[] encoded = scratch.chars;
+        for (int i = 0; i < length; i++) {
+            if (encoded[encodedStart + i] != hash.charAt(i)) {
+                return 0;
+            }
+        }
+        return count;
+    }
+
+    // ==================== 字母表 ====================
+
+    /**
+     * 第 position 个数字使用的字母表（previous 为上一个位置的字母表）
+     */
+    private char[] alphabetAt(int lottery, int position, char[] previous) {
+        if (position < PRECOMPUTED_POSITIONS) {
+            return shuffled[lottery][position];
+        }
+        return nextAlphabet(alphabet[lottery], previous);
+    }
+
+    /**
+     * 以 (lottery + salt + 当前字母表) 的前 N 个字符为盐洗牌，得到下一个位置的字母表
+     */
+    private char[] nextAlphabet(char lottery, char[] current) {
+        int length = current.length;
+        char[] key = new char[length];
+        key[0] = lottery;
+        int copied = Math.min(salt.length, length - 1);
+        System.arraycopy(salt, 0, key, 1, copied);
+        int rest = length - 1 - copied;
+        if (rest > 0) {
+            System.arraycopy(current, 0, key, 1 + copied, rest);
+        }
+        return consistentShuffle(current, key);
+    }
+
+    private static byte[] indexTable(char[] alphabet) {
+        byte[] table = new byte[128];
+        Arrays.fill(table, (byte) -1);
+        for (int i = 0; i < alphabet.length; i++) {
+            table[alphabet[i]] = (byte) i;
+        }
+        return table;
+    }
+
+    private static String shuffle(char[] alphabet, char[] salt) {
+        return new String(consistentShuffle(alphabet, salt));
+    }
+
+    /**
+     * Hashids 的确定性洗牌
+     */
+    private static char[] consistentShuffle(char[] alphabet, char[] salt) {
+        char[] result = alphabet.clone();
+        if (salt.length == 0) {
+            return result;
+        }
+        for (int i = result.length - 1, v = 0, p = 0; i > 0; i--, v++) {
+            v %= salt.length;
+            int ascii = salt[v];
+            p += ascii;
+            int j = (ascii + v + p) % i;
+            char tmp = result[j];
+            result[j] = result[i];
+            result[i] = tmp;
+        }
+        return result;
+    }
+
+    private static void reverse(char[] chars, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            char tmp = chars[i];
+            chars[i] = chars[j];
+            chars[j] = tmp;
+        }
+    }
+
+    private static void checkNumber(long number) {
+        if (number > MAX_NUMBER) {
+            throw new IllegalArgumentException("number can not be greater than " + MAX_NUMBER + "L");
+        }
+    }
+
+    /**
+     * 线程本地的编解码缓冲区
+     */
+    private static final class Scratch {
+        char[] chars = new char[256];
+        long[] numbers = new long[1];
+        long[] decoded = new long[16];
+        int end;
+
+        char[] ensureChars(int capacity) {
+            if (chars.length < capacity) {
+                chars = new char[Math.max(capacity, chars.length * 2)];
+            }
+            return chars;
+        }
+
+        long[] ensureDecoded(int capacity) {
+            if (decoded.length < capacity) {
+                decoded = Arrays.copyOf(decoded, Math.max(capacity, decoded.length * 2));
+            }
+            return decoded;
+        }
+    }
+}
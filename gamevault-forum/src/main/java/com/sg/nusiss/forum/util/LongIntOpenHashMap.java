@@ -0,0 +1,123 @@
+package com.sg.nusiss.forum.util;
+
+/**
+ * 基于开放寻址的 long -> int 映射
+ * 键值都以原始类型存储，避免 HashMap&lt;Long, Integer&gt; 的装箱与 Entry 对象开销
+ *
+ * 非线程安全，由调用方加锁
+ */
+public class LongIntOpenHashMap {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private boolean containsEmptyKey;
+    private int emptyKeyValue;
+    private int size;
+
+    public LongIntOpenHashMap(int expectedSize) {
+        int capacity = tableSizeFor(expectedSize);
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * 写入映射，已存在时覆盖
+     */
+    public void put(long key, int value) {
+        if (key == EMPTY) {
+            if (!containsEmptyKey) {
+                containsEmptyKey = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return;
+        }
+
+        int mask = keys.length - 1;
+        int i = (int) LongOpenHashSet.HashMix.mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+
+        if (size > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * 获取映射值，不存在时返回 defaultValue
+     */
+    public int get(long key, int defaultValue) {
+        if (key == EMPTY) {
+            return containsEmptyKey ? emptyKeyValue : defaultValue;
+        }
+
+        int mask = keys.length - 1;
+        int i = (int) LongOpenHashSet.HashMix.mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return containsEmptyKey;
+        }
+
+        int mask = keys.length - 1;
+        int i = (int) LongOpenHashSet.HashMix.mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[newCapacity];
+        values = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            long key = oldKeys[j];
+            if (key != EMPTY) {
+                int i = (int) LongOpenHashSet.HashMix.mix(key) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        return Math.max(16, capacity);
+    }
+}
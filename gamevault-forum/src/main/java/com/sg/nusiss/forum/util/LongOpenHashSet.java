@@ -0,0 +1,129 @@
+package com.sg.nusiss.forum.util;
+
+import java.util.Arrays;
+
+/**
+ * 基于开放寻址的 long 集合
+ * 直接存储原始 long，避免 HashSet&lt;Long&gt; 的装箱与 Entry 对象开销
+ *
+ * 非线程安全，由调用方加锁
+ */
+public class LongOpenHashSet {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private final int initialCapacity;
+    private long[] table;
+    private boolean containsEmptyKey;
+    private int size;
+
+    public LongOpenHashSet(int expectedSize) {
+        this.initialCapacity = tableSizeFor(expectedSize);
+        this.table = new long[initialCapacity];
+    }
+
+    /**
+     * 添加元素
+     *
+     * @return true 如果元素之前不存在
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (containsEmptyKey) {
+                return false;
+            }
+            containsEmptyKey = true;
+            size++;
+            return true;
+        }
+
+        int mask = table.length - 1;
+        int i = (int) HashMix.mix(key) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+        size++;
+
+        if (size > table.length * LOAD_FACTOR) {
+            rehash(table.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == EMPTY) {
+            return containsEmptyKey;
+        }
+
+        int mask = table.length - 1;
+        int i = (int) HashMix.mix(key) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 清空集合；扩容过的底层数组会收缩回初始大小，释放内存
+     */
+    public void clear() {
+        if (table.length > initialCapacity) {
+            table = new long[initialCapacity];
+        } else {
+            Arrays.fill(table, EMPTY);
+        }
+        containsEmptyKey = false;
+        size = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] old = table;
+        table = new long[newCapacity];
+        int mask = newCapacity - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int i = (int) HashMix.mix(key) & mask;
+                while (table[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = key;
+            }
+        }
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        return Math.max(16, capacity);
+    }
+
+    /**
+     * 64 位哈希混淆（SplitMix64 finalizer）
+     */
+    public static final class HashMix {
+
+        private HashMix() {
+        }
+
+        public static long mix(long x) {
+            x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+            x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+            return x ^ (x >>> 31);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.sg.nusiss.forum.util;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 列表游标 (created_date, content_id)
+ * 对外以 HashIdUtil 编码成不透明字符串，客户端只需原样回传
+ */
+public final class PageCursor {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int MAX_YEAR = 9999;
+
+    private final LocalDateTime createdDate;
+    private final Long contentId;
+
+    public PageCursor(LocalDateTime createdDate, Long contentId) {
+        this.createdDate = createdDate;
+        this.contentId = contentId;
+    }
+
+    public LocalDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    /**
+     * 编码为字符串（时间精确到微秒，与 PostgreSQL TIMESTAMP 精度一致）
+     */
+    public String encode(HashIdUtil hashIdUtil) {
+        long micros = ChronoUnit.MICROS.between(EPOCH, createdDate);
+        return hashIdUtil.encodeIds(micros, contentId);
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @return 游标为空时返回 null（表示第一页）
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static PageCursor decode(String cursor, HashIdUtil hashIdUtil) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        long[] parts = hashIdUtil.decodeIds(cursor);
+        if (parts.length != 2 || parts[0] < 0 || parts[1] < 0) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        // 被篡改但仍能解码的游标：时间超出 LocalDateTime 或数据库 TIMESTAMP 的范围
+        LocalDateTime createdDate;
+        try {
+            createdDate = EPOCH.plus(parts[0], ChronoUnit.MICROS);
+        } catch (DateTimeException | ArithmeticException e) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        if (createdDate.getYear() > MAX_YEAR) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        return new PageCursor(createdDate, parts[1]);
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{" + createdDate + ", " + contentId + '}';
+    }
+}
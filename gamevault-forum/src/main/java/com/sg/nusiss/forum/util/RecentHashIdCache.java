@@ -0,0 +1,59 @@
+package com.sg.nusiss.forum.util;
+
+/**
+ * 最近编码/解码过的 ID 缓存
+ *
+ * 直接映射：ID 和 hash 各按哈希值落到固定槽位，冲突时新值覆盖旧值，槽位里总是最近用过的那个。
+ * 读写都只是一次数组访问，不加锁；条目不可变，并发读到的要么是旧条目要么是完整的新条目。
+ * 命中时编码直接返回已有字符串、解码直接返回数字，不分配对象。
+ */
+final class RecentHashIdCache {
+
+    private final Entry[] byId;
+    private final Entry[] byHash;
+    private final int mask;
+
+    RecentHashIdCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.byId = new Entry[size];
+        this.byHash = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 查找 ID 的编码结果，未命中返回 null
+     */
+    String getHash(long id) {
+        Entry entry = byId[slot(id)];
+        return entry != null && entry.id == id ? entry.hash : null;
+    }
+
+    /**
+     * 查找 hash 对应的 ID，未命中返回 -1
+     */
+    long getId(String hash) {
+        Entry entry = byHash[hash.hashCode() & mask];
+        return entry != null && entry.hash.equals(hash) ? entry.id : -1;
+    }
+
+    void put(long id, String hash) {
+        Entry entry = new Entry(id, hash);
+        byId[slot(id)] = entry;
+        byHash[hash.hashCode() & mask] = entry;
+    }
+
+    private int slot(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static final class Entry {
+        final long id;
+        final String hash;
+
+        Entry(long id, String hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+    }
+}
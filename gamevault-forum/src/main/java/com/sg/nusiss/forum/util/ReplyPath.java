@@ -0,0 +1,101 @@
+package com.sg.nusiss.forum.util;
+
+/**
+ * 回复树物化路径（contents.reply_path）
+ *
+ * 路径由根回复到自身的 content_id 依次拼接，每段固定 12 位小写十六进制，
+ * 与 SQL 中的 lpad(to_hex(content_id), 12, '0') 一致。
+ * 段定长且字符都小于 'g'，所以 [path, path + "g") 就是以 path 为根的整棵子树。
+ */
+public final class ReplyPath {
+
+    public static final int SEGMENT_LENGTH = 12;
+
+    // 子树区间上界后缀
+    private static final String RANGE_END = "g";
+
+    private ReplyPath() {}
+
+    /**
+     * 由 ID 序列（根 -> 自身）拼出路径
+     */
+    public static String of(Long... ids) {
+        StringBuilder path = new StringBuilder(ids.length * SEGMENT_LENGTH);
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new IllegalArgumentException("无效的回复路径");
+            }
+            String hex = Long.toHexString(id);
+            if (hex.length() > SEGMENT_LENGTH) {
+                throw new IllegalArgumentException("无效的回复路径");
+            }
+            for (int i = hex.length(); i < SEGMENT_LENGTH; i++) {
+                path.append('0');
+            }
+            path.append(hex);
+        }
+        return path.toString();
+    }
+
+    /**
+     * 拆出路径上的 ID 序列（根 -> 自身）
+     */
+    public static Long[] ids(String path) {
+        if (!isValid(path)) {
+            throw new IllegalArgumentException("无效的回复路径");
+        }
+        Long[] ids = new Long[path.length() / SEGMENT_LENGTH];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = Long.parseLong(path, i * SEGMENT_LENGTH, (i + 1) * SEGMENT_LENGTH, 16);
+        }
+        return ids;
+    }
+
+    /**
+     * 路径所在层级（根回复为 0）
+     */
+    public static int depth(String path) {
+        return path.length() / SEGMENT_LENGTH - 1;
+    }
+
+    /**
+     * 父节点路径，根回复返回 null
+     */
+    public static String parent(String path) {
+        if (path == null || path.length() <= SEGMENT_LENGTH) {
+            return null;
+        }
+        return path.substring(0, path.length() - SEGMENT_LENGTH);
+    }
+
+    /**
+     * 树中父节点的 content_id，根回复返回 null
+     */
+    public static Long parentId(String path) {
+        String parent = parent(path);
+        if (parent == null) {
+            return null;
+        }
+        return Long.parseLong(parent, parent.length() - SEGMENT_LENGTH, parent.length(), 16);
+    }
+
+    /**
+     * 子树区间的上界（不含）
+     */
+    public static String rangeEnd(String path) {
+        return path + RANGE_END;
+    }
+
+    private static boolean isValid(String path) {
+        if (path == null || path.isEmpty() || path.length() % SEGMENT_LENGTH != 0) {
+            return false;
+        }
+        for (int i = 0; i < path.length(); i++) {
+            char ch = path.charAt(i);
+            if ((ch < '0' || ch > '9') && (ch < 'a' || ch > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package com.sg.nusiss.forum.util;
+
+/**
+ * 全文搜索游标 (search_rank, content_id)
+ * 相关度按 float 位模式编码，对外以 HashIdUtil 编码成不透明字符串，客户端只需原样回传
+ */
+public final class SearchCursor {
+
+    private final float rank;
+    private final Long contentId;
+
+    public SearchCursor(float rank, Long contentId) {
+        this.rank = rank;
+        this.contentId = contentId;
+    }
+
+    public float getRank() {
+        return rank;
+    }
+
+    public Long getContentId() {
+        return contentId;
+    }
+
+    public String encode(HashIdUtil hashIdUtil) {
+        return hashIdUtil.encodeIds(Float.floatToIntBits(rank), contentId);
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @return 游标为空时返回 null（表示第一页）
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static SearchCursor decode(String cursor, HashIdUtil hashIdUtil) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        long[] parts = hashIdUtil.decodeIds(cursor);
+        // 被篡改但仍能解码的游标：位模式超出 int 范围（强转会被截断）、负数或 NaN / 无穷大
+        if (parts.length != 2 || parts[0] < 0 || parts[0] > Integer.MAX_VALUE || parts[1] < 0) {
+            throw new IllegalArgumentException("无效的搜索游标");
+        }
+        float rank = Float.intBitsToFloat((int) parts[0]);
+        if (!Float.isFinite(rank)) {
+            throw new IllegalArgumentException("无效的搜索游标");
+        }
+        return new SearchCursor(rank, parts[1]);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCursor{" + rank + ", " + contentId + '}';
+    }
+}
@@ -0,0 +1,72 @@
+package com.sg.nusiss.forum.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ForumReplicaDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ResultSet lag = mock(ResultSet.class);
+    private final ForumReplicaDataSource dataSource =
+            new ForumReplicaDataSource(primary, replica, 5, new SimpleMeterRegistry());
+
+    ForumReplicaDataSourceTest() throws SQLException {
+        Statement statement = mock(Statement.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(replicaConnection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(lag);
+        when(lag.next()).thenReturn(true);
+    }
+
+    @Test
+    void routesToReplicaOnlyWhileLagIsWithinLimit() throws SQLException {
+        // 第一次检查之前不使用从库
+        assertSame(primaryConnection, dataSource.getConnection());
+
+        when(lag.getObject(1)).thenReturn(1.5);
+        when(lag.getDouble(1)).thenReturn(1.5);
+        dataSource.checkLag();
+        assertSame(replicaConnection, dataSource.getConnection());
+
+        ForumReplicaDataSource.setPrimaryOnly(true);
+        try {
+            assertSame(primaryConnection, dataSource.getConnection());
+        } finally {
+            ForumReplicaDataSource.setPrimaryOnly(false);
+        }
+
+        when(lag.getObject(1)).thenReturn(30.0);
+        when(lag.getDouble(1)).thenReturn(30.0);
+        dataSource.checkLag();
+        assertFalse(dataSource.isReplicaUsable());
+        assertSame(primaryConnection, dataSource.getConnection());
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicaIsDown() throws SQLException {
+        when(lag.getObject(1)).thenReturn(0.0);
+        dataSource.checkLag();
+        assertTrue(dataSource.isReplicaUsable());
+
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        assertSame(primaryConnection, dataSource.getConnection());
+        assertFalse(dataSource.isReplicaUsable());
+    }
+}
@@ -0,0 +1,99 @@
+package com.sg.nusiss.forum.config;
+
+import com.sg.nusiss.common.domain.BaseResponse;
+import com.sg.nusiss.forum.util.ForumRequestStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ForumRequestMetricsInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ForumRequestMetricsInterceptor interceptor = new ForumRequestMetricsInterceptor(meterRegistry);
+    private final ForumResponseCodeAdvice codeAdvice = new ForumResponseCodeAdvice();
+
+    @SuppressWarnings("unused")
+    public void getPostList() {
+    }
+
+    static class OtherController {
+        @SuppressWarnings("unused")
+        public void getPostList() {
+        }
+    }
+
+    @Test
+    void recordsLatencyAndPerRequestCallCounts() throws Exception {
+        HandlerMethod handler = new HandlerMethod(this, getClass().getMethod("getPostList"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/forum/posts");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/forum/posts");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, handler);
+        ForumRequestStats.recordStatement();
+        ForumRequestStats.recordStatement();
+        ForumRequestStats.recordStatement();
+        ForumRequestStats.recordRemoteCall();
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(1, meterRegistry.get("forum.endpoint.latency")
+                .tag("endpoint", "ForumRequestMetricsInterceptorTest.getPostList")
+                .tag("uri", "/api/forum/posts")
+                .tag("code", "none")
+                .timer().count());
+        assertEquals(3.0, meterRegistry.get("forum.endpoint.db.statements").summary().totalAmount());
+        assertEquals(1.0, meterRegistry.get("forum.endpoint.remote.calls").summary().totalAmount());
+        // 请求结束后不再计入
+        assertNull(ForumRequestStats.end());
+    }
+
+    @Test
+    void separatesSameMethodNameAcrossControllers() throws Exception {
+        complete(new HandlerMethod(this, getClass().getMethod("getPostList")), null);
+        complete(new HandlerMethod(new OtherController(), OtherController.class.getMethod("getPostList")), null);
+
+        assertEquals(1, meterRegistry.get("forum.endpoint.latency")
+                .tag("endpoint", "ForumRequestMetricsInterceptorTest.getPostList").timer().count());
+        assertEquals(1, meterRegistry.get("forum.endpoint.latency")
+                .tag("endpoint", "OtherController.getPostList").timer().count());
+    }
+
+    @Test
+    void tagsTheBusinessCodeWrittenInTheResponseBody() throws Exception {
+        HandlerMethod handler = new HandlerMethod(this, getClass().getMethod("getPostList"));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/forum/posts");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        interceptor.preHandle(request, response, handler);
+        codeAdvice.beforeBodyWrite(new BaseResponse<>(40000, null, "参数错误"), null, MediaType.APPLICATION_JSON,
+                null, new ServletServerHttpRequest(request), new ServletServerHttpResponse(response));
+        interceptor.afterCompletion(request, response, handler, null);
+
+        assertEquals(1, meterRegistry.get("forum.endpoint.latency")
+                .tag("status", "200").tag("code", "40000").timer().count());
+    }
+
+    @Test
+    void unhandledExceptionIsRecordedAsServerError() throws Exception {
+        complete(new HandlerMethod(this, getClass().getMethod("getPostList")), new IllegalStateException("boom"));
+
+        assertEquals(1, meterRegistry.get("forum.endpoint.latency")
+                .tag("status", "500").tag("code", "exception").timer().count());
+    }
+
+    private void complete(HandlerMethod handler, Exception ex) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/forum/posts");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, handler);
+        interceptor.afterCompletion(request, response, handler, ex);
+    }
+}
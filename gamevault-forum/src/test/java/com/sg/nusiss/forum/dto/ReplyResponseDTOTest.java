@@ -0,0 +1,80 @@
+package com.sg.nusiss.forum.dto;
+
+import com.sg.nusiss.forum.entity.ForumContent;
+import com.sg.nusiss.forum.util.ReplyPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplyResponseDTOTest {
+
+    private static ForumContent reply(Long... path) {
+        ForumContent content = new ForumContent();
+        content.setContentId(path[path.length - 1]);
+        content.setParentId(1L);
+        content.setReplyPath(ReplyPath.of(path));
+        content.setReplyDepth(path.length - 1);
+        return content;
+    }
+
+    @Test
+    void nestsRowsInPathOrder() {
+        List<ReplyResponseDTO> roots = ReplyResponseDTO.toTree(List.of(
+                reply(10L),
+                reply(10L, 12L),
+                reply(10L, 12L, 15L),
+                reply(10L, 13L),
+                reply(11L)));
+
+        assertEquals(2, roots.size());
+        ReplyResponseDTO first = roots.get(0);
+        assertEquals(10L, first.getReplyId());
+        assertNull(first.getTreeParentId());
+        assertEquals(2, first.getChildren().size());
+        assertEquals(15L, first.getChildren().get(0).getChildren().get(0).getReplyId());
+        assertEquals(12L, first.getChildren().get(0).getChildren().get(0).getTreeParentId());
+        assertEquals(11L, roots.get(1).getReplyId());
+    }
+
+    @Test
+    void attachesOrphansToNearestLoadedAncestor() {
+        // 12 已删除：15 挂到 10 下；20 的祖先都不在结果中（上一页），作为顶层节点返回
+        List<ReplyResponseDTO> roots = ReplyResponseDTO.toTree(List.of(
+                reply(10L),
+                reply(10L, 12L, 15L),
+                reply(9L, 20L)));
+
+        assertEquals(2, roots.size());
+        assertEquals(15L, roots.get(0).getChildren().get(0).getReplyId());
+        assertEquals(20L, roots.get(1).getReplyId());
+        assertEquals(9L, roots.get(1).getTreeParentId());
+        assertArrayEquals(new Long[]{10L, 12L, 15L}, ReplyPath.ids(ReplyPath.of(10L, 12L, 15L)));
+    }
+
+    @Test
+    void keepsDeletedRootAsTombstoneWithItsChildren() {
+        ForumContent deletedRoot = reply(10L);
+        deletedRoot.setStatus("deleted");
+        deletedRoot.setBody("<p>removed</p>");
+        deletedRoot.setBodyPlain("removed");
+        ForumContent child = reply(10L, 12L);
+        child.setStatus("active");
+        child.setBody("<p>still here</p>");
+
+        List<ReplyResponseDTO> roots = ReplyResponseDTO.toTree(List.of(deletedRoot, child));
+
+        assertEquals(1, roots.size());
+        ReplyResponseDTO tombstone = roots.get(0);
+        assertTrue(tombstone.getDeleted());
+        assertEquals("", tombstone.getBody());
+        assertEquals("", tombstone.getBodyPlain());
+        assertEquals(12L, tombstone.getChildren().get(0).getReplyId());
+        assertEquals("<p>still here</p>", tombstone.getChildren().get(0).getBody());
+        assertNull(tombstone.getChildren().get(0).getDeleted());
+    }
+}
@@ -0,0 +1,44 @@
+package com.sg.nusiss.forum.repository;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按 forum/ForumContentLikeMapper.xml 生成 SQL，检查切换点赞只作用于 active 内容
+ * （语句本身依赖 PostgreSQL，单元测试环境没有数据库，只检查生成的语句）
+ */
+class ForumContentLikeMapperSqlTest {
+
+    private static final String NAMESPACE = ForumContentLikeMapper.class.getName();
+
+    private final Configuration configuration = new Configuration();
+
+    ForumContentLikeMapperSqlTest() throws IOException {
+        String resource = "forum/ForumContentLikeMapper.xml";
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+            new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+    }
+
+    @Test
+    void toggleOnlyTouchesActiveContent() {
+        String toggle = configuration.getMappedStatement(NAMESPACE + ".toggleLike")
+                .getBoundSql(new HashMap<>(Map.of("userId", 5L, "contentId", 7L, "relationTypeId", 1)))
+                .getSql()
+                .replaceAll("\\s+", " ");
+
+        assertTrue(toggle.contains("FROM contents WHERE content_id = ? AND status = 'active'"));
+        // 删除、插入、计数和返回行都从 target 出发：内容已删除时什么都不写，也不返回行
+        assertTrue(toggle.contains("DELETE FROM user_content_relations u USING target"));
+        assertTrue(toggle.contains("SELECT ?, target.content_id, ?, CURRENT_TIMESTAMP FROM target"));
+        assertTrue(toggle.trim().endsWith("FROM target"));
+    }
+}
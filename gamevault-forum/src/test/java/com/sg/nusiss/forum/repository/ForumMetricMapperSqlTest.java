@@ -0,0 +1,64 @@
+package com.sg.nusiss.forum.repository;
+
+import com.sg.nusiss.forum.entity.ContentMetric;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按 forum/ForumMetricMapper.xml 生成 SQL，检查计数写入与对账使用的写入时间列
+ * （语句本身依赖 PostgreSQL，单元测试环境没有数据库，只检查生成的语句）
+ */
+class ForumMetricMapperSqlTest {
+
+    private static final String NAMESPACE = ForumMetricMapper.class.getName();
+
+    private final Configuration configuration = new Configuration();
+
+    ForumMetricMapperSqlTest() throws IOException {
+        String resource = "forum/ForumMetricMapper.xml";
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+            new XMLMapperBuilder(in, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+    }
+
+    @Test
+    void viewFlushesDuringReconcileDoNotHoldBackLikeAndReplyRepair() {
+        // 浏览数每隔几秒刷新一次：只刷新 updated_date，不碰 like/reply 的写入时间
+        String viewFlush = batchIncrement("view_count");
+        assertTrue(viewFlush.contains("updated_date = CURRENT_TIMESTAMP"));
+        assertFalse(viewFlush.contains("like_updated_date"));
+        assertFalse(viewFlush.contains("reply_updated_date"));
+
+        assertTrue(batchIncrement("like_count").contains("like_updated_date = CURRENT_TIMESTAMP"));
+        assertTrue(batchIncrement("reply_count").contains("reply_updated_date = CURRENT_TIMESTAMP"));
+
+        // 对账按列判断：点赞、回复数只看各自的写入时间，刚刷新过浏览数的行也会被修正
+        String reconcile = sql("reconcileCounters", Map.of("fromId", 0L, "toId", 100L, "settleSeconds", 60));
+        assertTrue(reconcile.contains("like_count = CASE WHEN COALESCE(content_counters.like_updated_date <"));
+        assertTrue(reconcile.contains("reply_count = CASE WHEN COALESCE(content_counters.reply_updated_date <"));
+        assertTrue(reconcile.contains("view_count = CASE WHEN COALESCE(content_counters.updated_date <"));
+        assertFalse(reconcile.contains("AND content_counters.updated_date <"));
+    }
+
+    private String batchIncrement(String metricName) {
+        ContentMetric delta = new ContentMetric(1L, null, 1);
+        return sql("batchIncrementMetric", Map.of("metricName", metricName, "deltas", List.of(delta)));
+    }
+
+    private String sql(String statement, Map<String, Object> params) {
+        return configuration.getMappedStatement(NAMESPACE + "." + statement)
+                .getBoundSql(new HashMap<>(params))
+                .getSql()
+                .replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,81 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.dto.BulkContentResult;
+import com.sg.nusiss.forum.dto.BulkImportRequest;
+import com.sg.nusiss.forum.entity.ForumContent;
+import com.sg.nusiss.forum.repository.ForumContentMapper;
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ForumBulkContentServiceTest {
+
+    private final ForumContentMapper contentMapper = mock(ForumContentMapper.class);
+    private final ForumMetricMapper metricMapper = mock(ForumMetricMapper.class);
+    private final ForumBulkContentService service = new ForumBulkContentService(contentMapper, metricMapper,
+            new ForumCountCache(30000, 100), mock(ApplicationEventPublisher.class), List.of(1L), 8);
+
+    private static BulkImportRequest.Item item(String ref, String type, String parentRef, String replyToRef) {
+        BulkImportRequest.Item item = new BulkImportRequest.Item();
+        item.setRef(ref);
+        item.setType(type);
+        item.setTitle("post".equals(type) ? "标题" : null);
+        item.setBody("内容");
+        item.setAuthorId(5L);
+        item.setParentRef(parentRef);
+        item.setReplyToRef(replyToRef);
+        return item;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resolvesInBatchReferencesAndReportsPerItemErrors() {
+        when(contentMapper.allocateContentIds(anyInt())).thenReturn(List.of(100L, 101L, 102L));
+
+        List<BulkContentResult> results = service.importContents(List.of(
+                item("p1", "post", null, null),
+                item("r1", "reply", "p1", null),
+                item("r2", "reply", "missing", null),
+                item("r3", "reply", "p1", "r1")));
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(101L, results.get(1).getContentId());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals(102L, results.get(3).getContentId());
+
+        ArgumentCaptor<List<ForumContent>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(contentMapper).batchInsert(inserted.capture());
+        ForumContent nested = inserted.getValue().get(2);
+        assertEquals(100L, nested.getParentId());
+        assertEquals(101L, nested.getReplyTo());
+
+        verify(contentMapper).fillReplyPaths(new Long[]{101L, 102L}, 8);
+        verify(metricMapper).initBatchMetrics(new Long[]{100L, 101L, 102L});
+        ArgumentCaptor<Long[]> posts = ArgumentCaptor.forClass(Long[].class);
+        verify(metricMapper).syncReplyCounts(posts.capture());
+        assertArrayEquals(new Long[]{100L}, posts.getValue());
+    }
+
+    @Test
+    void onlyConfiguredModeratorsMayUseBulkEndpoints() {
+        assertTrue(service.isModerator(1L));
+        assertFalse(service.isModerator(5L));
+        assertFalse(service.isModerator(null));
+        verify(contentMapper, never()).batchInsert(any());
+    }
+}
@@ -0,0 +1,87 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.entity.ContentLikeState;
+import com.sg.nusiss.forum.repository.ForumContentLikeMapper;
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ForumContentLikeServiceTest {
+
+    private final ForumContentLikeMapper likeMapper = mock(ForumContentLikeMapper.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final ForumContentLikeService service =
+            new ForumContentLikeService(likeMapper, mock(ForumMetricMapper.class), eventPublisher);
+
+    private static ContentLikeState state(long contentId, boolean liked, int count, boolean changed) {
+        ContentLikeState state = new ContentLikeState(contentId, liked);
+        state.setLikeCount(count);
+        state.setChanged(changed);
+        return state;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void bulkKeepsLastActionPerContentInIdOrder() {
+        when(likeMapper.setLikes(eq(5L), anyInt(), anyList()))
+                .thenReturn(List.of(state(1L, false, 0, false), state(3L, true, 4, true)));
+
+        List<ContentLikeState> states = service.bulkSetLikes(5L, List.of(
+                new ContentLikeState(3L, false),
+                new ContentLikeState(1L, false),
+                new ContentLikeState(3L, true)));
+
+        ArgumentCaptor<List<ContentLikeState>> captor = ArgumentCaptor.forClass(List.class);
+        verify(likeMapper).setLikes(eq(5L), anyInt(), captor.capture());
+        List<ContentLikeState> sent = captor.getValue();
+        assertEquals(2, sent.size());
+        assertEquals(1L, sent.get(0).getContentId());
+        assertEquals(3L, sent.get(1).getContentId());
+        assertTrue(sent.get(1).isLiked());
+
+        assertEquals(2, states.size());
+        // 只有实际变化的内容发布事件
+        ArgumentCaptor<ForumContentEvent> events = ArgumentCaptor.forClass(ForumContentEvent.class);
+        verify(eventPublisher).publishEvent(events.capture());
+        assertEquals(ForumContentEvent.Type.LIKED, events.getValue().getType());
+        assertEquals(3L, events.getValue().getContentId());
+    }
+
+    @Test
+    void toggleReturnsStateFromSingleStatement() {
+        when(likeMapper.toggleLike(5L, 7L, 1)).thenReturn(state(7L, false, 2, true));
+
+        ContentLikeState state = service.toggleLike(7L, 5L);
+
+        assertFalse(state.isLiked());
+        assertEquals(2, state.getLikeCount());
+        verify(likeMapper, never()).existsByUserAndContentAndType(any(), any(), any());
+    }
+
+    @Test
+    void toggleOnMissingOrDeletedContentIsRejected() {
+        // 语句只作用于 active 内容，已删除时不返回行
+        when(likeMapper.toggleLike(5L, 7L, 1)).thenReturn(null);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> service.toggleLike(7L, 5L));
+
+        assertEquals("内容不存在", e.getMessage());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+}
@@ -0,0 +1,139 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ForumCounterServiceTest {
+
+    private final ForumMetricMapper metricMapper = mock(ForumMetricMapper.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+    private final ForumCounterService service = newService("memory");
+
+    ForumCounterServiceTest() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ForumCounterService newService(String lockMode) {
+        ObjectProvider<StringRedisTemplate> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(redisTemplate);
+        return new ForumCounterService(metricMapper, new SimpleMeterRegistry(), 100, 2, 0, 60,
+                lockMode, 120, provider);
+    }
+
+    @Test
+    void resumesFromCheckpointAndStopsAtBatchLimit() {
+        when(metricMapper.findCheckpoint(ForumCounterService.JOB_NAME)).thenReturn(500L);
+        when(metricMapper.findContentRangeEnd(500L, 100)).thenReturn(620L);
+        when(metricMapper.findContentRangeEnd(620L, 100)).thenReturn(731L);
+        when(metricMapper.reconcileCounterRange(500L, 620L, 60)).thenReturn(3);
+        when(metricMapper.reconcileCounterRange(620L, 731L, 60)).thenReturn(1);
+
+        assertEquals(4, service.reconcile());
+
+        InOrder order = inOrder(metricMapper);
+        order.verify(metricMapper).saveCheckpoint(ForumCounterService.JOB_NAME, 620L);
+        order.verify(metricMapper).saveCheckpoint(ForumCounterService.JOB_NAME, 731L);
+        // 达到单次段数上限，第三段留到下一次
+        verify(metricMapper, never()).findContentRangeEnd(eq(731L), anyInt());
+    }
+
+    @Test
+    void resetsCheckpointAfterFullPass() {
+        when(metricMapper.findCheckpoint(ForumCounterService.JOB_NAME)).thenReturn(null);
+        when(metricMapper.findContentRangeEnd(0L, 100)).thenReturn(42L);
+        when(metricMapper.findContentRangeEnd(42L, 100)).thenReturn(null);
+
+        assertEquals(0, service.reconcile());
+
+        InOrder order = inOrder(metricMapper);
+        order.verify(metricMapper).reconcileCounterRange(0L, 42L, 60);
+        order.verify(metricMapper).saveCheckpoint(ForumCounterService.JOB_NAME, 42L);
+        order.verify(metricMapper).saveCheckpoint(ForumCounterService.JOB_NAME, 0L);
+        verify(metricMapper, never()).reconcileCounterRange(eq(42L), anyLong(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redisLockIsRenewedPerBatchAndReleasedAfterRun() {
+        ForumCounterService locked = newService("redis");
+        when(valueOps.setIfAbsent(eq(ForumCounterService.LOCK_KEY), anyString(), eq(Duration.ofSeconds(120))))
+                .thenReturn(true);
+        when(redisTemplate.execute(any(RedisScript.class), any(List.class), any(), any())).thenReturn(1L);
+        when(metricMapper.findCheckpoint(ForumCounterService.JOB_NAME)).thenReturn(500L);
+        when(metricMapper.findContentRangeEnd(500L, 100)).thenReturn(620L);
+        when(metricMapper.findContentRangeEnd(620L, 100)).thenReturn(731L);
+
+        locked.reconcile();
+
+        // 两段各续期一次（脚本参数：token + TTL），结束后释放一次（脚本参数：token）
+        verify(redisTemplate, times(2))
+                .execute(any(RedisScript.class), eq(List.of(ForumCounterService.LOCK_KEY)), anyString(), eq("120000"));
+        verify(redisTemplate, times(1))
+                .execute(any(RedisScript.class), eq(List.of(ForumCounterService.LOCK_KEY)), anyString());
+        verify(metricMapper).saveCheckpoint(ForumCounterService.JOB_NAME, 731L);
+    }
+
+    @Test
+    void skipsRunWhenAnotherInstanceHoldsTheLock() {
+        ForumCounterService locked = newService("redis");
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertEquals(0, locked.reconcile());
+
+        verifyNoInteractions(metricMapper);
+    }
+
+    @Test
+    void skipsRunWhenRedisIsUnavailable() {
+        ForumCounterService locked = newService("redis");
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("redis down"));
+
+        assertEquals(0, locked.reconcile());
+
+        verifyNoInteractions(metricMapper);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stopsAfterTheCurrentBatchWhenTheLockIsLost() {
+        ForumCounterService locked = newService("redis");
+        when(valueOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        // 锁已过期被其他实例拿走：续期失败
+        when(redisTemplate.execute(any(RedisScript.class), any(List.class), any(), any())).thenReturn(0L);
+        when(metricMapper.findCheckpoint(ForumCounterService.JOB_NAME)).thenReturn(500L);
+        when(metricMapper.findContentRangeEnd(500L, 100)).thenReturn(620L);
+
+        locked.reconcile();
+
+        verify(metricMapper).saveCheckpoint(ForumCounterService.JOB_NAME, 620L);
+        verify(metricMapper, never()).findContentRangeEnd(eq(620L), anyInt());
+    }
+}
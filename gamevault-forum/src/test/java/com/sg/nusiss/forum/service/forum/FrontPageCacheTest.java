@@ -0,0 +1,62 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.entity.ForumContent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class FrontPageCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @SuppressWarnings("unchecked")
+    private FrontPageCache newCache() {
+        return new FrontPageCache(3, 20, 60, "memory", 1000,
+                mock(ObjectProvider.class), new SimpleMeterRegistry());
+    }
+
+    private List<ForumContent> load() {
+        loads.incrementAndGet();
+        ForumContent post = new ForumContent();
+        post.setContentId(7L);
+        post.setLikeCount(1);
+        post.setReplyCount(0);
+        return List.of(post);
+    }
+
+    @Test
+    void countersArePatchedWithoutRebuild() {
+        FrontPageCache cache = newCache();
+
+        List<ForumContent> first = cache.getPage(0, this::load);
+        first.get(0).setIsLikedByCurrentUser(true);
+
+        cache.onContentEvent(new ForumContentEvent(ForumContentEvent.Type.LIKED, 7L));
+        cache.onContentEvent(new ForumContentEvent(ForumContentEvent.Type.REPLY_CREATED, 7L));
+        ForumContent post = cache.getPage(0, this::load).get(0);
+
+        assertEquals(1, loads.get());
+        assertEquals(2, post.getLikeCount());
+        assertEquals(1, post.getReplyCount());
+        // 调用方修改副本不影响快照
+        assertNull(post.getIsLikedByCurrentUser());
+    }
+
+    @Test
+    void newPostInvalidatesSnapshot() {
+        FrontPageCache cache = newCache();
+
+        cache.getPage(0, this::load);
+        cache.onContentEvent(new ForumContentEvent(ForumContentEvent.Type.POST_CREATED, 8L));
+        cache.getPage(0, this::load);
+
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,57 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.repository.ForumContentMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HotPostRankingTest {
+
+    private final ForumContentMapper contentMapper = mock(ForumContentMapper.class);
+
+    @SuppressWarnings("unchecked")
+    private HotPostRanking newRanking(int maxTracked) {
+        when(contentMapper.findHotCandidates(any(), anyInt())).thenReturn(List.of());
+        return new HotPostRanking(contentMapper, "memory", 6, 7, maxTracked, 5, 1, 5, 10,
+                mock(ObjectProvider.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void engagementReordersPosts() {
+        HotPostRanking ranking = newRanking(100);
+
+        ranking.onContentEvent(new ForumContentEvent(ForumContentEvent.Type.POST_CREATED, 1L));
+        ranking.onContentEvent(new ForumContentEvent(ForumContentEvent.Type.POST_CREATED, 2L));
+        assertEquals(List.of(2L, 1L), ranking.getTopPostIds(10));
+
+        ranking.onContentEvent(new ForumContentEvent(ForumContentEvent.Type.REPLY_CREATED, 1L));
+        ranking.onViewsFlushed(new ViewsFlushedEvent(Map.of(2L, 3L)));
+        assertEquals(List.of(1L, 2L), ranking.getTopPostIds(10));
+
+        // 不在榜中的内容（例如回复被点赞）不会进入榜单
+        ranking.onContentEvent(new ForumContentEvent(ForumContentEvent.Type.LIKED, 99L));
+        ranking.onContentEvent(new ForumContentEvent(ForumContentEvent.Type.POST_DELETED, 1L));
+        assertEquals(List.of(2L), ranking.getTopPostIds(10));
+    }
+
+    @Test
+    void trackedPostsAreCapped() {
+        HotPostRanking ranking = newRanking(3);
+
+        for (long id = 1; id <= 10; id++) {
+            ranking.onContentEvent(new ForumContentEvent(ForumContentEvent.Type.POST_CREATED, id));
+        }
+
+        assertEquals(3, ranking.getTrackedCount());
+        assertEquals(2, ranking.getTopPostIds(2).size());
+    }
+}
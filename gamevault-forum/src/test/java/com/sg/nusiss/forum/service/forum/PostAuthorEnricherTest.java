@@ -0,0 +1,42 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.forum.entity.ForumContent;
+import com.sg.nusiss.forum.service.user.UserService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PostAuthorEnricherTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final PostAuthorEnricher enricher = new PostAuthorEnricher(userService);
+
+    @Test
+    void batchLooksUpEachAuthorOnceAndMarksMissingAuthors() {
+        when(userService.getUsersByIds(List.of(1L, 2L)))
+                .thenReturn(List.of(new UserDTO(1L, "alice", null, "a.png")));
+        List<ForumContent> posts = List.of(post(10L, 1L), post(11L, 2L), post(12L, 1L));
+
+        enricher.enrichPosts(posts);
+
+        verify(userService).getUsersByIds(List.of(1L, 2L));
+        assertEquals("alice", posts.get(0).getAuthorName());
+        assertEquals("a.png", posts.get(2).getAuthorAvatar());
+        assertEquals("未知用户", posts.get(1).getAuthorName());
+        assertNull(posts.get(1).getAuthorAvatar());
+    }
+
+    private static ForumContent post(long contentId, long authorId) {
+        ForumContent post = new ForumContent();
+        post.setContentId(contentId);
+        post.setAuthorId(authorId);
+        return post;
+    }
+}
@@ -0,0 +1,89 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.entity.ContentMetric;
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReplyFanoutPipelineTest {
+
+    private final ForumMetricMapper metricMapper = mock(ForumMetricMapper.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReplyFanoutPipeline pipeline = new ReplyFanoutPipeline(metricMapper,
+            new ForumCountCache(30000, 100), eventPublisher, meterRegistry, 100, 50, 0, 3, 0);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void aggregatesReplyCountsPerPostAndNotifiesOthers() {
+        pipeline.process(List.of(
+                new ReplyFanoutPipeline.ReplyCreated(11L, 2L, 7L, 7L, null),
+                new ReplyFanoutPipeline.ReplyCreated(12L, 1L, 7L, 8L, 9L),
+                new ReplyFanoutPipeline.ReplyCreated(13L, 2L, 8L, 7L, 7L)));
+
+        ArgumentCaptor<List<ContentMetric>> posts = ArgumentCaptor.forClass(List.class);
+        verify(metricMapper).batchIncrementMetric(eq("reply_count"), posts.capture());
+        assertEquals(2, posts.getValue().size());
+        assertEquals(1L, posts.getValue().get(0).getContentId());
+        assertEquals(1, posts.getValue().get(0).getMetricValue());
+        assertEquals(2L, posts.getValue().get(1).getContentId());
+        assertEquals(2, posts.getValue().get(1).getMetricValue());
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(5)).publishEvent(events.capture());
+        List<ReplyNotificationEvent> notifications = events.getAllValues().stream()
+                .filter(ReplyNotificationEvent.class::isInstance)
+                .map(ReplyNotificationEvent.class::cast)
+                .toList();
+        // 回复自己的帖子不通知
+        assertEquals(2, notifications.size());
+        assertEquals(Set.of(8L, 9L), notifications.get(0).getRecipientIds());
+        assertEquals(Set.of(7L), notifications.get(1).getRecipientIds());
+    }
+
+    @Test
+    void retriesFailedStepAndCountsExhaustedRetries() {
+        when(metricMapper.batchIncrementMetric(eq("reply_count"), anyList()))
+                .thenThrow(new RuntimeException("db down"));
+
+        pipeline.process(List.of(new ReplyFanoutPipeline.ReplyCreated(11L, 2L, 7L, 8L, null)));
+
+        verify(metricMapper, times(3)).batchIncrementMetric(eq("reply_count"), anyList());
+        assertEquals(1.0, meterRegistry.get("forum.reply.pipeline.failures").counter().count());
+        // 计数失败不影响缓存失效和事件
+        verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void callerRunsTriesEachStepOnceWithoutBackoff() {
+        // 退避很长：请求线程上如果重试会明显超时；未启动的管道直接在提交线程上处理
+        ReplyFanoutPipeline slowRetries = new ReplyFanoutPipeline(metricMapper,
+                new ForumCountCache(30000, 100), eventPublisher, meterRegistry, 100, 50, 0, 3, 10_000);
+        when(metricMapper.batchIncrementMetric(eq("reply_count"), anyList()))
+                .thenThrow(new RuntimeException("db down"));
+
+        long start = System.nanoTime();
+        slowRetries.submit(11L, 2L, 7L, 8L, null);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 5_000, "请求线程不应等待重试退避");
+        verify(metricMapper, times(1)).batchIncrementMetric(eq("reply_count"), anyList());
+        assertEquals(1.0, meterRegistry.get("forum.reply.pipeline.failures").counter().count());
+    }
+}
@@ -0,0 +1,32 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class ReplyNotificationListenerTest {
+
+    @Test
+    void pipelineNotificationsReachTheListener() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(ReplyNotificationListener.class, () -> new ReplyNotificationListener(meterRegistry));
+            context.refresh();
+
+            ReplyFanoutPipeline pipeline = new ReplyFanoutPipeline(mock(ForumMetricMapper.class), new ForumCountCache(30000, 100),
+                    context, meterRegistry, 100, 50, 0, 1, 0);
+            pipeline.process(List.of(
+                    new ReplyFanoutPipeline.ReplyCreated(11L, 2L, 7L, 8L, 9L),
+                    new ReplyFanoutPipeline.ReplyCreated(12L, 2L, 8L, 8L, null)));
+        }
+
+        // 回复自己的帖子不通知：8、9 各一条
+        assertEquals(2.0, meterRegistry.get("forum.reply.notifications").counter().count());
+    }
+}
@@ -0,0 +1,62 @@
+package com.sg.nusiss.forum.service.forum;
+
+import com.sg.nusiss.forum.entity.ContentMetric;
+import com.sg.nusiss.forum.repository.ForumMetricMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ViewCountBufferTest {
+
+    private final ForumMetricMapper metricMapper = mock(ForumMetricMapper.class);
+    private final ViewCountBuffer buffer = new ViewCountBuffer(metricMapper, mock(ApplicationEventPublisher.class), new SimpleMeterRegistry());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushWritesAggregatedDeltasInOneStatement() {
+        for (int i = 0; i < 3; i++) {
+            buffer.increment(7L);
+        }
+        buffer.increment(2L);
+
+        assertEquals(4, buffer.flush());
+
+        ArgumentCaptor<List<ContentMetric>> captor = ArgumentCaptor.forClass(List.class);
+        verify(metricMapper).batchIncrementMetric(eq("view_count"), captor.capture());
+        List<ContentMetric> batch = captor.getValue();
+        assertEquals(2, batch.size());
+        assertEquals(2L, batch.get(0).getContentId());
+        assertEquals(1, batch.get(0).getMetricValue());
+        assertEquals(7L, batch.get(1).getContentId());
+        assertEquals(3, batch.get(1).getMetricValue());
+        assertEquals(0, buffer.getBufferedViews());
+    }
+
+    @Test
+    void emptyBufferDoesNotTouchDatabase() {
+        assertEquals(0, buffer.flush());
+        verify(metricMapper, never()).batchIncrementMetric(any(), anyList());
+    }
+
+    @Test
+    void failedFlushKeepsDeltasForRetry() {
+        when(metricMapper.batchIncrementMetric(any(), anyList())).thenThrow(new RuntimeException("db down"));
+        buffer.increment(5L);
+        buffer.increment(5L);
+
+        assertEquals(0, buffer.flush());
+        assertEquals(2, buffer.getPending(5L));
+    }
+}
@@ -0,0 +1,53 @@
+package com.sg.nusiss.forum.service.forum;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ViewTrackerTest {
+
+    @SuppressWarnings("unchecked")
+    private ViewTracker newTracker(int maxEntries) {
+        return new ViewTracker(5, 60, maxEntries, "memory", mock(ObjectProvider.class));
+    }
+
+    @Test
+    void repeatedViewWithinWindowIsNotCounted() {
+        ViewTracker tracker = newTracker(1000);
+
+        assertTrue(tracker.shouldIncrementView(42L, null, 17L));
+        assertFalse(tracker.shouldIncrementView(42L, null, 17L));
+        assertTrue(tracker.shouldIncrementView(42L, null, 18L));
+        assertTrue(tracker.shouldIncrementView(43L, null, 17L));
+        assertEquals(3, tracker.getRecordCount());
+    }
+
+    @Test
+    void recordCountStaysWithinCap() {
+        ViewTracker tracker = newTracker(160);
+
+        for (long postId = 0; postId < 10_000; postId++) {
+            tracker.shouldIncrementView(1L, null, postId);
+        }
+
+        assertTrue(tracker.getRecordCount() <= 160);
+    }
+
+    @Test
+    void packedAndHashedKeysDoNotCollide() {
+        long packed = ViewTracker.buildKey(1L, null, 2L);
+        long hashed = ViewTracker.buildKey(1L << 40, null, 2L);
+        long session = ViewTracker.buildKey(null, "abc", 2L);
+
+        assertEquals((1L << 32) | 2L, packed);
+        assertTrue(hashed < 0);
+        assertTrue(session < 0);
+        assertNotEquals(hashed, session);
+    }
+}
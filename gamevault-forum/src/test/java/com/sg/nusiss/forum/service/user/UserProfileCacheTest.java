@@ -0,0 +1,88 @@
+package com.sg.nusiss.forum.service.user;
+
+import com.sg.nusiss.common.dto.UserDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class UserProfileCacheTest {
+
+    private final List<List<Long>> loaderCalls = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    private UserProfileCache newCache() {
+        return new UserProfileCache("local", 60, 100, 600,
+                mock(ObjectProvider.class), mock(ObjectProvider.class), new SimpleMeterRegistry());
+    }
+
+    private List<UserDTO> load(List<Long> ids) {
+        loaderCalls.add(ids);
+        return ids.stream()
+                .filter(id -> id != 404L)
+                .map(id -> new UserDTO(id, "user" + id, null, null))
+                .collect(Collectors.toList());
+    }
+
+    @AfterEach
+    void resetRequest() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void batchLoadOnlyFetchesMisses() {
+        UserProfileCache cache = newCache();
+
+        cache.getAll(List.of(1L, 2L), this::load);
+        Map<Long, UserDTO> users = cache.getAll(List.of(1L, 2L, 3L, 3L), this::load);
+
+        assertEquals(3, users.size());
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L)), loaderCalls);
+    }
+
+    @Test
+    void missingUserIsFetchedOncePerRequest() {
+        UserProfileCache cache = newCache();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertNull(cache.get(404L, id -> load(List.of(id)).stream().findFirst().orElse(null)));
+        assertNull(cache.get(404L, id -> load(List.of(id)).stream().findFirst().orElse(null)));
+        assertEquals(1, loaderCalls.size());
+
+        // 新请求重新查询（查不到的用户不进入本地缓存）
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        cache.get(404L, id -> load(List.of(id)).stream().findFirst().orElse(null));
+        assertEquals(2, loaderCalls.size());
+    }
+
+    @Test
+    void overCapacityEvictsLeastRecentlyUsedEntries() {
+        UserProfileCache cache = newCache();
+        List<Long> first = LongStream.rangeClosed(1, 100).boxed().toList();
+        cache.getAll(first, this::load);
+        // 最早写入的 1..10 最近访问过，不应被淘汰
+        cache.getAll(first.subList(0, 10), this::load);
+
+        // 超过上限 100：淘汰到 90 条，去掉最久未访问的 11 条（11..21）
+        cache.getAll(List.of(101L), this::load);
+        loaderCalls.clear();
+
+        cache.getAll(first.subList(0, 10), this::load);
+        assertEquals(List.of(), loaderCalls);
+        cache.getAll(List.of(11L, 21L, 22L), this::load);
+        assertEquals(List.of(List.of(11L, 21L)), loaderCalls);
+    }
+}
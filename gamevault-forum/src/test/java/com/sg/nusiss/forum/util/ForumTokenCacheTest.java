@@ -0,0 +1,57 @@
+package com.sg.nusiss.forum.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForumTokenCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ForumTokenCache cache = new ForumTokenCache(900, 30, 100, meterRegistry);
+
+    @Test
+    void verifiesEachTokenOnceUntilExpiry() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, ForumJwtUtil.TokenInfo> verifier = token -> {
+            calls.incrementAndGet();
+            return new ForumJwtUtil.TokenInfo(true, 7L, "alice", Instant.now().plusSeconds(60));
+        };
+
+        assertTrue(cache.verify("token-a", verifier).valid);
+        assertEquals(7L, cache.verify("token-a", verifier).userId);
+        assertEquals(1, calls.get());
+
+        cache.verify("token-b", verifier);
+        assertEquals(2, calls.get());
+        assertEquals(1.0, meterRegistry.get("forum.auth.token.cache").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    void doesNotServeTokensPastTheirExp() {
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, ForumJwtUtil.TokenInfo> verifier = token -> {
+            calls.incrementAndGet();
+            return new ForumJwtUtil.TokenInfo(true, 7L, "alice", Instant.now().minusSeconds(1));
+        };
+
+        cache.verify("token-a", verifier);
+        cache.verify("token-a", verifier);
+        assertEquals(2, calls.get());
+
+        // 无效 Token 短暂缓存，不重复验签
+        Function<String, ForumJwtUtil.TokenInfo> invalid = token -> {
+            calls.incrementAndGet();
+            return new ForumJwtUtil.TokenInfo(false, null, null);
+        };
+        assertFalse(cache.verify("bad", invalid).valid);
+        assertFalse(cache.verify("bad", invalid).valid);
+        assertEquals(3, calls.get());
+    }
+}
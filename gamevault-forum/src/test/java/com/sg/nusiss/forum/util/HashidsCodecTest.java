@@ -0,0 +1,61 @@
+package com.sg.nusiss.forum.util;
+
+import org.hashids.Hashids;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class HashidsCodecTest {
+
+    private static final String SALT = "forum-backend-2024";
+
+    @Test
+    void matchesHashidsLibraryOutput() {
+        Random random = new Random(42);
+        for (int minLength : new int[]{0, 6, 8}) {
+            Hashids hashids = new Hashids(SALT + "-post", minLength);
+            HashidsCodec codec = new HashidsCodec(SALT + "-post", minLength);
+            for (int i = 0; i < 2000; i++) {
+                long id = i < 100 ? i : random.nextLong() >>> (1 + random.nextInt(63));
+                id = Math.min(id, Hashids.MAX_NUMBER);
+                String hash = hashids.encode(id);
+                assertEquals(hash, codec.encode(id));
+                assertEquals(id, codec.decodeFirst(hash));
+
+                long[] ids = {id, random.nextInt(1_000_000), Math.abs(random.nextLong()) % Hashids.MAX_NUMBER};
+                String multi = hashids.encode(ids);
+                assertEquals(multi, codec.encode(ids));
+                assertArrayEquals(hashids.decode(multi), codec.decode(multi));
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvalidHashes() {
+        HashidsCodec codec = new HashidsCodec(SALT + "-post", 8);
+        String hash = codec.encode(12345L);
+
+        assertEquals(-1, codec.decodeFirst(""));
+        assertEquals(-1, codec.decodeFirst("!!!!!!!!"));
+        assertEquals(-1, codec.decodeFirst(hash.substring(1)));
+        assertEquals(0, codec.decode(hash + "x").length);
+        assertEquals(-1, codec.decodeSingle(codec.encode(1L, 2L)));
+    }
+
+    @Test
+    void hashIdUtilCachesOnlyCanonicalSingleIds() {
+        HashIdUtil hashIdUtil = new HashIdUtil(SALT, 16);
+        String multi = hashIdUtil.encodeIds(7L, 8L);
+
+        // 多ID的 hash 解码取第一个，但不能污染 encode(7) 的结果
+        assertEquals(7L, hashIdUtil.decodePostId(multi));
+        assertEquals(new Hashids(SALT + "-post", 8).encode(7L), hashIdUtil.encodePostId(7L));
+        assertEquals(7L, hashIdUtil.decode(hashIdUtil.encode(7L)));
+        assertNull(hashIdUtil.decodePostId("invalid"));
+        assertArrayEquals(new long[]{7L, -1L}, hashIdUtil.decodePostIds(new String[]{hashIdUtil.encode(7L), "x"}));
+    }
+}
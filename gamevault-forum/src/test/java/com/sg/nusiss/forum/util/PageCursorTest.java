@@ -0,0 +1,47 @@
+package com.sg.nusiss.forum.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PageCursorTest {
+
+    private final HashIdUtil hashIdUtil = new HashIdUtil("forum-backend-2024");
+
+    @Test
+    void roundTripsToTheMicrosecond() {
+        LocalDateTime createdDate = LocalDateTime.of(2026, 10, 16, 8, 30, 15, 123_456_000);
+        String cursor = new PageCursor(createdDate, 42L).encode(hashIdUtil);
+
+        PageCursor decoded = PageCursor.decode(cursor, hashIdUtil);
+
+        assertEquals(createdDate, decoded.getCreatedDate());
+        assertEquals(42L, decoded.getContentId());
+        assertNull(PageCursor.decode("", hashIdUtil));
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not-a-cursor", hashIdUtil));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageCursor.decode(hashIdUtil.encodeIds(1L), hashIdUtil));
+    }
+
+    @Test
+    void rejectsDecodableCursorsWithOutOfRangeValues() {
+        HashIdUtil tampered = mock(HashIdUtil.class);
+        when(tampered.decodeIds("huge-time")).thenReturn(new long[]{Long.MAX_VALUE, 1L});
+        when(tampered.decodeIds("negative-id")).thenReturn(new long[]{0L, -1L});
+        when(tampered.decodeIds("negative-time")).thenReturn(new long[]{-1L, 1L});
+
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("huge-time", tampered));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("negative-id", tampered));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("negative-time", tampered));
+    }
+}
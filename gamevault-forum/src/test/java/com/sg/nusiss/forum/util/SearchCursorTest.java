@@ -0,0 +1,42 @@
+package com.sg.nusiss.forum.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchCursorTest {
+
+    private final HashIdUtil hashIdUtil = new HashIdUtil("forum-backend-2024");
+
+    @Test
+    void roundTripsTheExactRank() {
+        String cursor = new SearchCursor(0.0607927f, 42L).encode(hashIdUtil);
+
+        SearchCursor decoded = SearchCursor.decode(cursor, hashIdUtil);
+
+        assertEquals(0.0607927f, decoded.getRank());
+        assertEquals(42L, decoded.getContentId());
+        assertEquals(0f, SearchCursor.decode(new SearchCursor(0f, 1L).encode(hashIdUtil), hashIdUtil).getRank());
+        assertNull(SearchCursor.decode(null, hashIdUtil));
+    }
+
+    @Test
+    void rejectsDecodableCursorsWithOutOfRangeValues() {
+        HashIdUtil tampered = mock(HashIdUtil.class);
+        when(tampered.decodeIds("truncated")).thenReturn(new long[]{(1L << 32) + Float.floatToIntBits(1f), 1L});
+        when(tampered.decodeIds("nan")).thenReturn(new long[]{Float.floatToIntBits(Float.NaN), 1L});
+        when(tampered.decodeIds("infinite")).thenReturn(new long[]{Float.floatToIntBits(Float.POSITIVE_INFINITY), 1L});
+        when(tampered.decodeIds("negative-rank")).thenReturn(new long[]{Float.floatToIntBits(-1f), 1L});
+        when(tampered.decodeIds("negative-id")).thenReturn(new long[]{0L, -1L});
+        when(tampered.decodeIds("one-part")).thenReturn(new long[]{1L});
+
+        for (String cursor : new String[]{"truncated", "nan", "infinite", "negative-rank", "negative-id", "one-part"}) {
+            assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(cursor, tampered), cursor);
+        }
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not-a-cursor", hashIdUtil));
+    }
+}
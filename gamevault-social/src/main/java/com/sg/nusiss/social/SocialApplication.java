@@ -4,6 +4,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(scanBasePackages = {
         "com.sg.nusiss.social",
@@ -11,6 +12,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 })
 @EnableDiscoveryClient
 @EnableAsync
+@EnableScheduling
 public class SocialApplication {
     public static void main(String[] args) {
         SpringApplication.run(SocialApplication.class, args);
@@ -3,12 +3,17 @@ package com.sg.nusiss.social.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * @ClassName RedisConfig
@@ -47,4 +52,39 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Redis pub/sub 订阅容器（成员缓存失效通知；redis-relay 模式下的 WebSocket 转发频道）
+     *
+     * 监听回调由单个线程按到达顺序执行：默认的 SimpleAsyncTaskExecutor 每条消息新开一个线程，
+     * 线程数没有上限，同一频道的消息也可能乱序投递给客户端。
+     * 队列（social.redis.listener.queue-capacity）满时阻塞 Redis 订阅连接的读线程，形成背压而不是丢弃或乱序。
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(
+            RedisConnectionFactory factory,
+            @Value("${social.redis.listener.queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(Math.max(1, queueCapacity));
+        executor.setThreadNamePrefix("social-redis-listener-");
+        executor.setDaemon(true);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            if (pool.isShutdown()) {
+                throw new RejectedExecutionException("Redis 监听线程已关闭");
+            }
+            try {
+                pool.getQueue().put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("等待 Redis 监听队列时被中断", e);
+            }
+        });
+        executor.initialize();
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.setTaskExecutor(executor);
+        return container;
+    }
 }
@@ -22,6 +22,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WebSocketAuthInterceptor authInterceptor;
 
+    /**
+     * 各节点都使用本地 SimpleBroker；多节点部署时由 ChatBroadcaster（social.websocket.broker=redis-relay）
+     * 负责把 /topic 消息转发到持有订阅者的节点
+     */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/queue");
@@ -5,6 +5,7 @@ import com.sg.nusiss.common.domain.BaseResponse;
 import com.sg.nusiss.common.domain.ResultUtils;
 import com.sg.nusiss.social.dto.message.request.SendMessageRequest;
 import com.sg.nusiss.social.dto.message.request.SendPrivateMessageRequest;
+import com.sg.nusiss.social.dto.message.response.MessageHistoryResponse;
 import com.sg.nusiss.social.dto.message.response.MessageResponse;
 import com.sg.nusiss.social.service.message.MessageService;
 import com.sg.nusiss.social.service.message.PrivateMessageService;
@@ -54,6 +55,22 @@ public class MessageController {
         return ResultUtils.success(messages);
     }
 
+    /**
+     * 按游标向上翻页获取群聊历史消息（无限滚动用）
+     * 首次不传 beforeMessageId，之后把上一页的 nextCursor 传回
+     */
+    @GetMapping("/{conversationId}/history")
+    public BaseResponse<MessageHistoryResponse> getMessageHistory(
+            @PathVariable(value = "conversationId") Long conversationId,
+            @RequestParam(required = false) Long beforeMessageId,
+            @RequestParam(defaultValue = "50") int size) {
+
+        Long currentUserId = SecurityUtils.getCurrentUserId();
+        MessageHistoryResponse history = messageService.getMessageHistory(
+                conversationId, currentUserId, beforeMessageId, size);
+        return ResultUtils.success(history);
+    }
+
     /**
      * 发送私聊消息
      */
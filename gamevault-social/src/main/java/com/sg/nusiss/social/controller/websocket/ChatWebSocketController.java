@@ -6,11 +6,11 @@ import com.sg.nusiss.social.dto.message.response.MessageResponse;
 import com.sg.nusiss.social.dto.websocket.ChatMessageDto;
 import com.sg.nusiss.social.service.message.MessageService;
 import com.sg.nusiss.social.service.message.PrivateMessageService;
+import com.sg.nusiss.social.service.websocket.ChatBroadcaster;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Controller;
@@ -24,7 +24,7 @@ public class ChatWebSocketController {
 
     private final MessageService messageService;
     private final PrivateMessageService privateMessageService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ChatBroadcaster chatBroadcaster;
 
     @MessageMapping("/chat.sendMessage")
     public void sendMessage(@Payload SendMessageRequest request, Principal principal) {
@@ -72,7 +72,7 @@ public class ChatWebSocketController {
 
             ChatMessageDto chatMessage = builder.build();
 
-            messagingTemplate.convertAndSend(
+            chatBroadcaster.broadcast(
                     "/topic/chat/" + request.getConversationId(),
                     chatMessage
             );
@@ -131,12 +131,12 @@ public class ChatWebSocketController {
 
             ChatMessageDto chatMessage = builder.build();
 
-            messagingTemplate.convertAndSend(
+            chatBroadcaster.broadcast(
                     "/topic/private/" + request.getReceiverId(),
                     chatMessage
             );
 
-            messagingTemplate.convertAndSend(
+            chatBroadcaster.broadcast(
                     "/topic/private/" + senderId,
                     chatMessage
             );
@@ -0,0 +1,25 @@
+package com.sg.nusiss.social.dto.message.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 群聊历史消息（游标翻页）
+ *
+ * messages 按从旧到新排列；继续向上翻页时把 nextCursor 作为 beforeMessageId 传回
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MessageHistoryResponse {
+    private List<MessageResponse> messages;
+    // 是否还有更早的消息
+    private boolean hasMore;
+    // 本页最早一条消息的 ID，没有更早的消息时为 null
+    private Long nextCursor;
+}
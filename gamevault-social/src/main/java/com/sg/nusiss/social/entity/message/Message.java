@@ -16,7 +16,7 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "messages", indexes = {
-        @Index(name = "idx_messages_conversation", columnList = "conversation_id"),
+        @Index(name = "idx_messages_conversation_id_desc", columnList = "conversation_id, id DESC"),
         @Index(name = "idx_messages_sender", columnList = "sender_id"),
         @Index(name = "idx_messages_receiver", columnList = "receiver_id"),
         @Index(name = "idx_messages_file_id", columnList = "file_id"),
@@ -59,6 +59,10 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     @Query("SELECT m FROM Member m WHERE m.conversation.id = ?1 AND m.userId = ?2 AND m.isActive = ?3")
     Optional<Member> findByConversationIdAndUserIdAndIsActive(Long conversationId, Long userId, Boolean isActive);
 
+    /** 查询群聊活跃成员的用户ID（成员缓存加载用） */
+    @Query("SELECT m.userId FROM Member m WHERE m.conversation.id = ?1 AND m.isActive = true")
+    List<Long> findActiveUserIdsByConversationId(Long conversationId);
+
     /** 查询用户的活跃成员记录 */
     @Query("SELECT m FROM Member m WHERE m.userId = ?1 AND m.isActive = ?2")
     List<Member> findByUserIdAndIsActive(Long userId, Boolean isActive);
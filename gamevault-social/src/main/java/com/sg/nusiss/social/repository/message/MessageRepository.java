@@ -3,6 +3,7 @@ package com.sg.nusiss.social.repository.message;
 import com.sg.nusiss.social.entity.message.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -32,10 +33,17 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findAllByConversationId(Long conversationId);
 
     /**
-     * 查询某条消息之前的历史消息（向上翻页）
+     * 查询群聊最新的消息（游标翻页第一页，Slice 不执行 count 查询）
+     * 消息ID按时间递增，按 ID 倒序走 (conversation_id, id DESC) 索引
      */
-    @Query("SELECT m FROM Message m WHERE m.conversationId = ?1 AND m.id < ?2 AND m.isDeleted = false ORDER BY m.createdAt DESC")
-    Page<Message> findHistoryBeforeMessage(Long conversationId, Long messageId, Pageable pageable);
+    @Query("SELECT m FROM Message m WHERE m.conversationId = ?1 AND m.isDeleted = false ORDER BY m.id DESC")
+    Slice<Message> findLatestMessages(Long conversationId, Pageable pageable);
+
+    /**
+     * 查询某条消息之前的历史消息（向上翻页，Slice 不执行 count 查询）
+     */
+    @Query("SELECT m FROM Message m WHERE m.conversationId = ?1 AND m.id < ?2 AND m.isDeleted = false ORDER BY m.id DESC")
+    Slice<Message> findHistoryBeforeMessage(Long conversationId, Long messageId, Pageable pageable);
 
     // 私聊消息查询（双向）
     @Query("SELECT m FROM Message m WHERE m.chatType = 'private' AND " +
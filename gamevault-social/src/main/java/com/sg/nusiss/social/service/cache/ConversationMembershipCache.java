@@ -0,0 +1,200 @@
+package com.sg.nusiss.social.service.cache;
+
+import com.sg.nusiss.common.domain.ErrorCode;
+import com.sg.nusiss.common.exception.BusinessException;
+import com.sg.nusiss.social.entity.conversation.Conversation;
+import com.sg.nusiss.social.repository.conversation.ConversationRepository;
+import com.sg.nusiss.social.repository.conversation.MemberRepository;
+import com.sg.nusiss.social.service.conversation.MembershipChangedEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 群聊成员与状态的进程内缓存（发消息、拉历史消息的权限校验）
+ *
+ * 每个群聊缓存一份不可变快照：状态 + 排好序的活跃成员ID（long[]，二分查找），命中时不访问数据库。
+ * 失效：
+ * - ConversationService 在加人、解散等操作后发布 MembershipChangedEvent，事务提交后本节点删除快照，
+ *   并通过 Redis 频道通知其他节点删除
+ * - 快照最长保留 social.membership-cache.ttl-seconds，Redis 通知丢失时由 TTL 兜底
+ * 加载期间发生过失效时不缓存加载结果，避免把提交前的成员列表放回去。
+ */
+@Slf4j
+@Service
+public class ConversationMembershipCache implements MessageListener {
+
+    private static final String INVALIDATE_CHANNEL = "social:membership:invalidate";
+
+    private final ConversationRepository conversationRepository;
+    private final MemberRepository memberRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+
+    private final Map<Long, Membership> cache;
+    // 每次失效递增，用于丢弃失效前开始加载的快照
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public ConversationMembershipCache(
+            ConversationRepository conversationRepository,
+            MemberRepository memberRepository,
+            StringRedisTemplate redisTemplate,
+            RedisMessageListenerContainer redisMessageListenerContainer,
+            @Value("${social.membership-cache.ttl-seconds:600}") long ttlSeconds,
+            @Value("${social.membership-cache.max-entries:10000}") int maxEntries) {
+        this(conversationRepository, memberRepository, redisTemplate, redisMessageListenerContainer,
+                ttlSeconds, maxEntries, System::currentTimeMillis);
+    }
+
+    ConversationMembershipCache(ConversationRepository conversationRepository,
+                                MemberRepository memberRepository,
+                                StringRedisTemplate redisTemplate,
+                                RedisMessageListenerContainer redisMessageListenerContainer,
+                                long ttlSeconds,
+                                int maxEntries,
+                                LongSupplier clock) {
+        this(conversationRepository, memberRepository, redisTemplate, redisMessageListenerContainer,
+                ttlSeconds, maxEntries, clock, new ConcurrentHashMap<>());
+    }
+
+    ConversationMembershipCache(ConversationRepository conversationRepository,
+                                MemberRepository memberRepository,
+                                StringRedisTemplate redisTemplate,
+                                RedisMessageListenerContainer redisMessageListenerContainer,
+                                long ttlSeconds,
+                                int maxEntries,
+                                LongSupplier clock,
+                                ConcurrentHashMap<Long, Membership> cache) {
+        this.conversationRepository = conversationRepository;
+        this.memberRepository = memberRepository;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = redisMessageListenerContainer;
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxEntries = Math.max(1, maxEntries);
+        this.clock = clock;
+        this.cache = cache;
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 获取群聊的成员快照
+     *
+     * @throws BusinessException 群聊不存在
+     */
+    public Membership get(Long conversationId) {
+        long now = clock.getAsLong();
+        Membership cached = cache.get(conversationId);
+        if (cached != null && cached.expiresAt > now) {
+            return cached;
+        }
+
+        long loadGeneration = generation.get();
+        Conversation conversation = conversationRepository.findById(conversationId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND_ERROR, "群聊不存在"));
+        List<Long> userIds = memberRepository.findActiveUserIdsByConversationId(conversationId);
+
+        long[] members = new long[userIds.size()];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = userIds.get(i);
+        }
+        Arrays.sort(members);
+        Membership loaded = new Membership(conversation.getStatus(), members, now + ttlMillis);
+
+        if (generation.get() == loadGeneration) {
+            if (cache.size() >= maxEntries) {
+                cache.values().removeIf(m -> m.expiresAt <= now);
+                if (cache.size() >= maxEntries) {
+                    cache.clear();
+                }
+            }
+            // 在同一个键的锁内再判断一次：evict 先递增 generation 再删除，
+            // 判断通过后开始的 evict 会排在这次写入之后把它删掉，判断与写入之间不会漏掉失效
+            cache.compute(conversationId, (id, current) -> generation.get() == loadGeneration ? loaded : current);
+        }
+        return loaded;
+    }
+
+    /**
+     * 成员或状态变化：事务提交后删除本地快照并通知其他节点
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(MembershipChangedEvent event) {
+        evict(event.getConversationId());
+        try {
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.valueOf(event.getConversationId()));
+        } catch (Exception e) {
+            log.warn("发布成员缓存失效通知失败，其他节点等待 TTL 过期 - 群聊ID: {}, 原因: {}",
+                    event.getConversationId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 收到其他节点（或本节点）的失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            evict(Long.parseLong(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的成员缓存失效通知");
+        }
+    }
+
+    private void evict(Long conversationId) {
+        generation.incrementAndGet();
+        cache.remove(conversationId);
+        log.debug("成员缓存失效 - 群聊ID: {}", conversationId);
+    }
+
+    /**
+     * 群聊成员快照（不可变）
+     */
+    public static final class Membership {
+        private final String status;
+        private final long[] members;
+        private final long expiresAt;
+
+        Membership(String status, long[] members, long expiresAt) {
+            this.status = status;
+            this.members = members;
+            this.expiresAt = expiresAt;
+        }
+
+        public boolean isDissolved() {
+            return "dissolved".equals(status);
+        }
+
+        public boolean isMember(Long userId) {
+            return userId != null && Arrays.binarySearch(members, userId) >= 0;
+        }
+
+        public int getMemberCount() {
+            return members.length;
+        }
+    }
+}
@@ -3,11 +3,18 @@ package com.sg.nusiss.social.service.cache;
 import com.sg.nusiss.social.dto.message.response.MessageResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,15 +28,54 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class MessageCacheService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final StringRedisTemplate redisTemplate;
 
-    // Redis key 前缀
-    private static final String MESSAGE_CACHE_PREFIX = "chat:messages:";
+    // Redis key 前缀（v2：二进制格式，与旧的 JSON 缓存不混用，旧 key 自然过期）
+    private static final String MESSAGE_CACHE_PREFIX = "chat:messages:v2:";
     // 每个群聊缓存最近多少条消息
     private static final int CACHE_SIZE = 100;
     // 缓存过期时间（天）
     private static final long CACHE_EXPIRE_DAYS = 7;
 
+    /**
+     * 追加消息并保持长度、刷新过期时间，一次往返、原子执行
+     * ARGV: 最多保留条数, 过期秒数, 消息...
+     */
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>(
+            "local size = redis.call('RPUSH', KEYS[1], unpack(ARGV, 3))\n"
+                    + "redis.call('LTRIM', KEYS[1], -tonumber(ARGV[1]), -1)\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[2])\n"
+                    + "return size",
+            Long.class);
+
+    /**
+     * 用合并后的窗口替换缓存：读取之后窗口有变化（长度或最后一条不同，即有新消息追加或缓存被清除）时放弃，返回 -1
+     * ARGV: 最多保留条数, 过期秒数, 读取时的长度, 读取时的最后一条, 消息...
+     */
+    private static final RedisScript<Long> MERGE_SCRIPT = new DefaultRedisScript<>(
+            "local len = redis.call('LLEN', KEYS[1])\n"
+                    + "if len ~= tonumber(ARGV[3]) then return -1 end\n"
+                    + "if len > 0 and redis.call('LINDEX', KEYS[1], -1) ~= ARGV[4] then return -1 end\n"
+                    + "redis.call('DEL', KEYS[1])\n"
+                    + "local size = redis.call('RPUSH', KEYS[1], unpack(ARGV, 5))\n"
+                    + "redis.call('LTRIM', KEYS[1], -tonumber(ARGV[1]), -1)\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[2])\n"
+                    + "return size",
+            Long.class);
+
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private static final byte[] CACHE_SIZE_ARG = ascii(CACHE_SIZE);
+    private static final byte[] EXPIRE_SECONDS_ARG = ascii(TimeUnit.DAYS.toSeconds(CACHE_EXPIRE_DAYS));
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * 每个群聊缓存的最近消息条数
+     */
+    public int getCacheSize() {
+        return CACHE_SIZE;
+    }
+
     /**
      * 获取 Redis key
      */
@@ -42,53 +88,40 @@ public class MessageCacheService {
      */
     public void cacheMessage(MessageResponse message) {
         try {
-            String key = getCacheKey(message.getConversationId());
-
-            // 添加到列表末尾（最新消息）
-            redisTemplate.opsForList().rightPush(key, message);
-
-            // 保持列表长度
-            Long size = redisTemplate.opsForList().size(key);
-            if (size != null && size > CACHE_SIZE) {
-                redisTemplate.opsForList().leftPop(key);
-            }
-
-            // 设置过期时间
-            redisTemplate.expire(key, CACHE_EXPIRE_DAYS, TimeUnit.DAYS);
+            append(message.getConversationId(), List.of(message));
 
             log.debug("消息已缓存 - 群聊ID: {}, 消息ID: {}",
                     message.getConversationId(), message.getId());
         } catch (Exception e) {
             log.error("缓存消息失败", e);
-            // 不抛异常，让主流程继续
+            // 不抛异常，让主流程继续；尽量删掉该群聊的缓存，避免窗口缺这条消息，下次读取时从数据库重建
+            clearCache(message.getConversationId());
         }
     }
 
     /**
-     * 获取缓存的最近消息
+     * 获取缓存的最近消息（一次 LRANGE）
      */
     public List<MessageResponse> getCachedMessages(Long conversationId, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
         try {
-            String key = getCacheKey(conversationId);
-
-            Long size = redisTemplate.opsForList().size(key);
-            if (size == null || size == 0) {
-                return new ArrayList<>();
-            }
-
-            // 获取最后 limit 条
-            long start = Math.max(0, size - limit);
-            List<Object> cached = redisTemplate.opsForList().range(key, start, -1);
+            byte[] key = getCacheKey(conversationId).getBytes(StandardCharsets.UTF_8);
+            List<byte[]> cached = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.listCommands().lRange(key, -limit, -1));
 
             if (cached == null || cached.isEmpty()) {
                 return new ArrayList<>();
             }
 
-            // 转换类型
-            List<MessageResponse> messages = new ArrayList<>();
-            for (Object obj : cached) {
-                if (obj instanceof MessageResponse) {
-                    messages.add((MessageResponse) obj);
+            // 反序列化，无法解析的条目跳过
+            List<MessageResponse> messages = new ArrayList<>(cached.size());
+            for (byte[] bytes : cached) {
+                try {
+                    messages.add(MessageResponseCodec.decode(bytes));
+                } catch (IllegalArgumentException e) {
+                    log.warn("跳过无法解析的缓存消息 - 群聊ID: {}, 原因: {}", conversationId, e.getMessage());
                 }
             }
 
@@ -101,7 +134,9 @@ public class MessageCacheService {
     }
 
     /**
-     * 批量缓存消息（初始化缓存用）
+     * 用数据库中的消息回填缓存（读取最新一页后调用）
+     * 与窗口中已有的消息按ID合并，不替换：已广播、已入缓存但还在写库队列或等待补写的消息不在数据库结果中，
+     * 替换会让它们从缓存第一页消失。读取与写入之间窗口有变化时放弃本次回填，下次读取再回填
      */
     public void batchCacheMessages(Long conversationId, List<MessageResponse> messages) {
         try {
@@ -109,23 +144,45 @@ public class MessageCacheService {
                 return;
             }
 
-            String key = getCacheKey(conversationId);
+            byte[] key = getCacheKey(conversationId).getBytes(StandardCharsets.UTF_8);
+            List<byte[]> window = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                    connection.listCommands().lRange(key, 0, -1));
+            if (window == null) {
+                window = List.of();
+            }
 
-            // 清空旧缓存
-            redisTemplate.delete(key);
+            // 按ID合并，已在窗口中的消息保留窗口中的版本；无法解析的条目丢弃
+            TreeMap<Long, byte[]> merged = new TreeMap<>();
+            for (MessageResponse message : messages) {
+                merged.put(message.getId(), MessageResponseCodec.encode(message));
+            }
+            for (byte[] bytes : window) {
+                try {
+                    merged.put(MessageResponseCodec.decode(bytes).getId(), bytes);
+                } catch (IllegalArgumentException e) {
+                    log.warn("回填时丢弃无法解析的缓存消息 - 群聊ID: {}, 原因: {}", conversationId, e.getMessage());
+                }
+            }
 
             // 只缓存最近的消息
-            int start = Math.max(0, messages.size() - CACHE_SIZE);
-            List<MessageResponse> toCache = messages.subList(start, messages.size());
-
-            // 批量添加
-            for (MessageResponse msg : toCache) {
-                redisTemplate.opsForList().rightPush(key, msg);
+            List<byte[]> toCache = new ArrayList<>(merged.values());
+            toCache = toCache.subList(Math.max(0, toCache.size() - CACHE_SIZE), toCache.size());
+
+            Object[] args = new Object[4 + toCache.size()];
+            args[0] = CACHE_SIZE_ARG;
+            args[1] = EXPIRE_SECONDS_ARG;
+            args[2] = ascii(window.size());
+            args[3] = window.isEmpty() ? EMPTY : window.get(window.size() - 1);
+            for (int i = 0; i < toCache.size(); i++) {
+                args[4 + i] = toCache.get(i);
             }
+            Long size = redisTemplate.execute(MERGE_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                    List.of(getCacheKey(conversationId)), args);
 
-            // 设置过期时间
-            redisTemplate.expire(key, CACHE_EXPIRE_DAYS, TimeUnit.DAYS);
-
+            if (size != null && size < 0) {
+                log.debug("缓存窗口在回填期间有变化，放弃本次回填 - 群聊ID: {}", conversationId);
+                return;
+            }
             log.info("批量缓存消息 - 群聊ID: {}, 数量: {}", conversationId, toCache.size());
         } catch (Exception e) {
             log.error("批量缓存消息失败", e);
@@ -144,4 +201,19 @@ public class MessageCacheService {
             log.error("清除缓存失败", e);
         }
     }
+
+    private void append(Long conversationId, List<MessageResponse> messages) {
+        Object[] args = new Object[2 + messages.size()];
+        args[0] = CACHE_SIZE_ARG;
+        args[1] = EXPIRE_SECONDS_ARG;
+        for (int i = 0; i < messages.size(); i++) {
+            args[2 + i] = MessageResponseCodec.encode(messages.get(i));
+        }
+        redisTemplate.execute(APPEND_SCRIPT, RedisSerializer.byteArray(), LONG_SERIALIZER,
+                List.of(getCacheKey(conversationId)), args);
+    }
+
+    private static byte[] ascii(long value) {
+        return Long.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
 }
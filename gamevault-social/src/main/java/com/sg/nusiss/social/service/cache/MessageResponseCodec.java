@@ -0,0 +1,213 @@
+package com.sg.nusiss.social.service.cache;
+
+import com.sg.nusiss.social.dto.message.response.MessageResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * MessageResponse 的紧凑二进制格式（Redis 最近消息缓存用）
+ *
+ * 格式：版本号 | 字段存在位图 | 各字段值（按声明顺序，不存在的字段不占空间）
+ * - Long：zigzag 变长整数，小ID只占 1~3 字节
+ * - String：变长长度 + UTF-8
+ * - createdAt：UTC 秒数 + 纳秒（无损）
+ * - attachment：自己的位图 + 字段
+ * 没有字段名和类型信息，一条普通文本消息比带 @class 的 JSON 小一半以上。
+ */
+final class MessageResponseCodec {
+
+    private static final byte VERSION = 1;
+
+    private MessageResponseCodec() {}
+
+    static byte[] encode(MessageResponse message) {
+        Writer out = new Writer();
+        out.writeByte(VERSION);
+
+        MessageResponse.FileAttachment attachment = message.getAttachment();
+        int mask = bit(0, message.getId()) | bit(1, message.getConversationId()) | bit(2, message.getSenderId())
+                | bit(3, message.getReceiverId()) | bit(4, message.getSenderUsername())
+                | bit(5, message.getSenderEmail()) | bit(6, message.getContent()) | bit(7, message.getChatType())
+                | bit(8, message.getMessageType()) | bit(9, message.getCreatedAt()) | bit(10, attachment);
+        out.writeVarLong(mask);
+
+        out.writeLong(message.getId());
+        out.writeLong(message.getConversationId());
+        out.writeLong(message.getSenderId());
+        out.writeLong(message.getReceiverId());
+        out.writeString(message.getSenderUsername());
+        out.writeString(message.getSenderEmail());
+        out.writeString(message.getContent());
+        out.writeString(message.getChatType());
+        out.writeString(message.getMessageType());
+        if (message.getCreatedAt() != null) {
+            out.writeVarLong(zigzag(message.getCreatedAt().toEpochSecond(ZoneOffset.UTC)));
+            out.writeVarLong(message.getCreatedAt().getNano());
+        }
+
+        if (attachment != null) {
+            int attachmentMask = bit(0, attachment.getFileId()) | bit(1, attachment.getFileName())
+                    | bit(2, attachment.getFileSize()) | bit(3, attachment.getFileType())
+                    | bit(4, attachment.getFileExt()) | bit(5, attachment.getAccessUrl())
+                    | bit(6, attachment.getThumbnailUrl());
+            out.writeVarLong(attachmentMask);
+            out.writeString(attachment.getFileId());
+            out.writeString(attachment.getFileName());
+            out.writeLong(attachment.getFileSize());
+            out.writeString(attachment.getFileType());
+            out.writeString(attachment.getFileExt());
+            out.writeString(attachment.getAccessUrl());
+            out.writeString(attachment.getThumbnailUrl());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException 不是本格式的数据（例如旧版本缓存）、数据截断或字段值越界
+     */
+    static MessageResponse decode(byte[] bytes) {
+        if (bytes == null || bytes.length == 0 || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("不支持的消息缓存格式");
+        }
+        Reader in = new Reader(bytes, 1);
+        try {
+            int mask = (int) in.readVarLong();
+            MessageResponse message = new MessageResponse();
+            message.setId(has(mask, 0) ? in.readLong() : null);
+            message.setConversationId(has(mask, 1) ? in.readLong() : null);
+            message.setSenderId(has(mask, 2) ? in.readLong() : null);
+            message.setReceiverId(has(mask, 3) ? in.readLong() : null);
+            message.setSenderUsername(has(mask, 4) ? in.readString() : null);
+            message.setSenderEmail(has(mask, 5) ? in.readString() : null);
+            message.setContent(has(mask, 6) ? in.readString() : null);
+            message.setChatType(has(mask, 7) ? in.readString() : null);
+            message.setMessageType(has(mask, 8) ? in.readString() : null);
+            if (has(mask, 9)) {
+                long seconds = unzigzag(in.readVarLong());
+                long nanos = in.readVarLong();
+                if (nanos < 0 || nanos > 999_999_999L) {
+                    throw new IllegalArgumentException("时间戳纳秒越界");
+                }
+                message.setCreatedAt(LocalDateTime.ofEpochSecond(seconds, (int) nanos, ZoneOffset.UTC));
+            }
+
+            if (has(mask, 10)) {
+                int attachmentMask = (int) in.readVarLong();
+                MessageResponse.FileAttachment attachment = new MessageResponse.FileAttachment();
+                attachment.setFileId(has(attachmentMask, 0) ? in.readString() : null);
+                attachment.setFileName(has(attachmentMask, 1) ? in.readString() : null);
+                attachment.setFileSize(has(attachmentMask, 2) ? in.readLong() : null);
+                attachment.setFileType(has(attachmentMask, 3) ? in.readString() : null);
+                attachment.setFileExt(has(attachmentMask, 4) ? in.readString() : null);
+                attachment.setAccessUrl(has(attachmentMask, 5) ? in.readString() : null);
+                attachment.setThumbnailUrl(has(attachmentMask, 6) ? in.readString() : null);
+                message.setAttachment(attachment);
+            }
+            return message;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("消息缓存数据不完整", e);
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("消息缓存时间戳越界", e);
+        }
+    }
+
+    private static int bit(int index, Object value) {
+        return value != null ? 1 << index : 0;
+    }
+
+    private static boolean has(int mask, int index) {
+        return (mask & (1 << index)) != 0;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[128];
+        private int size;
+
+        void writeByte(int value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        // 空值由位图表示，这里跳过
+        void writeLong(Long value) {
+            if (value != null) {
+                writeVarLong(zigzag(value));
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length);
+            if (size + utf8.length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + utf8.length));
+            }
+            System.arraycopy(utf8, 0, buffer, size, utf8.length);
+            size += utf8.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("变长整数格式错误");
+        }
+
+        long readLong() {
+            return unzigzag(readVarLong());
+        }
+
+        String readString() {
+            int length = (int) readVarLong();
+            if (length < 0 || length > buffer.length - position) {
+                throw new IllegalArgumentException("字符串长度超出数据范围");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
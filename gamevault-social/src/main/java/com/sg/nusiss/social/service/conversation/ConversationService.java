@@ -13,6 +13,7 @@ import com.sg.nusiss.social.repository.friend.FriendshipRepository;
 import com.sg.nusiss.social.service.user.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -40,6 +41,7 @@ public class ConversationService {
     private final MemberRepository memberRepository;
     private final UserService userService;
     private final FriendshipRepository friendshipRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Create a conversation
@@ -167,6 +169,9 @@ public class ConversationService {
             memberRepository.saveAll(activeMembers);
         }
 
+        // 提交后使成员缓存失效
+        eventPublisher.publishEvent(new MembershipChangedEvent(conversationId));
+
         log.info("群聊已解散 - ID: {}, 群主: {}, 影响成员数: {}",
                 conversationId, currentUserId, activeMembers.size());
     }
@@ -292,5 +297,8 @@ public class ConversationService {
 
             memberRepository.save(newMember);
         }
+
+        // 提交后使成员缓存失效
+        eventPublisher.publishEvent(new MembershipChangedEvent(conversationId));
     }
 }
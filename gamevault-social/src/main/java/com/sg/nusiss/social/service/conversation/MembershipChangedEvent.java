@@ -0,0 +1,17 @@
+package com.sg.nusiss.social.service.conversation;
+
+/**
+ * 群聊成员或状态发生变化（加人、移除成员、解散），事务提交后使成员缓存失效
+ */
+public class MembershipChangedEvent {
+
+    private final Long conversationId;
+
+    public MembershipChangedEvent(Long conversationId) {
+        this.conversationId = conversationId;
+    }
+
+    public Long getConversationId() {
+        return conversationId;
+    }
+}
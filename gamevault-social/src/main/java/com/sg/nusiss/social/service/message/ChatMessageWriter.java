@@ -0,0 +1,407 @@
+package com.sg.nusiss.social.service.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sg.nusiss.social.dto.message.response.MessageResponse;
+import com.sg.nusiss.social.entity.message.Message;
+import com.sg.nusiss.social.service.cache.MessageCacheService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 群聊消息的批量写入
+ *
+ * 发送消息的 STOMP 线程只做校验、分配ID、记录日志、推入 Redis 最近消息缓存并入队，随即广播；
+ * 落库由单个后台线程完成：第一条消息到达后最多再等 flush-interval-ms 收集同批消息，一条多行 INSERT 写入。
+ * 持久性：入队前先写 Redis 待写日志（chat:messages:pending，按消息ID），落库后删除。
+ * 写库重试用尽、应用崩溃或队列中的消息丢失时，日志中的消息由 recoverPending 定时补写；
+ * INSERT 带 ON CONFLICT DO NOTHING，重复补写没有副作用，多个节点可以同时补写。
+ *
+ * 最近消息缓存在提交时就写入，客户端在写库（或重试、补写）完成前刷新也能从缓存第一页看到刚广播的消息；
+ * 翻到缓存之外的历史页读数据库，尚未落库的消息在写库完成前不会出现在这些页中。
+ *
+ * 队列有界（social.message.writer.queue-capacity），满时由发送线程直接写库，只尝试一次、不做退避等待，
+ * 失败的消息留在待写日志中由 recoverPending 补写，不阻塞 STOMP 入站线程。
+ *
+ * 数据约束错误（超长、非空等）不是临时故障，重试没有意义：整批被拒绝时改为逐条写入，
+ * 被拒绝的消息移到死信（chat:messages:dead），不留在待写日志里拖累补写。
+ */
+@Slf4j
+@Service
+public class ChatMessageWriter {
+
+    private static final String PENDING_KEY = "chat:messages:pending";
+    private static final String DEAD_LETTER_KEY = "chat:messages:dead";
+
+    private static final String INSERT_PREFIX = "INSERT INTO messages (id, conversation_id, sender_id, receiver_id, "
+            + "content, chat_type, message_type, file_id, file_name, file_size, file_type, file_ext, "
+            + "access_url, thumbnail_url, created_at, is_deleted) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_SUFFIX = " ON CONFLICT (id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final MessageCacheService messageCacheService;
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<Message> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long recoverAfterMillis;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    private final Timer batchTimer;
+    private final Counter persisted;
+    private final Counter failures;
+    private final Counter callerRuns;
+    private final Counter deadLetters;
+
+    public ChatMessageWriter(
+            JdbcTemplate jdbcTemplate,
+            StringRedisTemplate redisTemplate,
+            MessageCacheService messageCacheService,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${social.message.writer.queue-capacity:10000}") int queueCapacity,
+            @Value("${social.message.writer.batch-size:500}") int batchSize,
+            @Value("${social.message.writer.flush-interval-ms:5}") long flushIntervalMillis,
+            @Value("${social.message.writer.offer-timeout-ms:50}") long offerTimeoutMillis,
+            @Value("${social.message.writer.max-attempts:3}") int maxAttempts,
+            @Value("${social.message.writer.retry-backoff-ms:200}") long retryBackoffMillis,
+            @Value("${social.message.writer.recover-after-seconds:60}") long recoverAfterSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.messageCacheService = messageCacheService;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalMillis = Math.max(0, flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.recoverAfterMillis = TimeUnit.SECONDS.toMillis(recoverAfterSeconds);
+
+        this.batchTimer = Timer.builder("social.message.writer.batch")
+                .description("消息批量写库耗时")
+                .register(meterRegistry);
+        this.persisted = Counter.builder("social.message.writer.persisted")
+                .description("已写库的消息数")
+                .register(meterRegistry);
+        this.failures = Counter.builder("social.message.writer.failures")
+                .description("重试用尽仍未写库的消息数（留在待写日志中等待补写）")
+                .register(meterRegistry);
+        this.callerRuns = Counter.builder("social.message.writer.caller.runs")
+                .description("队列已满、由发送线程直接写库的消息数")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("social.message.writer.dead.letters")
+                .description("被数据约束拒绝、移到死信的消息数")
+                .register(meterRegistry);
+        Gauge.builder("social.message.writer.queued", queue, BlockingQueue::size)
+                .description("等待写库的消息数")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::runLoop, "social-message-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * 提交一条已分配ID的消息：写入待写日志、推入最近消息缓存后入队
+     */
+    public void submit(Message message, MessageResponse response) {
+        journal(message);
+        if (response != null) {
+            messageCacheService.cacheMessage(response);
+        }
+
+        if (running) {
+            try {
+                if (queue.offer(message, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            callerRuns.increment();
+            log.warn("消息写入队列已满，由发送线程直接写库 - 消息ID: {}", message.getId());
+        }
+        // 发送线程上只写一次，失败交给待写日志补写
+        persist(List.of(message), 1);
+    }
+
+    /**
+     * 应用关闭前写完队列中剩余的消息
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<Message> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            log.info("应用关闭前写入剩余 {} 条消息", remaining.size());
+            persist(remaining);
+        }
+    }
+
+    private void runLoop() {
+        List<Message> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Message first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // 等一个刷新间隔，把这段时间内的消息合并成一条 INSERT
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Message next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                persist(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    if (!batch.isEmpty()) {
+                        persist(batch);
+                    }
+                    break;
+                }
+            } catch (Exception e) {
+                log.error("消息批量写库异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 写入一批消息：失败按退避重试，重试用尽后留给待写日志补写
+     */
+    void persist(List<Message> messages) {
+        persist(messages, maxAttempts);
+    }
+
+    private void persist(List<Message> messages, int attempts) {
+        try {
+            if (!insertWithRetry(messages, attempts)) {
+                failures.increment(messages.size());
+                log.error("消息写库重试用尽，等待补写 - 数量: {}, 首条消息ID: {}",
+                        messages.size(), messages.get(0).getId());
+                return;
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (messages.size() > 1) {
+                log.warn("批量写库被数据约束拒绝，改为逐条写入 - 数量: {}, 原因: {}", messages.size(), e.getMessage());
+                for (Message message : messages) {
+                    persist(List.of(message), attempts);
+                }
+            } else {
+                deadLetter(messages.get(0), e);
+            }
+            return;
+        }
+        removeFromJournal(messages);
+    }
+
+    /**
+     * 写入消息，临时故障按退避重试；数据约束错误直接抛出
+     */
+    private boolean insertWithRetry(List<Message> messages, int attempts) {
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            long start = System.nanoTime();
+            try {
+                for (int from = 0; from < messages.size(); from += batchSize) {
+                    insert(messages.subList(from, Math.min(messages.size(), from + batchSize)));
+                }
+                persisted.increment(messages.size());
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                throw e;
+            } catch (Exception e) {
+                log.warn("消息写库失败（第 {}/{} 次）- 数量: {}, 原因: {}",
+                        attempt, attempts, messages.size(), e.getMessage());
+                if (attempt < attempts && !sleep(retryBackoffMillis * attempt)) {
+                    return false;
+                }
+            } finally {
+                batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 多行 INSERT，已存在的ID跳过
+     */
+    private void insert(List<Message> messages) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + messages.size() * (INSERT_ROW.length() + 2));
+        sql.append(INSERT_PREFIX);
+        Object[] args = new Object[messages.size() * 16];
+        int i = 0;
+        for (Message m : messages) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(INSERT_ROW);
+            args[i++] = m.getId();
+            args[i++] = m.getConversationId();
+            args[i++] = m.getSenderId();
+            args[i++] = m.getReceiverId();
+            args[i++] = m.getContent();
+            args[i++] = m.getChatType();
+            args[i++] = m.getMessageType();
+            args[i++] = m.getFileId();
+            args[i++] = m.getFileName();
+            args[i++] = m.getFileSize();
+            args[i++] = m.getFileType();
+            args[i++] = m.getFileExt();
+            args[i++] = m.getAccessUrl();
+            args[i++] = m.getThumbnailUrl();
+            args[i++] = Timestamp.valueOf(m.getCreatedAt());
+            args[i++] = m.getIsDeleted() != null ? m.getIsDeleted() : Boolean.FALSE;
+        }
+        sql.append(INSERT_SUFFIX);
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    // ==================== 待写日志 ====================
+
+    private void journal(Message message) {
+        try {
+            redisTemplate.opsForHash().put(PENDING_KEY, String.valueOf(message.getId()),
+                    objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            // Redis 不可用时仍然继续，只是这条消息在写库失败时无法补写
+            log.warn("写入消息待写日志失败 - 消息ID: {}, 原因: {}", message.getId(), e.getMessage());
+        }
+    }
+
+    private void removeFromJournal(List<Message> messages) {
+        try {
+            Object[] ids = new Object[messages.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = String.valueOf(messages.get(i).getId());
+            }
+            redisTemplate.opsForHash().delete(PENDING_KEY, ids);
+        } catch (Exception e) {
+            // 留下的条目会被补写任务按 ON CONFLICT 跳过后删除
+            log.warn("删除消息待写日志失败 - 数量: {}, 原因: {}", messages.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 被数据约束拒绝的消息移到死信，从待写日志删除（Redis 失败时留在日志中，下次补写再处理）
+     */
+    private void deadLetter(Message message, DataIntegrityViolationException cause) {
+        deadLetters.increment();
+        log.error("消息被数据约束拒绝，移到死信 - 消息ID: {}, 原因: {}", message.getId(), cause.getMessage());
+        try {
+            String id = String.valueOf(message.getId());
+            redisTemplate.opsForHash().put(DEAD_LETTER_KEY, id, objectMapper.writeValueAsString(message));
+            redisTemplate.opsForHash().delete(PENDING_KEY, id);
+        } catch (Exception e) {
+            log.warn("写入消息死信失败 - 消息ID: {}, 原因: {}", message.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 补写待写日志中超过 recover-after-seconds 仍未落库的消息（写库失败、节点崩溃）
+     */
+    @Scheduled(fixedDelayString = "${social.message.writer.recover-interval-ms:30000}",
+            initialDelayString = "${social.message.writer.recover-initial-delay-ms:30000}")
+    public void recoverPending() {
+        LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(recoverAfterMillis));
+        List<Message> stale = new ArrayList<>();
+        try (Cursor<Map.Entry<Object, Object>> cursor = redisTemplate.opsForHash()
+                .scan(PENDING_KEY, ScanOptions.scanOptions().count(batchSize).build())) {
+            while (cursor.hasNext()) {
+                Map.Entry<Object, Object> entry = cursor.next();
+                try {
+                    Message message = objectMapper.readValue((String) entry.getValue(), Message.class);
+                    if (message.getCreatedAt() != null && message.getCreatedAt().isBefore(cutoff)) {
+                        stale.add(message);
+                    }
+                } catch (Exception e) {
+                    log.error("待写日志条目无法解析，已丢弃 - 消息ID: {}", entry.getKey(), e);
+                    redisTemplate.opsForHash().delete(PENDING_KEY, entry.getKey());
+                }
+                if (stale.size() >= batchSize) {
+                    log.info("补写待写日志中的消息 - 数量: {}", stale.size());
+                    persist(stale);
+                    stale.clear();
+                }
+            }
+        } catch (Exception e) {
+            log.error("扫描消息待写日志失败", e);
+            return;
+        }
+        if (!stale.isEmpty()) {
+            log.info("补写待写日志中的消息 - 数量: {}", stale.size());
+            persist(stale);
+        }
+    }
+
+    /**
+     * 等待写库的消息数
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.sg.nusiss.social.service.message;
+
+import com.sg.nusiss.common.domain.ErrorCode;
+import com.sg.nusiss.common.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 进程内生成群聊消息ID（Snowflake 风格，不依赖数据库自增）
+ *
+ * 布局：41 位毫秒时间戳（自 2025-01-01 起）| 5 位节点号 | 7 位序号，共 53 位，
+ * 不超过 JavaScript Number 的安全整数范围，前端拿到的ID不会丢精度。
+ * 每个节点每毫秒最多 128 个ID，用完时等到下一毫秒；时钟回拨时沿用上次的时间戳。
+ *
+ * 节点号优先使用 social.message.worker-id（0-31）。未配置时从 Redis 租用：
+ * 依次对 social:message:worker:{0..31} 执行 SET NX PX，拿到的节点号由后台线程按 lease-seconds / 3 续期，
+ * 关闭时释放。租约在本地过期（续期失败超过 lease-seconds）后停止发号，直到续期成功或改租到其他节点号，
+ * 因此两个存活节点不会同时持有同一个节点号。启动时 Redis 不可用或 32 个节点号都被占用则启动失败。
+ */
+@Slf4j
+@Component
+public class MessageIdGenerator {
+
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final int WORKER_BITS = 5;
+    private static final int SEQUENCE_BITS = 7;
+    private static final long MAX_WORKER = (1L << WORKER_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final String WORKER_LEASE_PREFIX = "social:message:worker:";
+
+    /**
+     * 续期：仍由本节点持有时刷新过期时间；已过期且无人接手时重新占用；被其他节点占用时返回 0
+     * ARGV: 本节点标识, 租期毫秒
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then\n"
+                    + "  redis.call('PEXPIRE', KEYS[1], ARGV[2])\n"
+                    + "  return 1\n"
+                    + "end\n"
+                    + "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then return 1 end\n"
+                    + "return 0",
+            Long.class);
+
+    /**
+     * 释放：只删除本节点持有的租约
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end\n"
+                    + "return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final LongSupplier clock;
+    private final boolean leased;
+    private final long leaseMillis;
+    private final String nodeToken = UUID.randomUUID().toString();
+
+    private volatile long workerId;
+    // 租约在本地视角的到期时间（续期请求发出时刻 + 租期，早于 Redis 端的实际过期）
+    private volatile long leaseExpiresAt;
+    private ScheduledExecutorService heartbeat;
+
+    private long lastTimestamp = -1;
+    private long sequence;
+
+    @Autowired
+    public MessageIdGenerator(@Value("${social.message.worker-id:-1}") long workerId,
+                              @Value("${social.message.worker-lease-seconds:30}") long leaseSeconds,
+                              StringRedisTemplate redisTemplate) {
+        this(workerId, leaseSeconds, redisTemplate, System::currentTimeMillis);
+    }
+
+    MessageIdGenerator(long workerId, long leaseSeconds, StringRedisTemplate redisTemplate, LongSupplier clock) {
+        if (workerId > MAX_WORKER) {
+            throw new IllegalArgumentException("social.message.worker-id 超出范围（0-" + MAX_WORKER + "）: " + workerId);
+        }
+        this.redisTemplate = redisTemplate;
+        this.clock = clock;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(Math.max(3, leaseSeconds));
+        this.leased = workerId < 0;
+        if (leased) {
+            this.workerId = acquireLease();
+            log.info("消息ID生成器 - 租用节点号: {}, 租期: {}ms", this.workerId, leaseMillis);
+        } else {
+            this.workerId = workerId;
+            log.info("消息ID生成器 - 配置节点号: {}", this.workerId);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!leased) {
+            return;
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "social-message-worker-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = leaseMillis / 3;
+        heartbeat.scheduleWithFixedDelay(this::renewLease, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!leased) {
+            return;
+        }
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        leaseExpiresAt = 0;
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(leaseKey(workerId)), nodeToken);
+            log.info("已释放消息ID节点号: {}", workerId);
+        } catch (Exception e) {
+            // 释放失败时租约到期后自然回收
+            log.warn("释放消息ID节点号失败 - 节点号: {}, 原因: {}", workerId, e.getMessage());
+        }
+    }
+
+    public synchronized long nextId() {
+        long now = clock.getAsLong();
+        if (leased && now >= leaseExpiresAt) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "消息ID节点号租约已失效，请稍后重试");
+        }
+        long timestamp = Math.max(now, lastTimestamp);
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // 本毫秒序号用完
+                timestamp = lastTimestamp + 1;
+                while (clock.getAsLong() < timestamp) {
+                    Thread.onSpinWait();
+                }
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+        return ((timestamp - EPOCH) << (WORKER_BITS + SEQUENCE_BITS)) | (workerId << SEQUENCE_BITS) | sequence;
+    }
+
+    /**
+     * 当前节点号
+     */
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 依次尝试占用空闲节点号，都被占用或 Redis 不可用时抛出异常
+     */
+    private long acquireLease() {
+        try {
+            for (long candidate = 0; candidate <= MAX_WORKER; candidate++) {
+                long start = clock.getAsLong();
+                Boolean acquired = redisTemplate.opsForValue()
+                        .setIfAbsent(leaseKey(candidate), nodeToken, Duration.ofMillis(leaseMillis));
+                if (Boolean.TRUE.equals(acquired)) {
+                    leaseExpiresAt = start + leaseMillis;
+                    return candidate;
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("无法从 Redis 租用消息ID节点号，请检查 Redis 或配置 social.message.worker-id", e);
+        }
+        throw new IllegalStateException("消息ID节点号（0-" + MAX_WORKER + "）均已被占用，请配置 social.message.worker-id");
+    }
+
+    /**
+     * 续期当前租约；租约已被其他节点接手时改租空闲节点号
+     */
+    void renewLease() {
+        long start = clock.getAsLong();
+        long current = workerId;
+        try {
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(leaseKey(current)),
+                    nodeToken, String.valueOf(leaseMillis));
+            if (renewed != null && renewed == 1L) {
+                leaseExpiresAt = start + leaseMillis;
+                return;
+            }
+        } catch (Exception e) {
+            // 保留本地到期时间，Redis 恢复前继续发号直到租约到期
+            log.warn("消息ID节点号续期失败 - 节点号: {}, 原因: {}", current, e.getMessage());
+            return;
+        }
+
+        log.error("消息ID节点号已被其他节点占用，停止发号并改租 - 节点号: {}", current);
+        synchronized (this) {
+            leaseExpiresAt = 0;
+            try {
+                workerId = acquireLease();
+                log.info("消息ID生成器 - 改租节点号: {}", workerId);
+            } catch (IllegalStateException e) {
+                log.error("改租消息ID节点号失败，下次续期时重试: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static String leaseKey(long workerId) {
+        return WORKER_LEASE_PREFIX + workerId;
+    }
+}
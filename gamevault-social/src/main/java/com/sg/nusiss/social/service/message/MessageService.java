@@ -4,24 +4,29 @@ import com.sg.nusiss.common.domain.ErrorCode;
 import com.sg.nusiss.common.dto.UserDTO;
 import com.sg.nusiss.common.exception.BusinessException;
 import com.sg.nusiss.social.dto.message.request.SendMessageRequest;
+import com.sg.nusiss.social.dto.message.response.MessageHistoryResponse;
 import com.sg.nusiss.social.dto.message.response.MessageResponse;
-import com.sg.nusiss.social.entity.conversation.Conversation;
 import com.sg.nusiss.social.entity.message.Message;
-import com.sg.nusiss.social.repository.conversation.ConversationRepository;
-import com.sg.nusiss.social.repository.conversation.MemberRepository;
 import com.sg.nusiss.social.repository.message.MessageRepository;
 import com.sg.nusiss.social.service.user.UserService;
+import com.sg.nusiss.social.service.cache.ConversationMembershipCache;
 import com.sg.nusiss.social.service.cache.MessageCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,29 +35,32 @@ import java.util.stream.Collectors;
 public class MessageService {
 
     private final MessageRepository messageRepository;
-    private final ConversationRepository conversationRepository;
-    private final MemberRepository memberRepository;
+    private final ConversationMembershipCache membershipCache;
     private final MessageCacheService messageCacheService;
     private final UserService userService;
+    private final MessageIdGenerator messageIdGenerator;
+    private final ChatMessageWriter chatMessageWriter;
+
+    // 游标翻页单页最多条数
+    private static final int MAX_HISTORY_SIZE = 100;
 
     /**
-     * 发送消息（同步到 MySQL + Redis）
+     * 发送消息
+     * 校验后在进程内分配消息ID并立即返回（调用方随即广播），Redis 缓存在提交时写入，落库由 ChatMessageWriter 批量完成
      */
-    @Transactional
     public MessageResponse sendMessage(SendMessageRequest request, Long senderId) {
-        // 1. 验证群聊存在
-        Conversation conversation = conversationRepository.findById(request.getConversationId())
-                .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND_ERROR, "群聊不存在"));
+        // 1. 验证群聊存在（成员缓存，命中时不查库）
+        ConversationMembershipCache.Membership membership = membershipCache.get(request.getConversationId());
 
         // 2. 检查群聊是否已解散
-        if ("dissolved".equals(conversation.getStatus())) {
+        if (membership.isDissolved()) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "群聊已解散，无法发送消息");
         }
 
         // 3. 验证发送者是群成员
-        memberRepository.findByConversationIdAndUserIdAndIsActive(
-                request.getConversationId(), senderId, true
-        ).orElseThrow(() -> new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中"));
+        if (!membership.isMember(senderId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中");
+        }
 
         // 4. 验证消息内容（文件消息可以没有文本内容）
         if ("text".equals(request.getMessageType()) &&
@@ -62,6 +70,7 @@ public class MessageService {
 
         // 构建消息实体
         Message.MessageBuilder messageBuilder = Message.builder()
+                .id(messageIdGenerator.nextId())
                 .conversationId(request.getConversationId())
                 .senderId(senderId)
                 .content(request.getContent() != null ? request.getContent().trim() : "")
@@ -83,20 +92,23 @@ public class MessageService {
             log.info("保存文件消息 - fileId: {}, fileName: {}", request.getFileId(), request.getFileName());
         }
 
-        Message message = messageRepository.save(messageBuilder.build());
+        Message message = messageBuilder.build();
+
+        // 5. 按 messages 表的列长度校验：超长的行会让整批写库失败，必须在广播之前拒绝
+        checkColumnLengths(message);
 
         // 转换为响应对象
         MessageResponse response = convertToResponse(message);
 
-        log.info("转换后的响应 - messageType: {}, hasAttachment: {}, attachment: {}",
+        log.debug("转换后的响应 - messageType: {}, hasAttachment: {}, attachment: {}",
                 response.getMessageType(),
                 response.getAttachment() != null,
                 response.getAttachment());
 
-        // 缓存到 Redis
-        messageCacheService.cacheMessage(response);
+        // 写入待写日志、推入 Redis 缓存并交给批量写库
+        chatMessageWriter.submit(message, response);
 
-        log.info("消息已发送并同步 - 群聊ID: {}, 发送者: {}, 消息ID: {}, 类型: {}",
+        log.info("消息已发送，等待写库 - 群聊ID: {}, 发送者: {}, 消息ID: {}, 类型: {}",
                 request.getConversationId(), senderId, message.getId(), message.getMessageType());
 
         return response;
@@ -107,12 +119,12 @@ public class MessageService {
      */
     public List<MessageResponse> getMessages(Long conversationId, Long currentUserId, int page, int size) {
         // 1. 验证群聊存在
-        conversationRepository.findById(conversationId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.NOT_FOUND_ERROR, "群聊不存在"));
+        ConversationMembershipCache.Membership membership = membershipCache.get(conversationId);
 
         // 2. 验证用户是群成员
-        memberRepository.findByConversationIdAndUserIdAndIsActive(conversationId, currentUserId, true)
-                .orElseThrow(() -> new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中"));
+        if (!membership.isMember(currentUserId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中");
+        }
 
         // 3. 第一页优先从 Redis 读取
         if (page == 0) {
@@ -144,6 +156,104 @@ public class MessageService {
         return messages;
     }
 
+    /**
+     * 按游标向上翻页获取群聊历史消息
+     * 最新一页（无游标）优先从 Redis 最近消息窗口返回；窗口不够一页时查数据库，并按ID合并窗口中
+     * 已广播但还未落库的消息（写库队列、重试、补写中），这些消息在落库前也出现在第一页。
+     * 带游标的页按 (conversation_id, id DESC) 索引查询 Slice（不执行 count），翻到多早的消息耗时都不变。
+     * 缓存窗口不保证连续（写缓存失败、多节点交错追加、LTRIM 按推入顺序裁剪），如果用它服务游标页，
+     * 窗口中缺的消息会被 nextCursor 跳过且再也查不到，所以游标页一律查数据库
+     *
+     * @param beforeMessageId 上一页返回的 nextCursor，为空时返回最新一页
+     */
+    public MessageHistoryResponse getMessageHistory(Long conversationId, Long currentUserId,
+                                                    Long beforeMessageId, int size) {
+        // 1. 验证群聊存在且用户是群成员
+        ConversationMembershipCache.Membership membership = membershipCache.get(conversationId);
+        if (!membership.isMember(currentUserId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "您不在该群聊中");
+        }
+        int limit = Math.max(1, Math.min(size, MAX_HISTORY_SIZE));
+
+        // 2. 最新一页：缓存窗口多于 limit 条时，本页和 hasMore 都可以由缓存确定
+        List<MessageResponse> window = beforeMessageId == null
+                ? messageCacheService.getCachedMessages(conversationId, messageCacheService.getCacheSize())
+                : List.of();
+        if (window.size() > limit) {
+            List<MessageResponse> page = latest(window, limit);
+            log.debug("从 Redis 返回历史消息 - 群聊ID: {}, 数量: {}", conversationId, page.size());
+            return toHistoryResponse(page, true);
+        }
+
+        // 3. 从数据库按 ID 倒序取一页
+        Pageable pageable = PageRequest.of(0, limit);
+        Slice<Message> slice = beforeMessageId == null
+                ? messageRepository.findLatestMessages(conversationId, pageable)
+                : messageRepository.findHistoryBeforeMessage(conversationId, beforeMessageId, pageable);
+
+        List<MessageResponse> messages = slice.getContent().stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+
+        // 反转顺序（从旧到新）
+        Collections.reverse(messages);
+        boolean hasMore = slice.hasNext();
+
+        // 4. 最新一页：合并窗口中还未落库的消息，回填 Redis（按ID合并，不会挤掉窗口中的消息）
+        if (beforeMessageId == null) {
+            Map<Long, MessageResponse> merged = new LinkedHashMap<>();
+            messages.forEach(m -> merged.put(m.getId(), m));
+            window.forEach(m -> merged.putIfAbsent(m.getId(), m));
+            if (merged.size() > messages.size()) {
+                hasMore |= merged.size() > limit;
+                messages = latest(merged.values(), limit);
+            }
+            if (!messages.isEmpty()) {
+                messageCacheService.batchCacheMessages(conversationId, messages);
+            }
+        }
+
+        log.debug("从数据库返回历史消息 - 群聊ID: {}, 游标: {}, 数量: {}",
+                conversationId, beforeMessageId, messages.size());
+        return toHistoryResponse(messages, hasMore);
+    }
+
+    /**
+     * 按ID排序后取最新的 limit 条（多节点提交时缓存中的顺序可能略有交错）
+     */
+    private static List<MessageResponse> latest(Collection<MessageResponse> messages, int limit) {
+        List<MessageResponse> sorted = new ArrayList<>(messages);
+        sorted.sort(Comparator.comparing(MessageResponse::getId));
+        return new ArrayList<>(sorted.subList(Math.max(0, sorted.size() - limit), sorted.size()));
+    }
+
+    private static MessageHistoryResponse toHistoryResponse(List<MessageResponse> messages, boolean hasMore) {
+        return MessageHistoryResponse.builder()
+                .messages(messages)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? messages.get(0).getId() : null)
+                .build();
+    }
+
+    /**
+     * 校验写入 messages 表的字符串列长度（与 Message 实体的 @Column 长度一致）
+     */
+    private static void checkColumnLengths(Message message) {
+        checkLength(message.getMessageType(), 20, "消息类型");
+        checkLength(message.getFileId(), 64, "文件ID");
+        checkLength(message.getFileName(), 255, "文件名");
+        checkLength(message.getFileType(), 20, "文件类型");
+        checkLength(message.getFileExt(), 20, "文件扩展名");
+        checkLength(message.getAccessUrl(), 1000, "文件访问地址");
+        checkLength(message.getThumbnailUrl(), 1000, "缩略图地址");
+    }
+
+    private static void checkLength(String value, int maxLength, String field) {
+        if (value != null && value.codePointCount(0, value.length()) > maxLength) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, field + "过长（最多 " + maxLength + " 个字符）");
+        }
+    }
+
     /**
      * 转换为响应对象（包含文件附件）
      */
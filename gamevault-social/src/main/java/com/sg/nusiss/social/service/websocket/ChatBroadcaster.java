@@ -0,0 +1,16 @@
+package com.sg.nusiss.social.service.websocket;
+
+/**
+ * 聊天消息扇出
+ *
+ * social.websocket.broker 选择实现：
+ * - simple（默认）：直接交给本节点的 SimpleBroker，只有连在本节点的客户端能收到
+ * - redis-relay：经 Redis pub/sub 转发到所有节点，每个节点只投递给自己持有的会话
+ */
+public interface ChatBroadcaster {
+
+    /**
+     * 把消息推送给订阅了 destination（/topic/chat/{id}、/topic/private/{uid}）的所有客户端
+     */
+    void broadcast(String destination, Object payload);
+}
@@ -0,0 +1,202 @@
+package com.sg.nusiss.social.service.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 多节点模式：经 Redis pub/sub 把消息转发到所有持有订阅者的节点
+ *
+ * - 每个 destination 对应一个 Redis 频道（social:ws:{destination}）
+ * - 节点只订阅本地有客户端订阅的频道：第一个本地订阅出现时 SUBSCRIBE，最后一个取消或断开时 UNSUBSCRIBE，
+ *   所以节点收不到与自己无关的群聊/私聊消息
+ * - 发送节点先投递给本地订阅者，再 PUBLISH；自己发出的消息回到本节点时跳过
+ * - 消息体在发送节点序列化一次（与 STOMP 使用同一个 ObjectMapper），各节点原样投递 JSON
+ * Redis 不可用时只影响跨节点投递，本节点的订阅者照常收到。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "social.websocket.broker", havingValue = "redis-relay")
+public class RedisRelayBroadcaster implements ChatBroadcaster, MessageListener {
+
+    private static final String CHANNEL_PREFIX = "social:ws:";
+    private static final String RELAYED_PREFIX = "/topic/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    // destination -> 本节点订阅数（只在持锁时修改，投递时无锁读取）
+    private final Map<String, Integer> localSubscriptions = new ConcurrentHashMap<>();
+    // sessionId -> (subscriptionId -> destination)
+    private final Map<String, Map<String, String>> sessionSubscriptions = new HashMap<>();
+
+    public RedisRelayBroadcaster(SimpMessagingTemplate messagingTemplate,
+                                 StringRedisTemplate redisTemplate,
+                                 RedisMessageListenerContainer redisMessageListenerContainer,
+                                 ObjectMapper objectMapper) {
+        this.messagingTemplate = messagingTemplate;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = redisMessageListenerContainer;
+        this.objectMapper = objectMapper;
+        log.info("WebSocket 使用 Redis 转发模式 - 节点: {}", nodeId);
+    }
+
+    @Override
+    public void broadcast(String destination, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("消息序列化失败", e);
+        }
+
+        if (localSubscriptions.containsKey(destination)) {
+            deliverLocally(destination, json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        try {
+            redisTemplate.convertAndSend(CHANNEL_PREFIX + destination, nodeId + '\n' + json);
+        } catch (Exception e) {
+            log.error("转发 WebSocket 消息到 Redis 失败 - destination: {}", destination, e);
+        }
+    }
+
+    /**
+     * 收到其他节点转发的消息
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String destination = channel.substring(CHANNEL_PREFIX.length());
+        if (!localSubscriptions.containsKey(destination)) {
+            return;
+        }
+
+        byte[] body = message.getBody();
+        int separator = indexOf(body, (byte) '\n');
+        if (separator < 0) {
+            log.warn("忽略格式错误的转发消息 - channel: {}", channel);
+            return;
+        }
+        if (nodeId.equals(new String(body, 0, separator, StandardCharsets.UTF_8))) {
+            return;
+        }
+
+        byte[] json = new byte[body.length - separator - 1];
+        System.arraycopy(body, separator + 1, json, 0, json.length);
+        deliverLocally(destination, json);
+    }
+
+    private void deliverLocally(String destination, byte[] json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(json, accessor.getMessageHeaders()));
+    }
+
+    // ==================== 本地订阅跟踪 ====================
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(RELAYED_PREFIX)
+                || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+
+        synchronized (this) {
+            String previous = sessionSubscriptions
+                    .computeIfAbsent(accessor.getSessionId(), id -> new HashMap<>())
+                    .put(accessor.getSubscriptionId(), destination);
+            if (previous != null) {
+                release(previous);
+            }
+            int count = localSubscriptions.merge(destination, 1, Integer::sum);
+            if (count == 1) {
+                listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + destination));
+                log.debug("订阅转发频道 - destination: {}", destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        synchronized (this) {
+            Map<String, String> subscriptions = sessionSubscriptions.get(accessor.getSessionId());
+            if (subscriptions == null) {
+                return;
+            }
+            String destination = subscriptions.remove(accessor.getSubscriptionId());
+            if (subscriptions.isEmpty()) {
+                sessionSubscriptions.remove(accessor.getSessionId());
+            }
+            if (destination != null) {
+                release(destination);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        synchronized (this) {
+            Map<String, String> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+            if (subscriptions != null) {
+                subscriptions.values().forEach(this::release);
+            }
+        }
+    }
+
+    /**
+     * 减少一次本地订阅，最后一个订阅取消时退订 Redis 频道（调用方持有锁）
+     */
+    private void release(String destination) {
+        Integer count = localSubscriptions.get(destination);
+        if (count == null) {
+            return;
+        }
+        if (count > 1) {
+            localSubscriptions.put(destination, count - 1);
+        } else {
+            localSubscriptions.remove(destination);
+            listenerContainer.removeMessageListener(this, new ChannelTopic(CHANNEL_PREFIX + destination));
+            log.debug("退订转发频道 - destination: {}", destination);
+        }
+    }
+
+    private static int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,22 @@
+package com.sg.nusiss.social.service.websocket;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 单节点模式：直接发给本节点的 SimpleBroker
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "social.websocket.broker", havingValue = "simple", matchIfMissing = true)
+public class SimpleBrokerBroadcaster implements ChatBroadcaster {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @Override
+    public void broadcast(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+    }
+}
@@ -0,0 +1,183 @@
+package com.sg.nusiss.social.service.cache;
+
+import com.sg.nusiss.common.exception.BusinessException;
+import com.sg.nusiss.social.entity.conversation.Conversation;
+import com.sg.nusiss.social.repository.conversation.ConversationRepository;
+import com.sg.nusiss.social.repository.conversation.MemberRepository;
+import com.sg.nusiss.social.service.conversation.MembershipChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConversationMembershipCacheTest {
+
+    private final ConversationRepository conversationRepository = mock(ConversationRepository.class);
+    private final MemberRepository memberRepository = mock(MemberRepository.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    ConversationMembershipCacheTest() {
+        when(conversationRepository.findById(anyLong())).thenAnswer(invocation ->
+                Optional.of(Conversation.builder().id(invocation.getArgument(0)).build()));
+        when(memberRepository.findActiveUserIdsByConversationId(anyLong())).thenReturn(List.of(3L, 1L, 2L));
+    }
+
+    private ConversationMembershipCache newCache(int maxEntries) {
+        return new ConversationMembershipCache(conversationRepository, memberRepository, redisTemplate,
+                mock(RedisMessageListenerContainer.class), 600, maxEntries, clock::get);
+    }
+
+    @Test
+    void servesRepeatedLookupsFromTheSnapshot() {
+        ConversationMembershipCache cache = newCache(100);
+
+        ConversationMembershipCache.Membership membership = cache.get(9L);
+        cache.get(9L);
+
+        assertTrue(membership.isMember(2L));
+        assertFalse(membership.isMember(4L));
+        assertFalse(membership.isMember(null));
+        assertEquals(3, membership.getMemberCount());
+        verify(memberRepository, times(1)).findActiveUserIdsByConversationId(9L);
+    }
+
+    @Test
+    void reloadsAfterTtlExpiry() {
+        ConversationMembershipCache cache = newCache(100);
+        cache.get(9L);
+
+        clock.addAndGet(599_999);
+        cache.get(9L);
+        verify(memberRepository, times(1)).findActiveUserIdsByConversationId(9L);
+
+        clock.addAndGet(1);
+        cache.get(9L);
+        verify(memberRepository, times(2)).findActiveUserIdsByConversationId(9L);
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotCached() {
+        ConversationMembershipCache cache = newCache(100);
+        // 加载读到旧成员列表的同时，另一个事务提交并发出失效通知
+        when(memberRepository.findActiveUserIdsByConversationId(9L)).thenAnswer(invocation -> {
+            cache.onMessage(invalidation("9"), null);
+            return List.of(1L);
+        }).thenReturn(List.of(1L, 5L));
+
+        assertFalse(cache.get(9L).isMember(5L));
+        assertTrue(cache.get(9L).isMember(5L));
+        cache.get(9L);
+        verify(memberRepository, times(2)).findActiveUserIdsByConversationId(9L);
+    }
+
+    @Test
+    void invalidationBetweenTheCheckAndTheWriteIsNotLost() {
+        // 加载结束、判断过 generation 之后，写入之前到达一次失效
+        AtomicBoolean invalidateOnWrite = new AtomicBoolean(true);
+        AtomicReference<ConversationMembershipCache> self = new AtomicReference<>();
+        ConcurrentHashMap<Long, ConversationMembershipCache.Membership> map = new ConcurrentHashMap<>() {
+            @Override
+            public ConversationMembershipCache.Membership compute(Long key,
+                    BiFunction<? super Long, ? super ConversationMembershipCache.Membership,
+                            ? extends ConversationMembershipCache.Membership> remapping) {
+                if (invalidateOnWrite.getAndSet(false)) {
+                    self.get().onMessage(invalidation(String.valueOf(key)), null);
+                }
+                return super.compute(key, remapping);
+            }
+        };
+        ConversationMembershipCache cache = new ConversationMembershipCache(conversationRepository, memberRepository,
+                redisTemplate, mock(RedisMessageListenerContainer.class), 600, 100, clock::get, map);
+        self.set(cache);
+        when(memberRepository.findActiveUserIdsByConversationId(9L)).thenReturn(List.of(1L), List.of(1L, 5L));
+
+        assertFalse(cache.get(9L).isMember(5L));
+        assertTrue(cache.get(9L).isMember(5L));
+        verify(memberRepository, times(2)).findActiveUserIdsByConversationId(9L);
+    }
+
+    @Test
+    void membershipChangeEvictsLocallyAndNotifiesOtherNodes() {
+        ConversationMembershipCache cache = newCache(100);
+        cache.get(9L);
+
+        cache.onMembershipChanged(new MembershipChangedEvent(9L));
+        cache.get(9L);
+
+        verify(redisTemplate).convertAndSend("social:membership:invalidate", "9");
+        verify(memberRepository, times(2)).findActiveUserIdsByConversationId(9L);
+    }
+
+    @Test
+    void malformedInvalidationIsIgnored() {
+        ConversationMembershipCache cache = newCache(100);
+        cache.get(9L);
+
+        cache.onMessage(invalidation("not-a-number"), null);
+        cache.get(9L);
+
+        verify(memberRepository, times(1)).findActiveUserIdsByConversationId(9L);
+    }
+
+    @Test
+    void fullCacheDropsExpiredEntriesFirst() {
+        ConversationMembershipCache cache = newCache(2);
+        cache.get(1L);
+        clock.addAndGet(300_000);
+        cache.get(2L);
+        // 1 已过期，2 仍有效：放入 3 时只清掉 1
+        clock.addAndGet(300_000);
+        cache.get(3L);
+
+        cache.get(2L);
+        cache.get(3L);
+        verify(memberRepository, times(1)).findActiveUserIdsByConversationId(2L);
+        verify(memberRepository, times(1)).findActiveUserIdsByConversationId(3L);
+    }
+
+    @Test
+    void fullCacheWithoutExpiredEntriesIsCleared() {
+        ConversationMembershipCache cache = newCache(2);
+        cache.get(1L);
+        cache.get(2L);
+        cache.get(3L);
+
+        cache.get(3L);
+        cache.get(1L);
+        verify(memberRepository, times(1)).findActiveUserIdsByConversationId(3L);
+        verify(memberRepository, times(2)).findActiveUserIdsByConversationId(1L);
+    }
+
+    @Test
+    void unknownConversationIsRejected() {
+        ConversationMembershipCache cache = newCache(100);
+        when(conversationRepository.findById(404L)).thenReturn(Optional.empty());
+
+        assertThrows(BusinessException.class, () -> cache.get(404L));
+    }
+
+    private static DefaultMessage invalidation(String body) {
+        return new DefaultMessage("social:membership:invalidate".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,66 @@
+package com.sg.nusiss.social.service.cache;
+
+import com.sg.nusiss.social.dto.message.response.MessageResponse;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageCacheServiceTest {
+
+    private static final long CONVERSATION_ID = 9L;
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final MessageCacheService service = new MessageCacheService(redisTemplate);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refillMergesByIdAndKeepsUnpersistedWindowMessages() {
+        // 窗口中的 31 已广播但还在写库队列中，数据库结果里没有它
+        byte[] unpersisted = MessageResponseCodec.encode(response(31));
+        when(redisTemplate.execute(any(RedisCallback.class))).thenReturn(List.of(unpersisted));
+        when(redisTemplate.execute(any(RedisScript.class), any(), any(), anyList(), any())).thenReturn(3L);
+
+        service.batchCacheMessages(CONVERSATION_ID, List.of(response(29), response(30)));
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(any(RedisScript.class), any(), any(),
+                eq(List.of("chat:messages:v2:" + CONVERSATION_ID)), args.capture());
+        Object[] raw = args.getValue();
+        // 读取时的长度和最后一条，用于检查窗口是否在回填期间变化
+        assertEquals("1", new String((byte[]) raw[2], StandardCharsets.US_ASCII));
+        assertArrayEquals(unpersisted, (byte[]) raw[3]);
+        List<Long> cached = Arrays.stream(raw, 4, raw.length)
+                .map(bytes -> MessageResponseCodec.decode((byte[]) bytes).getId())
+                .toList();
+        assertEquals(List.of(29L, 30L, 31L), cached);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void skipsEmptyRefills() {
+        service.batchCacheMessages(CONVERSATION_ID, List.of());
+
+        verify(redisTemplate, never()).execute(any(RedisCallback.class));
+        verify(redisTemplate, never()).execute(any(RedisScript.class), any(), any(), anyList(), any());
+    }
+
+    private static MessageResponse response(long id) {
+        return MessageResponse.builder().id(id).conversationId(CONVERSATION_ID).senderId(1L).content("m" + id).build();
+    }
+}
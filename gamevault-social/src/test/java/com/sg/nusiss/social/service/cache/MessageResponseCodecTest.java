@@ -0,0 +1,134 @@
+package com.sg.nusiss.social.service.cache;
+
+import com.sg.nusiss.social.dto.message.response.MessageResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MessageResponseCodecTest {
+
+    @Test
+    void roundTripsAMessageWithAllFieldsNull() {
+        MessageResponse empty = new MessageResponse();
+
+        byte[] encoded = MessageResponseCodec.encode(empty);
+
+        assertEquals(2, encoded.length);
+        assertEquals(empty, MessageResponseCodec.decode(encoded));
+    }
+
+    @Test
+    void roundTripsAFileMessageWithAttachment() {
+        MessageResponse message = MessageResponse.builder()
+                .id(123_456_789_012L)
+                .conversationId(9L)
+                .senderId(1L)
+                .senderUsername("alice")
+                .senderEmail("alice@example.com")
+                .content("")
+                .chatType("group")
+                .messageType("file")
+                .createdAt(LocalDateTime.of(2026, 10, 16, 12, 30, 45, 123_456_789))
+                .attachment(MessageResponse.FileAttachment.builder()
+                        .fileId("f-1")
+                        .fileName("report.pdf")
+                        .fileSize(Long.MAX_VALUE)
+                        .fileType("document")
+                        .fileExt("pdf")
+                        .accessUrl("https://files.example.com/f-1")
+                        .build())
+                .build();
+
+        MessageResponse decoded = MessageResponseCodec.decode(MessageResponseCodec.encode(message));
+
+        assertEquals(message, decoded);
+        assertNull(decoded.getReceiverId());
+        assertNull(decoded.getAttachment().getThumbnailUrl());
+    }
+
+    @Test
+    void roundTripsNegativeAndExtremeValues() {
+        MessageResponse message = MessageResponse.builder()
+                .id(Long.MAX_VALUE)
+                .conversationId(Long.MIN_VALUE)
+                .senderId(-1L)
+                .receiverId(0L)
+                .createdAt(LocalDateTime.of(1900, 1, 1, 0, 0))
+                .attachment(MessageResponse.FileAttachment.builder().fileSize(-42L).build())
+                .build();
+
+        assertEquals(message, MessageResponseCodec.decode(MessageResponseCodec.encode(message)));
+    }
+
+    @Test
+    void roundTripsNonBmpUtf8() {
+        MessageResponse message = MessageResponse.builder()
+                .id(1L)
+                .senderUsername("用户😀")
+                .content("𠜎𠜱 emoji 👨‍👩‍👧 中文")
+                .build();
+
+        assertEquals(message, MessageResponseCodec.decode(MessageResponseCodec.encode(message)));
+    }
+
+    @Test
+    void rejectsEveryTruncationOfAValidEntry() {
+        MessageResponse message = MessageResponse.builder()
+                .id(1L)
+                .conversationId(2L)
+                .content("hello")
+                .createdAt(LocalDateTime.of(2026, 1, 1, 0, 0, 0, 1))
+                .attachment(MessageResponse.FileAttachment.builder().fileId("f").thumbnailUrl("t").build())
+                .build();
+        byte[] encoded = MessageResponseCodec.encode(message);
+
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThrows(IllegalArgumentException.class, () -> MessageResponseCodec.decode(truncated),
+                    "截断到 " + length + " 字节");
+        }
+    }
+
+    @Test
+    void rejectsUnknownVersionAndOversizedStringLength() {
+        assertThrows(IllegalArgumentException.class, () -> MessageResponseCodec.decode(null));
+        assertThrows(IllegalArgumentException.class, () -> MessageResponseCodec.decode(new byte[]{'{', '"'}));
+
+        // content 长度声明为 Integer.MAX_VALUE
+        byte[] oversized = bytes(1, 1 << 6, Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> MessageResponseCodec.decode(oversized));
+    }
+
+    @Test
+    void rejectsOutOfRangeTimestamps() {
+        // createdAt 位：秒数 0（zigzag）+ 越界的纳秒
+        byte[] badNanos = bytes(1, 1 << 9, 0, 2_000_000_000L);
+        assertThrows(IllegalArgumentException.class, () -> MessageResponseCodec.decode(badNanos));
+
+        // 秒数超出 LocalDateTime 范围
+        byte[] badSeconds = bytes(1, 1 << 9, Long.MAX_VALUE - 1, 0);
+        assertThrows(IllegalArgumentException.class, () -> MessageResponseCodec.decode(badSeconds));
+    }
+
+    /**
+     * 版本号后跟若干变长整数
+     */
+    private static byte[] bytes(int version, long... varLongs) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(version);
+        for (long value : varLongs) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,210 @@
+package com.sg.nusiss.social.service.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sg.nusiss.social.dto.message.response.MessageResponse;
+import com.sg.nusiss.social.entity.message.Message;
+import com.sg.nusiss.social.service.cache.MessageCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChatMessageWriterTest {
+
+    private static final String PENDING_KEY = "chat:messages:pending";
+    private static final String DEAD_LETTER_KEY = "chat:messages:dead";
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+    private final MessageCacheService messageCacheService = mock(MessageCacheService.class);
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ChatMessageWriter writer;
+
+    ChatMessageWriterTest() {
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOps);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    private ChatMessageWriter newWriter(int queueCapacity, long retryBackoffMillis) {
+        return new ChatMessageWriter(jdbcTemplate, redisTemplate, messageCacheService, objectMapper, meterRegistry,
+                queueCapacity, 500, 50, 1, 3, retryBackoffMillis, 60);
+    }
+
+    @Test
+    void submittedMessagesAreCachedImmediatelyAndWrittenInOneInsert() {
+        writer = newWriter(100, 1);
+        MessageResponse response = MessageResponse.builder().id(1L).conversationId(9L).build();
+        writer.start();
+
+        writer.submit(message(1L), response);
+        writer.submit(message(2L), null);
+        writer.submit(message(3L), null);
+        // 缓存在提交时写入，不等落库
+        verify(messageCacheService).cacheMessage(response);
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, timeout(2000)).update(anyString(), args.capture());
+        assertEquals(3 * 16, args.getValue().length);
+        assertEquals(1L, args.getValue()[0]);
+        assertEquals(3L, args.getValue()[32]);
+        verify(hashOps, timeout(2000)).delete(PENDING_KEY, "1", "2", "3");
+        assertEquals(3.0, meterRegistry.get("social.message.writer.persisted").counter().count());
+    }
+
+    @Test
+    void failedInsertIsRetriedThenRemovedFromJournal() {
+        writer = newWriter(100, 1);
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("db down"))
+                .thenReturn(1);
+
+        writer.persist(List.of(message(5L)));
+
+        verify(jdbcTemplate, times(2)).update(anyString(), any(Object[].class));
+        verify(hashOps).delete(PENDING_KEY, "5");
+    }
+
+    @Test
+    void exhaustedRetriesLeaveMessagesInTheJournal() {
+        writer = newWriter(100, 1);
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        writer.persist(List.of(message(6L), message(7L)));
+
+        verify(jdbcTemplate, times(3)).update(anyString(), any(Object[].class));
+        verify(hashOps, never()).delete(eq(PENDING_KEY), any(Object[].class));
+        assertEquals(2.0, meterRegistry.get("social.message.writer.failures").counter().count());
+    }
+
+    @Test
+    void constraintViolationSplitsTheBatchAndDeadLettersOnlyTheBadRow() {
+        writer = newWriter(100, 10_000);
+        // 整批被拒绝；逐条写入时只有消息 2 被拒绝
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] args = (Object[]) invocation.getRawArguments()[1];
+            if (args.length > 16 || Long.valueOf(2L).equals(args[0])) {
+                throw new DataIntegrityViolationException("value too long for type character varying(20)");
+            }
+            return 1;
+        });
+
+        writer.persist(List.of(message(1L), message(2L), message(3L)));
+
+        // 不按临时故障重试：一次整批 + 三次逐条
+        verify(jdbcTemplate, times(4)).update(anyString(), any(Object[].class));
+        verify(hashOps).delete(PENDING_KEY, "1");
+        verify(hashOps).delete(PENDING_KEY, "3");
+        verify(hashOps).put(eq(DEAD_LETTER_KEY), eq("2"), argThat(json -> json.toString().contains("\"id\":2")));
+        verify(hashOps).delete(PENDING_KEY, "2");
+        assertEquals(1.0, meterRegistry.get("social.message.writer.dead.letters").counter().count());
+        assertEquals(0.0, meterRegistry.get("social.message.writer.failures").counter().count());
+    }
+
+    @Test
+    void fullQueueWritesOnTheCallerThreadOnceWithoutBackoff() throws Exception {
+        // 退避很长：发送线程上如果重试会明显超时
+        writer = newWriter(1, 10_000);
+        CountDownLatch workerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            if ("social-message-writer".equals(Thread.currentThread().getName())) {
+                workerBlocked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return 1;
+            }
+            throw new DataAccessResourceFailureException("db down");
+        });
+        writer.start();
+
+        writer.submit(message(1L), null);
+        assertTrue(workerBlocked.await(2, TimeUnit.SECONDS));
+        writer.submit(message(2L), null);
+
+        long start = System.nanoTime();
+        writer.submit(message(3L), null);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        release.countDown();
+
+        assertTrue(elapsedMillis < 5_000, "发送线程不应等待重试退避");
+        assertEquals(1.0, meterRegistry.get("social.message.writer.caller.runs").counter().count());
+        assertEquals(1.0, meterRegistry.get("social.message.writer.failures").counter().count());
+        verify(hashOps, never()).delete(PENDING_KEY, "3");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recoverPendingRewritesOnlyStaleJournalEntries() throws Exception {
+        writer = newWriter(100, 1);
+        Message stale = message(11L);
+        stale.setCreatedAt(LocalDateTime.now().minusMinutes(5));
+        Message fresh = message(12L);
+        Cursor<Map.Entry<Object, Object>> cursor = mock(Cursor.class);
+        when(cursor.hasNext()).thenReturn(true, true, true, false);
+        when(cursor.next()).thenReturn(
+                new AbstractMap.SimpleEntry<>("11", objectMapper.writeValueAsString(stale)),
+                new AbstractMap.SimpleEntry<>("12", objectMapper.writeValueAsString(fresh)),
+                new AbstractMap.SimpleEntry<>("13", "not json"));
+        when(hashOps.scan(eq(PENDING_KEY), any(ScanOptions.class))).thenReturn(cursor);
+
+        writer.recoverPending();
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(anyString(), args.capture());
+        assertEquals(16, args.getValue().length);
+        assertEquals(11L, args.getValue()[0]);
+        verify(hashOps).delete(PENDING_KEY, "11");
+        verify(hashOps).delete(PENDING_KEY, "13");
+        verify(hashOps, never()).delete(PENDING_KEY, "12");
+        // 补写不重复推入最近消息缓存
+        verify(messageCacheService, never()).cacheMessage(any());
+    }
+
+    private static Message message(long id) {
+        return Message.builder()
+                .id(id)
+                .conversationId(9L)
+                .senderId(1L)
+                .content("hi " + id)
+                .createdAt(LocalDateTime.now())
+                .isDeleted(false)
+                .build();
+    }
+}
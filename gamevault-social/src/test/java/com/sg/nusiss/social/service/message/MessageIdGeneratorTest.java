@@ -0,0 +1,164 @@
+package com.sg.nusiss.social.service.message;
+
+import com.sg.nusiss.common.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MessageIdGeneratorTest {
+
+    private static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    private static final long NOW = Instant.parse("2026-10-01T00:00:00Z").toEpochMilli();
+
+    @Test
+    void idsAreStrictlyIncreasingAndCarryTheWorkerId() {
+        MessageIdGenerator generator = new MessageIdGenerator(3, 30, null, System::currentTimeMillis);
+
+        long previous = -1;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(3, worker(id));
+            previous = id;
+        }
+        assertTrue(previous < (1L << 53));
+    }
+
+    @Test
+    void exhaustedSequenceMovesToTheNextMillisecond() {
+        AtomicInteger calls = new AtomicInteger();
+        // 前 129 次读时钟停在同一毫秒，第 129 个ID用完序号后等到下一毫秒
+        MessageIdGenerator generator = new MessageIdGenerator(1, 30, null,
+                () -> calls.incrementAndGet() > 129 ? NOW + 1 : NOW);
+
+        for (int i = 0; i < 128; i++) {
+            long id = generator.nextId();
+            assertEquals(NOW, timestamp(id));
+            assertEquals(i, sequence(id));
+        }
+        long rolled = generator.nextId();
+        assertEquals(NOW + 1, timestamp(rolled));
+        assertEquals(0, sequence(rolled));
+    }
+
+    @Test
+    void clockRollbackKeepsTheLastTimestamp() {
+        AtomicLong clock = new AtomicLong(NOW + 100);
+        MessageIdGenerator generator = new MessageIdGenerator(2, 30, null, clock::get);
+
+        long before = generator.nextId();
+        clock.set(NOW);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+        assertEquals(NOW + 100, timestamp(after));
+        assertEquals(1, sequence(after));
+    }
+
+    @Test
+    void rejectsOutOfRangeWorkerId() {
+        assertThrows(IllegalArgumentException.class, () -> new MessageIdGenerator(32, 30, null, () -> NOW));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leasesTheFirstFreeWorkerId() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(ops.setIfAbsent(eq("social:message:worker:2"), anyString(), any(Duration.class))).thenReturn(true);
+
+        MessageIdGenerator generator = new MessageIdGenerator(-1, 30, redisTemplate, () -> NOW);
+
+        assertEquals(2, generator.getWorkerId());
+        assertEquals(2, worker(generator.nextId()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failsStartupWhenNoWorkerIdCanBeLeased() {
+        StringRedisTemplate full = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> fullOps = mock(ValueOperations.class);
+        when(full.opsForValue()).thenReturn(fullOps);
+        when(fullOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        assertThrows(IllegalStateException.class, () -> new MessageIdGenerator(-1, 30, full, () -> NOW));
+
+        StringRedisTemplate down = mock(StringRedisTemplate.class);
+        when(down.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+        assertThrows(IllegalStateException.class, () -> new MessageIdGenerator(-1, 30, down, () -> NOW));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void stopsIssuingIdsOnceTheLeaseExpiresUntilRenewed() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        AtomicLong clock = new AtomicLong(NOW);
+        MessageIdGenerator generator = new MessageIdGenerator(-1, 30, redisTemplate, clock::get);
+        generator.nextId();
+
+        // 续期失败（Redis 不可用）超过租期后停止发号
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any()))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        clock.addAndGet(10_000);
+        generator.renewLease();
+        generator.nextId();
+        clock.addAndGet(25_000);
+        assertThrows(BusinessException.class, generator::nextId);
+
+        // 续期成功后恢复
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(1L);
+        generator.renewLease();
+        assertEquals(0, worker(generator.nextId()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leaseTakenByAnotherNodeSwitchesToAFreeWorkerId() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> ops = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(ops);
+        when(ops.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        MessageIdGenerator generator = new MessageIdGenerator(-1, 30, redisTemplate, () -> NOW);
+        assertEquals(0, generator.getWorkerId());
+
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(), any())).thenReturn(0L);
+        when(ops.setIfAbsent(eq("social:message:worker:0"), anyString(), any(Duration.class))).thenReturn(false);
+        generator.renewLease();
+
+        assertEquals(1, generator.getWorkerId());
+        assertEquals(1, worker(generator.nextId()));
+    }
+
+    private static long timestamp(long id) {
+        return (id >>> 12) + EPOCH;
+    }
+
+    private static long worker(long id) {
+        return (id >>> 7) & 31;
+    }
+
+    private static long sequence(long id) {
+        return id & 127;
+    }
+}
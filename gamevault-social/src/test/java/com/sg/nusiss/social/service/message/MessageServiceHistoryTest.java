@@ -0,0 +1,168 @@
+package com.sg.nusiss.social.service.message;
+
+import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.common.exception.BusinessException;
+import com.sg.nusiss.social.dto.message.response.MessageHistoryResponse;
+import com.sg.nusiss.social.dto.message.response.MessageResponse;
+import com.sg.nusiss.social.entity.message.Message;
+import com.sg.nusiss.social.repository.message.MessageRepository;
+import com.sg.nusiss.social.service.cache.ConversationMembershipCache;
+import com.sg.nusiss.social.service.cache.MessageCacheService;
+import com.sg.nusiss.social.service.user.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MessageServiceHistoryTest {
+
+    private static final long CONVERSATION_ID = 9L;
+    private static final long USER_ID = 1L;
+
+    private final MessageRepository messageRepository = mock(MessageRepository.class);
+    private final ConversationMembershipCache membershipCache = mock(ConversationMembershipCache.class);
+    private final ConversationMembershipCache.Membership membership = mock(ConversationMembershipCache.Membership.class);
+    private final MessageCacheService messageCacheService = mock(MessageCacheService.class);
+    private final UserService userService = mock(UserService.class);
+    private final MessageService service = new MessageService(messageRepository, membershipCache,
+            messageCacheService, userService, mock(MessageIdGenerator.class), mock(ChatMessageWriter.class));
+
+    MessageServiceHistoryTest() {
+        when(membershipCache.get(CONVERSATION_ID)).thenReturn(membership);
+        when(membership.isMember(USER_ID)).thenReturn(true);
+        when(messageCacheService.getCacheSize()).thenReturn(100);
+        when(userService.getUserById(anyLong()))
+                .thenReturn(UserDTO.builder().userId(USER_ID).username("alice").email("a@example.com").build());
+    }
+
+    @Test
+    void latestPageIsServedFromTheCacheSortedById() {
+        List<MessageResponse> window = new ArrayList<>();
+        LongStream.rangeClosed(1, 30).forEach(id -> window.add(response(id)));
+        // 多节点交错追加
+        Collections.swap(window, 28, 29);
+        when(messageCacheService.getCachedMessages(CONVERSATION_ID, 100)).thenReturn(window);
+
+        MessageHistoryResponse page = service.getMessageHistory(CONVERSATION_ID, USER_ID, null, 20);
+
+        assertEquals(20, page.getMessages().size());
+        assertEquals(11L, page.getMessages().get(0).getId());
+        assertEquals(30L, page.getMessages().get(19).getId());
+        assertTrue(page.isHasMore());
+        assertEquals(11L, page.getNextCursor());
+        verifyNoInteractions(messageRepository);
+    }
+
+    @Test
+    void latestPageFallsBackToTheDatabaseWhenTheWindowIsTooSmall() {
+        when(messageCacheService.getCachedMessages(CONVERSATION_ID, 100))
+                .thenReturn(List.of(response(29), response(30)));
+        Pageable pageable = PageRequest.of(0, 2);
+        when(messageRepository.findLatestMessages(CONVERSATION_ID, pageable))
+                .thenReturn(new SliceImpl<>(List.of(message(30), message(29)), pageable, true));
+
+        MessageHistoryResponse page = service.getMessageHistory(CONVERSATION_ID, USER_ID, null, 2);
+
+        assertEquals(List.of(29L, 30L), ids(page));
+        assertTrue(page.isHasMore());
+        assertEquals(29L, page.getNextCursor());
+        verify(messageCacheService).batchCacheMessages(eq(CONVERSATION_ID), any());
+    }
+
+    @Test
+    void latestPageIncludesMessagesStillWaitingToBePersisted() {
+        // 31 已广播、已进入缓存窗口，但还在写库队列中
+        when(messageCacheService.getCachedMessages(CONVERSATION_ID, 100))
+                .thenReturn(List.of(response(29), response(30), response(31)));
+        Pageable pageable = PageRequest.of(0, 5);
+        when(messageRepository.findLatestMessages(CONVERSATION_ID, pageable))
+                .thenReturn(new SliceImpl<>(List.of(message(30), message(29)), pageable, false));
+
+        MessageHistoryResponse page = service.getMessageHistory(CONVERSATION_ID, USER_ID, null, 5);
+
+        assertEquals(List.of(29L, 30L, 31L), ids(page));
+        assertFalse(page.isHasMore());
+        verify(messageCacheService).batchCacheMessages(eq(CONVERSATION_ID), any());
+    }
+
+    @Test
+    void cursorPagesAlwaysReadTheDatabase() {
+        // 窗口中缺 15：如果由缓存服务游标页，15 会被 nextCursor 跳过
+        List<MessageResponse> window = new ArrayList<>();
+        LongStream.rangeClosed(1, 30).filter(id -> id != 15).forEach(id -> window.add(response(id)));
+        when(messageCacheService.getCachedMessages(CONVERSATION_ID, 100)).thenReturn(window);
+        Pageable pageable = PageRequest.of(0, 5);
+        when(messageRepository.findHistoryBeforeMessage(CONVERSATION_ID, 20L, pageable))
+                .thenReturn(new SliceImpl<>(List.of(message(19), message(18), message(17), message(16), message(15)),
+                        pageable, true));
+
+        MessageHistoryResponse page = service.getMessageHistory(CONVERSATION_ID, USER_ID, 20L, 5);
+
+        assertEquals(List.of(15L, 16L, 17L, 18L, 19L), ids(page));
+        assertEquals(15L, page.getNextCursor());
+        verify(messageCacheService, never()).getCachedMessages(anyLong(), anyInt());
+        verify(messageCacheService, never()).batchCacheMessages(anyLong(), any());
+    }
+
+    @Test
+    void lastPageHasNoMoreAndNoCursor() {
+        Pageable pageable = PageRequest.of(0, 5);
+        when(messageRepository.findHistoryBeforeMessage(CONVERSATION_ID, 3L, pageable))
+                .thenReturn(new SliceImpl<>(List.of(message(2), message(1)), pageable, false));
+
+        MessageHistoryResponse page = service.getMessageHistory(CONVERSATION_ID, USER_ID, 3L, 5);
+
+        assertEquals(List.of(1L, 2L), ids(page));
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void pageSizeIsCappedAndNonMembersAreRejected() {
+        Pageable capped = PageRequest.of(0, 100);
+        when(messageRepository.findHistoryBeforeMessage(CONVERSATION_ID, 500L, capped))
+                .thenReturn(new SliceImpl<>(List.of(), capped, false));
+        assertTrue(service.getMessageHistory(CONVERSATION_ID, USER_ID, 500L, 1000).getMessages().isEmpty());
+
+        assertThrows(BusinessException.class, () -> service.getMessageHistory(CONVERSATION_ID, 2L, null, 20));
+    }
+
+    private static List<Long> ids(MessageHistoryResponse page) {
+        return page.getMessages().stream().map(MessageResponse::getId).toList();
+    }
+
+    private static MessageResponse response(long id) {
+        return MessageResponse.builder().id(id).conversationId(CONVERSATION_ID).senderId(USER_ID).build();
+    }
+
+    private static Message message(long id) {
+        return Message.builder()
+                .id(id)
+                .conversationId(CONVERSATION_ID)
+                .senderId(USER_ID)
+                .content("m" + id)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.sg.nusiss.social.service.message;
+
+import com.sg.nusiss.common.dto.UserDTO;
+import com.sg.nusiss.common.exception.BusinessException;
+import com.sg.nusiss.social.dto.message.request.SendMessageRequest;
+import com.sg.nusiss.social.repository.message.MessageRepository;
+import com.sg.nusiss.social.service.cache.ConversationMembershipCache;
+import com.sg.nusiss.social.service.cache.MessageCacheService;
+import com.sg.nusiss.social.service.user.UserService;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MessageServiceSendTest {
+
+    private static final long CONVERSATION_ID = 9L;
+    private static final long USER_ID = 1L;
+
+    private final ConversationMembershipCache membershipCache = mock(ConversationMembershipCache.class);
+    private final ConversationMembershipCache.Membership membership = mock(ConversationMembershipCache.Membership.class);
+    private final UserService userService = mock(UserService.class);
+    private final ChatMessageWriter chatMessageWriter = mock(ChatMessageWriter.class);
+    private final MessageService service = new MessageService(mock(MessageRepository.class), membershipCache,
+            mock(MessageCacheService.class), userService, mock(MessageIdGenerator.class), chatMessageWriter);
+
+    MessageServiceSendTest() {
+        when(membershipCache.get(CONVERSATION_ID)).thenReturn(membership);
+        when(membership.isMember(USER_ID)).thenReturn(true);
+        when(userService.getUserById(anyLong()))
+                .thenReturn(UserDTO.builder().userId(USER_ID).username("alice").email("a@example.com").build());
+    }
+
+    @Test
+    void oversizedColumnsAreRejectedBeforeSubmit() {
+        SendMessageRequest tooLongType = SendMessageRequest.builder()
+                .conversationId(CONVERSATION_ID).content("hi").messageType("x".repeat(21)).build();
+        SendMessageRequest tooLongFileName = SendMessageRequest.builder()
+                .conversationId(CONVERSATION_ID).messageType("file").fileId("f-1").fileName("n".repeat(256)).build();
+
+        assertThrows(BusinessException.class, () -> service.sendMessage(tooLongType, USER_ID));
+        assertThrows(BusinessException.class, () -> service.sendMessage(tooLongFileName, USER_ID));
+        verify(chatMessageWriter, never()).submit(any(), any());
+    }
+
+    @Test
+    void limitsCountCharactersNotUtf16Units() {
+        // 255 个非 BMP 字符：Java length() 为 510，数据库按字符计为 255
+        SendMessageRequest request = SendMessageRequest.builder()
+                .conversationId(CONVERSATION_ID).messageType("file").fileId("f-1").fileName("😀".repeat(255)).build();
+
+        assertEquals("file", service.sendMessage(request, USER_ID).getMessageType());
+        verify(chatMessageWriter).submit(any(), any());
+    }
+}
@@ -0,0 +1,132 @@
+package com.sg.nusiss.social.service.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RedisRelayBroadcasterTest {
+
+    private static final String DESTINATION = "/topic/chat/9";
+    private static final ChannelTopic CHANNEL = new ChannelTopic("social:ws:" + DESTINATION);
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final RedisMessageListenerContainer container = mock(RedisMessageListenerContainer.class);
+    private final RedisRelayBroadcaster broadcaster =
+            new RedisRelayBroadcaster(messagingTemplate, redisTemplate, container, new ObjectMapper());
+
+    @Test
+    void subscribesOnFirstLocalSubscriberAndUnsubscribesAfterTheLast() {
+        broadcaster.onSubscribe(subscribe("s1", "sub-0", DESTINATION));
+        broadcaster.onSubscribe(subscribe("s2", "sub-0", DESTINATION));
+        verify(container, times(1)).addMessageListener(broadcaster, CHANNEL);
+
+        broadcaster.onUnsubscribe(unsubscribe("s1", "sub-0"));
+        verify(container, never()).removeMessageListener(any(), any(ChannelTopic.class));
+
+        broadcaster.onDisconnect(disconnect("s2"));
+        verify(container, times(1)).removeMessageListener(broadcaster, CHANNEL);
+
+        // 重复的断开、取消订阅不会让计数变成负数
+        broadcaster.onDisconnect(disconnect("s2"));
+        broadcaster.onUnsubscribe(unsubscribe("s1", "sub-0"));
+        verify(container, times(1)).removeMessageListener(broadcaster, CHANNEL);
+    }
+
+    @Test
+    void reusedSubscriptionIdReleasesThePreviousDestination() {
+        broadcaster.onSubscribe(subscribe("s1", "sub-0", DESTINATION));
+        broadcaster.onSubscribe(subscribe("s1", "sub-0", "/topic/chat/10"));
+
+        verify(container).removeMessageListener(broadcaster, CHANNEL);
+        verify(container).addMessageListener(broadcaster, new ChannelTopic("social:ws:/topic/chat/10"));
+    }
+
+    @Test
+    void ignoresDestinationsOutsideTopic() {
+        broadcaster.onSubscribe(subscribe("s1", "sub-0", "/user/queue/errors"));
+        verify(container, never()).addMessageListener(any(), any(ChannelTopic.class));
+    }
+
+    @Test
+    void deliversRelayedFramesFromOtherNodesAndSkipsItsOwnEcho() {
+        broadcaster.onSubscribe(subscribe("s1", "sub-0", DESTINATION));
+
+        broadcaster.broadcast(DESTINATION, Map.of("id", 1));
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL.getTopic()), published.capture());
+        // 本地订阅者直接收到一次
+        verify(messagingTemplate, times(1)).send(eq(DESTINATION), any(Message.class));
+
+        // 自己发出的消息经 Redis 回到本节点时跳过
+        broadcaster.onMessage(relayed(published.getValue()), null);
+        verify(messagingTemplate, times(1)).send(eq(DESTINATION), any(Message.class));
+
+        broadcaster.onMessage(relayed("other-node\n{\"id\":2}"), null);
+        ArgumentCaptor<Message<?>> delivered = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate, times(2)).send(eq(DESTINATION), delivered.capture());
+        assertEquals("{\"id\":2}", new String((byte[]) delivered.getValue().getPayload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void dropsFramesWithoutLocalSubscribersOrSeparator() {
+        broadcaster.onMessage(relayed("other-node\n{}"), null);
+
+        broadcaster.onSubscribe(subscribe("s1", "sub-0", DESTINATION));
+        broadcaster.onMessage(relayed("no-separator"), null);
+
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+    }
+
+    private static DefaultMessage relayed(String body) {
+        return new DefaultMessage(CHANNEL.getTopic().getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return new SessionSubscribeEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private SessionUnsubscribeEvent unsubscribe(String sessionId, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return new SessionUnsubscribeEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private SessionDisconnectEvent disconnect(String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        return new SessionDisconnectEvent(this, MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()),
+                sessionId, CloseStatus.NORMAL);
+    }
+}